@@ -0,0 +1,81 @@
+package sample;
+
+/**
+ * BuildingPair represents an immutable ordered pair of CampusBuildings: the
+ * start and the destination of a route.
+ */
+public class BuildingPair {
+	private CampusBuilding start;
+	private CampusBuilding dest;
+	//Abstraction function:
+	//start is the CampusBuilding a route begins at and dest is the
+	//CampusBuilding it ends at.
+	//Rep inv:
+	//start != null, dest != null
+
+	/**
+	 * @param start the CampusBuilding the route begins at
+	 * @param dest the CampusBuilding the route ends at
+	 * @requires start != null, dest != null
+	 * @effects creates a new BuildingPair from start to dest
+	 */
+	public BuildingPair(CampusBuilding start, CampusBuilding dest){
+		this.start = start;
+		this.dest = dest;
+	}
+
+	/**
+	 * 
+	 * @return the CampusBuilding the route begins at
+	 */
+	public CampusBuilding getStart(){
+		return start;
+	}
+
+	/**
+	 * 
+	 * @return the CampusBuilding the route ends at
+	 */
+	public CampusBuilding getDestination(){
+		return dest;
+	}
+
+	/**
+	 * @return a string representation of this.
+	 */
+	public String toString(){
+		return start.getShortName() + " -> " + dest.getShortName();
+	}
+
+	/**
+	 * Standard hashCode function
+	 * @return an int that all BuildingPairs equal to this
+	 * will also return when hashCode is called on them
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + start.hashCode();
+		result = prime * result + dest.hashCode();
+		return result;
+	}
+
+	/**
+	 * Standard equality function
+	 * @param obj Object to compare to this
+	 * @return true iff obj is of type BuildingPair and obj has a start and
+	 * destination equal to this's
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		BuildingPair other = (BuildingPair) obj;
+		return start.equals(other.start) && dest.equals(other.dest);
+	}
+}
@@ -0,0 +1,108 @@
+package sample;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CampusArea represents the immutable part of campus within a walking
+ * distance of a CampusBuilding: the buildings that can be reached within
+ * that distance, how far each one is, and a polygon around every path
+ * location within that distance for drawing on the map.
+ *
+ */
+public class CampusArea {
+	private CampusBuilding origin;
+	private double radius;
+	private List<CampusBuilding> buildings;
+	private List<Double> distances;
+	private List<CampusLocation> outline;
+	//Abstraction function:
+	//Every building reachable from origin by walking at most radius is
+	//in buildings, in increasing order of walking distance, and the
+	//walking distance to buildings.get(i) is distances.get(i). outline
+	//holds the corners of the convex hull of the path locations reachable
+	//within radius, in order.
+	//
+	//Representation Inv:
+	//origin, buildings, distances, outline != null;
+	//buildings.size() == distances.size(); every distance <= radius and
+	//distances is non-decreasing.
+
+	/**
+	 * @param origin the CampusBuilding distances are measured from
+	 * @param radius the largest walking distance included
+	 * @param buildings the buildings within radius in increasing order of
+	 * walking distance
+	 * @param distances the walking distance to each building of buildings
+	 * @param outline the corners of a polygon around the area
+	 * @requires no argument is null, buildings.size() == distances.size()
+	 * @effects creates a new CampusArea
+	 */
+	public CampusArea(CampusBuilding origin, double radius, List<CampusBuilding> buildings,
+			List<Double> distances, List<CampusLocation> outline){
+		this.origin = origin;
+		this.radius = radius;
+		this.buildings = new ArrayList<CampusBuilding>(buildings);
+		this.distances = new ArrayList<Double>(distances);
+		this.outline = new ArrayList<CampusLocation>(outline);
+		checkRep();
+	}
+
+	/**
+	 *
+	 * @return the CampusBuilding distances are measured from
+	 */
+	public CampusBuilding getOrigin(){
+		return origin;
+	}
+
+	/**
+	 *
+	 * @return the largest walking distance, in feet, included in this
+	 */
+	public double getRadius(){
+		return radius;
+	}
+
+	/**
+	 *
+	 * @return a List<CampusBuilding> of every building within getRadius()
+	 * feet of getOrigin() by walking, nearest first
+	 */
+	public List<CampusBuilding> getBuildings(){
+		return Collections.unmodifiableList(buildings);
+	}
+
+	/**
+	 *
+	 * @return a List<Double> whose i-th element is the walking distance,
+	 * in feet, to the i-th element of getBuildings()
+	 */
+	public List<Double> getBuildingDistances(){
+		return Collections.unmodifiableList(distances);
+	}
+
+	/**
+	 *
+	 * @return the corners, in order, of the smallest convex polygon around
+	 * every path location within getRadius() feet of getOrigin()
+	 */
+	public List<CampusLocation> getOutline(){
+		return Collections.unmodifiableList(outline);
+	}
+
+	/** Checks that the representation invariant holds */
+	private void checkRep() throws RuntimeException {
+		if (buildings.size() != distances.size()){
+			throw new RuntimeException("Every building needs a distance");
+		}
+		double previous = 0;
+		for (double d : distances){
+			if (d < previous || d > radius){
+				throw new RuntimeException("Distances must be in order and within the radius");
+			}
+			previous = d;
+		}
+	}
+}
@@ -0,0 +1,848 @@
+package sample;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+/**
+ * CampusBenchmarks is a suite of repeatable microbenchmarks for the campus
+ * code, run through Microbenchmark so that every result comes with an error
+ * estimate and an allocation rate. Each benchmark measures one entry point
+ * the same way on every run, so results can be compared across changes to
+ * it. Whether the code being measured gives correct answers is checked by
+ * the unit tests, not here.
+ *
+ * parse.*: CampusParser loading the real data files and a synthetic file of
+ * about 200,000 locations, and CampusModel startup.
+ * startup.*: from nothing loaded to the first route, from the text files
+ * and from a MappedCampusMap file.
+ * graph.*: scanning every edge of the Graph, freezing it into a
+ * CompactGraph, closing and reopening a location and removing every node
+ * of a copy one at a time; graph.copy is the cost of the copy alone.
+ * prepare.*: building the preprocessing of each routing engine.
+ * route.allPairs.*: one route per operation, cycling through every pair of
+ * buildings, with each engine; modelInstrumented records every query in
+ * RoutingStats.
+ * route.longest.*: the pair of buildings with the longest route.
+ * route.alternatives.*, route.unreachable.*, route.points.*: alternative
+ * routes, pairs with no path and routes between arbitrary points.
+ * distance.*: one-to-many and many-to-many distance queries.
+ * isochrone.*: everything within a walking distance of a building.
+ * spatial.*: nearest path locations to random points.
+ * dynamic.*: repairing shortest path trees after a weight change against
+ * recomputing them.
+ * batch.*: every pair of buildings four times through CampusModel.getPaths
+ * on different executors. Only the allocation of the calling thread is
+ * counted.
+ * concurrent.*: routing on ConcurrentGraph snapshots while another thread
+ * keeps closing and reopening walkways.
+ * synthetic.*: corner to corner routes on square grids of increasing size.
+ *
+ * Usage: CampusBenchmarks [buildingFile pathsFile [regex]]
+ * Only benchmarks whose names contain a match of regex are run.
+ */
+public class CampusBenchmarks {
+	//Class does not represent an ADT
+
+	private static final int WARMUPS = 3;
+	private static final int ITERATIONS = 5;
+	private static final long ITERATION_MILLIS = 1000;
+
+	private static Pattern include;
+
+	/**
+	 * Runs the selected benchmarks and prints a table of results.
+	 * @param args optionally the building file and the paths file to load,
+	 * followed by a pattern selecting the benchmarks to run
+	 */
+	public static void main(String[] args) throws Exception {
+		final String buildingFile = args.length > 1 ? args[0] : "src/data/campus_buildings.dat";
+		final String pathsFile = args.length > 1 ? args[1] : "src/data/campus_paths.dat";
+		include = Pattern.compile(args.length > 2 ? args[2] : "");
+		SortedMap<String, CampusBuilding> buildings = new TreeMap<String, CampusBuilding>();
+		CampusParser.parseBuildingsList(buildingFile, buildings);
+		final List<CampusBuilding> list = new ArrayList<CampusBuilding>(buildings.values());
+		GraphBuilder<CampusLocation, Double> builder = new GraphBuilder<CampusLocation, Double>();
+		CampusParser.parsePaths(pathsFile, builder);
+		final Graph<CampusLocation, Double> paths = builder.build();
+		final CompactGraph<CampusLocation> snapshot = CompactGraph.freeze(paths);
+		final Heuristic heuristic = new EuclideanHeuristic(snapshot);
+		final SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		final SearchSpace backward = new SearchSpace(snapshot.nodeCount());
+
+		Microbenchmark.printHeader();
+		run("parse.paths.lines", new Microbenchmark.Operation() {
+			public long run() throws Exception {
+				GraphBuilder<CampusLocation, Double> b = new GraphBuilder<CampusLocation, Double>();
+				CampusParser.parsePaths(pathsFile, b);
+				return b.build().getNodes().size();
+			}
+		});
+		run("parse.paths.mapped", new Microbenchmark.Operation() {
+			public long run() throws Exception {
+				GraphBuilder<CampusLocation, Double> b = new GraphBuilder<CampusLocation, Double>();
+				CampusParser.parsePathsMapped(pathsFile, b);
+				return b.build().getNodes().size();
+			}
+		});
+		run("parse.paths.graph", new Microbenchmark.Operation() {
+			public long run() throws Exception {
+				Graph<CampusLocation, Double> g = new Graph<CampusLocation, Double>();
+				CampusParser.parsePaths(pathsFile, g);
+				return g.getNodes().size();
+			}
+		});
+		run("parse.buildings", new Microbenchmark.Operation() {
+			public long run() throws Exception {
+				SortedMap<String, CampusBuilding> b = new TreeMap<String, CampusBuilding>();
+				CampusParser.parseBuildingsList(buildingFile, b);
+				return b.size();
+			}
+		});
+		run("parse.model", new Microbenchmark.Operation() {
+			public long run() {
+				return new CampusModel(buildingFile, pathsFile).getBuildings().size();
+			}
+		});
+		parseSynthetic(200000);
+		startup(buildingFile, pathsFile, list);
+
+		final List<Node<CampusLocation>> nodes = new ArrayList<Node<CampusLocation>>(paths.getNodes());
+		run("graph.getChildren", new Microbenchmark.Operation() {
+			public long run() {
+				long edges = 0;
+				for (Node<CampusLocation> n : nodes) {
+					edges += paths.getChildren(n).size();
+				}
+				return edges;
+			}
+		});
+		run("graph.getChildrenView", new Microbenchmark.Operation() {
+			public long run() {
+				long edges = 0;
+				for (Node<CampusLocation> n : nodes) {
+					for (Edge<Double> e : paths.getChildrenView(n)) {
+						edges += e.getLabel().longValue();
+					}
+				}
+				return edges;
+			}
+		});
+		run("graph.forEachChild", new Microbenchmark.Operation() {
+			public long run() {
+				final long[] edges = new long[1];
+				for (Node<CampusLocation> n : nodes) {
+					paths.forEachChild(n, e -> edges[0] += e.getLabel().longValue());
+				}
+				return edges[0];
+			}
+		});
+		run("graph.freeze", new Microbenchmark.Operation() {
+			public long run() {
+				return CompactGraph.freeze(paths).edgeCount();
+			}
+		});
+		run("graph.removeAndRestoreNode", new Microbenchmark.Operation() {
+			private final Graph<CampusLocation, Double> g = copy(paths);
+			private int next;
+
+			public long run() {
+				Node<CampusLocation> n = nodes.get(next);
+				next = (next + 1) % nodes.size();
+				List<Edge<Double>> edges = new ArrayList<Edge<Double>>(g.getChildrenView(n));
+				for (Edge<Double> e : g.getParentsView(n)) {
+					if (!e.getParent().equals(n)) {
+						edges.add(e);
+					}
+				}
+				g.removeNode(n);
+				g.addNode(n);
+				for (Edge<Double> e : edges) {
+					g.addEdge(e);
+				}
+				return edges.size();
+			}
+		});
+		run("graph.copy", new Microbenchmark.Operation() {
+			public long run() {
+				return copy(paths).getNodes().size();
+			}
+		});
+		run("graph.copyAndRemoveAllNodes", new Microbenchmark.Operation() {
+			public long run() {
+				Graph<CampusLocation, Double> g = copy(paths);
+				for (Node<CampusLocation> n : nodes) {
+					g.removeNode(n);
+				}
+				return g.getNodes().size();
+			}
+		});
+
+		final List<Node<CampusLocation>> stops = new ArrayList<Node<CampusLocation>>();
+		for (CampusBuilding b : list) {
+			stops.add(new Node<CampusLocation>(b.getLocation()));
+		}
+		run("prepare.contractionHierarchy", new Microbenchmark.Operation() {
+			public long run() {
+				return new ContractionHierarchy<CampusLocation>(snapshot).getShortcutCount();
+			}
+		});
+		run("prepare.landmarks", new Microbenchmark.Operation() {
+			public long run() {
+				return new LandmarkHeuristic(snapshot).getLandmarks().length;
+			}
+		});
+		run("prepare.routeTable", new Microbenchmark.Operation() {
+			public long run() {
+				return new RouteTable<CampusLocation>(snapshot, stops, ForkJoinPool.commonPool())
+						.getTableBytes();
+			}
+		});
+		run("prepare.spatialIndex", new Microbenchmark.Operation() {
+			public long run() {
+				return new SpatialIndex(snapshot).size();
+			}
+		});
+
+		run("route.allPairs.graphDijkstra", new PairCycle(stops) {
+			long route(Node<CampusLocation> a, Node<CampusLocation> b) {
+				return size(Dijkstra.getPath(a, b, paths));
+			}
+		});
+		run("route.allPairs.snapshotDijkstra", new PairCycle(stops) {
+			long route(Node<CampusLocation> a, Node<CampusLocation> b) {
+				return size(Dijkstra.getPath(a, b, snapshot));
+			}
+		});
+		run("route.allPairs.snapshotDijkstraReused", new PairCycle(stops) {
+			long route(Node<CampusLocation> a, Node<CampusLocation> b) {
+				return size(Dijkstra.getPath(a, b, snapshot, space));
+			}
+		});
+		run("route.allPairs.snapshotAStar", new PairCycle(stops) {
+			long route(Node<CampusLocation> a, Node<CampusLocation> b) {
+				return size(Dijkstra.getPath(a, b, snapshot, heuristic, space));
+			}
+		});
+		run("route.allPairs.snapshotBidirectional", new PairCycle(stops) {
+			long route(Node<CampusLocation> a, Node<CampusLocation> b) {
+				return size(Dijkstra.getPath(a, b, snapshot, space, backward));
+			}
+		});
+		if (selected("route.allPairs.contractionHierarchy")) {
+			final ContractionHierarchy<CampusLocation> hierarchy =
+					new ContractionHierarchy<CampusLocation>(snapshot);
+			run("route.allPairs.contractionHierarchy", new PairCycle(stops) {
+				long route(Node<CampusLocation> a, Node<CampusLocation> b) {
+					return size(hierarchy.getPath(a, b, space, backward));
+				}
+			});
+		}
+		if (selected("route.allPairs.landmarks")) {
+			final LandmarkHeuristic landmarks = new LandmarkHeuristic(snapshot);
+			run("route.allPairs.landmarks", new PairCycle(stops) {
+				long route(Node<CampusLocation> a, Node<CampusLocation> b) {
+					return size(Dijkstra.getPath(a, b, snapshot, landmarks, space));
+				}
+			});
+		}
+		if (selected("route.allPairs.routeTable")) {
+			final RouteTable<CampusLocation> table = new RouteTable<CampusLocation>(snapshot, stops,
+					ForkJoinPool.commonPool());
+			run("route.allPairs.routeTable", new PairCycle(stops) {
+				long route(Node<CampusLocation> a, Node<CampusLocation> b) {
+					return size(table.getPath(a, b));
+				}
+			});
+		}
+		final CampusModel model = new CampusModel(buildingFile, pathsFile);
+		run("route.allPairs.model", new ModelCycle(model, list));
+		final CampusModel instrumented = new CampusModel(buildingFile, pathsFile);
+		instrumented.setInstrumented(true);
+		run("route.allPairs.modelInstrumented", new ModelCycle(instrumented, list));
+
+		final Node<CampusLocation>[] longest = longestPair(stops, snapshot, space);
+		run("route.longest.graphDijkstra", new Microbenchmark.Operation() {
+			public long run() {
+				return size(Dijkstra.getPath(longest[0], longest[1], paths));
+			}
+		});
+		run("route.longest.snapshotAStar", new Microbenchmark.Operation() {
+			public long run() {
+				return size(Dijkstra.getPath(longest[0], longest[1], snapshot, heuristic, space));
+			}
+		});
+
+		run("route.alternatives.model", new Microbenchmark.Operation() {
+			private int next;
+
+			public long run() {
+				CampusBuilding a = list.get(next / list.size());
+				CampusBuilding b = list.get(next % list.size());
+				next = (next + 1) % (list.size() * list.size());
+				return model.getAlternativePaths(a, b, 3).size();
+			}
+		});
+		unreachable(buildingFile, pathsFile, list);
+		final Random random = new Random(42);
+		final double[] points = new double[4096];
+		for (int i = 0; i < points.length; i += 2) {
+			CampusLocation l = snapshot.getNode(random.nextInt(snapshot.nodeCount())).getData();
+			points[i] = l.getX() + random.nextGaussian() * 50;
+			points[i + 1] = l.getY() + random.nextGaussian() * 50;
+		}
+		run("route.points.model", new Microbenchmark.Operation() {
+			private int next;
+
+			public long run() {
+				CampusLocation a = new CampusLocation(points[next], points[next + 1]);
+				next = (next + 2) % points.length;
+				CampusLocation b = new CampusLocation(points[next], points[next + 1]);
+				CampusPath p = model.getPath(a, b);
+				return p == null ? 0 : p.getPathLocations().size();
+			}
+		});
+
+		run("distance.oneToMany", new Microbenchmark.Operation() {
+			private int next;
+
+			public long run() {
+				Node<CampusLocation> a = stops.get(next);
+				next = (next + 1) % stops.size();
+				return Dijkstra.getDistances(a, stops, snapshot, space).length;
+			}
+		});
+		run("distance.matrix", new Microbenchmark.Operation() {
+			public long run() {
+				return Dijkstra.getDistanceMatrix(stops, stops, snapshot, space).length;
+			}
+		});
+
+		final Isochrone isochrone = new Isochrone(snapshot);
+		for (final double radius : new double[] { 500, 1000, 2000 }) {
+			run("isochrone.search" + (int) radius, new Microbenchmark.Operation() {
+				private int next;
+
+				public long run() {
+					Node<CampusLocation> origin = stops.get(next);
+					next = (next + 1) % stops.size();
+					return isochrone.search(origin, radius);
+				}
+			});
+		}
+		run("isochrone.modelArea1000", new Microbenchmark.Operation() {
+			private int next;
+
+			public long run() {
+				CampusBuilding origin = list.get(next);
+				next = (next + 1) % list.size();
+				return model.getArea(origin, 1000).getBuildings().size();
+			}
+		});
+
+		final SpatialIndex index = new SpatialIndex(snapshot);
+		run("spatial.nearest", new Microbenchmark.Operation() {
+			private int next;
+
+			public long run() {
+				int v = index.nearest(points[next], points[next + 1]);
+				next = (next + 2) % points.length;
+				return v;
+			}
+		});
+		run("spatial.nearest8", new Microbenchmark.Operation() {
+			private int next;
+
+			public long run() {
+				int found = index.nearest(points[next], points[next + 1], 8).length;
+				next = (next + 2) % points.length;
+				return found;
+			}
+		});
+
+		if (selected("dynamic.repair")) {
+			run("dynamic.repair", new WeightChanges(snapshot,
+					new DynamicShortestPaths<CampusLocation>(paths, stops), false));
+		}
+		if (selected("dynamic.recompute")) {
+			run("dynamic.recompute", new WeightChanges(snapshot,
+					new DynamicShortestPaths<CampusLocation>(paths, stops), true));
+		}
+
+		batch(buildingFile, pathsFile, list);
+		concurrent(paths, stops);
+
+		for (int side : new int[] { 32, 100, 316 }) {
+			syntheticGrid(side);
+		}
+	}
+
+	//Runs the benchmarks for parsing a synthetic paths file of about nodes
+	//locations
+	private static void parseSynthetic(int nodes) throws Exception {
+		if (!selected("parse.synthetic.lines") && !selected("parse.synthetic.mapped")) {
+			return;
+		}
+		final String file = syntheticPaths(nodes);
+		run("parse.synthetic.lines", new Microbenchmark.Operation() {
+			public long run() throws Exception {
+				GraphBuilder<CampusLocation, Double> b = new GraphBuilder<CampusLocation, Double>();
+				CampusParser.parsePaths(file, b);
+				return b.build().getNodes().size();
+			}
+		});
+		run("parse.synthetic.mapped", new Microbenchmark.Operation() {
+			public long run() throws Exception {
+				GraphBuilder<CampusLocation, Double> b = new GraphBuilder<CampusLocation, Double>();
+				CampusParser.parsePathsMapped(file, b);
+				return b.build().getNodes().size();
+			}
+		});
+	}
+
+	//Runs the benchmarks for the time from nothing loaded to the first
+	//route, from the text files and from a map file exported from them
+	private static void startup(final String buildingFile, final String pathsFile,
+			List<CampusBuilding> buildings) throws Exception {
+		if (!selected("startup.text") && !selected("startup.mapped")) {
+			return;
+		}
+		final File mapFile = File.createTempFile("campus", ".map");
+		mapFile.deleteOnExit();
+		CampusModel model = new CampusModel(buildingFile, pathsFile);
+		MappedCampusMap.write(mapFile.getPath(), model.getGraph(), model.getBuildings());
+		final String from = buildings.get(0).getShortName();
+		final String to = buildings.get(buildings.size() - 1).getShortName();
+		run("startup.text", new Microbenchmark.Operation() {
+			public long run() {
+				CampusModel text = new CampusModel(buildingFile, pathsFile);
+				return size(text.getPath(text.getBuilding(from), text.getBuilding(to)));
+			}
+		});
+		run("startup.mapped", new Microbenchmark.Operation() {
+			public long run() throws Exception {
+				MappedCampusMap mapped = MappedCampusMap.load(mapFile.getPath());
+				return size(mapped.getPath(from, to, new SearchSpace(mapped.nodeCount())));
+			}
+		});
+	}
+
+	//Runs the benchmarks for pairs of buildings with no path between them.
+	//Two shifted copies of the campus are added to a model's graph, the
+	//first reachable from the campus by a one-way edge and the second not
+	//joined at all. CampusModel rules such pairs out by component, while A*
+	//exhausts the region it starts in.
+	private static void unreachable(String buildingFile, String pathsFile,
+			List<CampusBuilding> buildings) throws Exception {
+		if (!selected("route.unreachable.model") && !selected("route.unreachable.snapshotAStar")) {
+			return;
+		}
+		final CampusModel model = new CampusModel(buildingFile, pathsFile);
+		Graph<CampusLocation, Double> g = model.getGraph();
+		List<Edge<Double>> edges = g.getEdges();
+		List<CampusBuilding> bridged = shiftedCopy(g, edges, buildings, 10000);
+		List<CampusBuilding> island = shiftedCopy(g, edges, buildings, 20000);
+		g.addEdge(new Edge<Double>(new Node<CampusLocation>(buildings.get(0).getLocation()),
+				new Node<CampusLocation>(bridged.get(0).getLocation()), 1.0));
+		final List<BuildingPair> pairs = new ArrayList<BuildingPair>();
+		for (int i = 0; i < buildings.size(); i++) {
+			pairs.add(new BuildingPair(bridged.get(i), buildings.get(i)));
+			pairs.add(new BuildingPair(buildings.get(i), island.get(i)));
+			pairs.add(new BuildingPair(island.get(i), bridged.get(i)));
+		}
+		final CompactGraph<CampusLocation> snapshot = CompactGraph.freeze(g);
+		final Heuristic h = new EuclideanHeuristic(snapshot);
+		final SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		run("route.unreachable.model", new Microbenchmark.Operation() {
+			private int next;
+
+			public long run() {
+				BuildingPair pair = pairs.get(next);
+				next = (next + 1) % pairs.size();
+				return model.getPath(pair.getStart(), pair.getDestination()) == null ? 0 : 1;
+			}
+		});
+		run("route.unreachable.snapshotAStar", new Microbenchmark.Operation() {
+			private int next;
+
+			public long run() {
+				BuildingPair pair = pairs.get(next);
+				next = (next + 1) % pairs.size();
+				return size(Dijkstra.getPath(new Node<CampusLocation>(pair.getStart().getLocation()),
+						new Node<CampusLocation>(pair.getDestination().getLocation()), snapshot, h, space));
+			}
+		});
+	}
+
+	//Runs the benchmarks for routing every pair of buildings four times
+	//through CampusModel.getPaths on fork join pools of 1, 2 and 4 threads
+	//and on virtual threads when the JVM has them
+	private static void batch(String buildingFile, String pathsFile,
+			List<CampusBuilding> buildings) throws Exception {
+		if (!selected("batch.getPaths")) {
+			return;
+		}
+		final CampusModel model = new CampusModel(buildingFile, pathsFile);
+		final List<BuildingPair> pairs = new ArrayList<BuildingPair>();
+		for (int i = 0; i < 4; i++) {
+			for (CampusBuilding a : buildings) {
+				for (CampusBuilding b : buildings) {
+					pairs.add(new BuildingPair(a, b));
+				}
+			}
+		}
+		Collections.shuffle(pairs, new Random(42));
+		List<String> names = new ArrayList<String>();
+		List<ExecutorService> executors = new ArrayList<ExecutorService>();
+		for (int threads = 1; threads <= 4; threads *= 2) {
+			names.add("batch.getPaths.forkJoin" + threads);
+			executors.add(new ForkJoinPool(threads));
+		}
+		try {
+			executors.add((ExecutorService) Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+			names.add("batch.getPaths.virtualThreads");
+		} catch (NoSuchMethodException e) {
+			// virtual threads need Java 21
+		}
+		for (int i = 0; i < executors.size(); i++) {
+			final ExecutorService executor = executors.get(i);
+			try {
+				run(names.get(i), new Microbenchmark.Operation() {
+					public long run() {
+						model.getRouteCache().clear();
+						return model.getPaths(pairs, executor).size();
+					}
+				});
+			} finally {
+				executor.shutdown();
+			}
+		}
+	}
+
+	//Runs the benchmark for routing on ConcurrentGraph snapshots while a
+	//writer thread repeatedly closes and reopens 20 walkways in both
+	//directions as one batch
+	private static void concurrent(Graph<CampusLocation, Double> paths,
+			final List<Node<CampusLocation>> stops) throws Exception {
+		if (!selected("concurrent.route")) {
+			return;
+		}
+		Graph<CampusLocation, Double> g = copy(paths);
+		final List<Edge<Double>> closures = new ArrayList<Edge<Double>>();
+		Random random = new Random(42);
+		List<Edge<Double>> edges = g.getEdges();
+		while (closures.size() < 40) {
+			Edge<Double> e = edges.get(random.nextInt(edges.size()));
+			Edge<Double> back = new Edge<Double>(e.getChild(), e.getParent(), e.getLabel());
+			if (!closures.contains(e) && !closures.contains(back) && g.containsEdge(back)) {
+				closures.add(e);
+				closures.add(back);
+			}
+		}
+		final ConcurrentGraph<CampusLocation> graph = new ConcurrentGraph<CampusLocation>(g);
+		final SearchSpace space = new SearchSpace(graph.snapshot().nodeCount());
+		final boolean[] stop = new boolean[1];
+		Thread writer = new Thread(() -> {
+			for (long updates = 0; !isStopped(stop); updates++) {
+				final boolean close = updates % 2 == 0;
+				graph.update(c -> {
+					for (Edge<Double> e : closures) {
+						if (close) {
+							c.removeEdge(e);
+						} else {
+							c.addEdge(e);
+						}
+					}
+				});
+			}
+		});
+		writer.start();
+		try {
+			run("concurrent.route.whileUpdating", new PairCycle(stops) {
+				long route(Node<CampusLocation> a, Node<CampusLocation> b) {
+					return size(Dijkstra.getPath(a, b, graph.snapshot(), space));
+				}
+			});
+		} finally {
+			synchronized (stop) {
+				stop[0] = true;
+			}
+			writer.join();
+		}
+	}
+
+	//Returns stop[0], read while holding stop
+	private static boolean isStopped(boolean[] stop) {
+		synchronized (stop) {
+			return stop[0];
+		}
+	}
+
+	//Runs the benchmarks for corner to corner routes on a side by side grid
+	private static void syntheticGrid(int side) throws Exception {
+		String prefix = "synthetic.grid" + side * side;
+		if (!selected(prefix + ".graphDijkstra") && !selected(prefix + ".snapshotDijkstra")
+				&& !selected(prefix + ".snapshotAStar")) {
+			return;
+		}
+		final Graph<CampusLocation, Double> grid = grid(side, new Random(side));
+		final CompactGraph<CampusLocation> snapshot = CompactGraph.freeze(grid);
+		final Heuristic heuristic = new EuclideanHeuristic(snapshot);
+		final SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		final Node<CampusLocation> corner = new Node<CampusLocation>(new CampusLocation(0, 0));
+		final Node<CampusLocation> opposite = new Node<CampusLocation>(
+				new CampusLocation(10 * (side - 1), 10 * (side - 1)));
+		if (side * side <= 10000) {
+			run(prefix + ".graphDijkstra", new Microbenchmark.Operation() {
+				public long run() {
+					return size(Dijkstra.getPath(corner, opposite, grid));
+				}
+			});
+		}
+		run(prefix + ".snapshotDijkstra", new Microbenchmark.Operation() {
+			public long run() {
+				return size(Dijkstra.getPath(corner, opposite, snapshot, space));
+			}
+		});
+		run(prefix + ".snapshotAStar", new Microbenchmark.Operation() {
+			public long run() {
+				return size(Dijkstra.getPath(corner, opposite, snapshot, heuristic, space));
+			}
+		});
+	}
+
+	//Runs op through Microbenchmark if its name is selected
+	private static void run(String name, Microbenchmark.Operation op) throws Exception {
+		if (selected(name)) {
+			Microbenchmark.measure(name, op, WARMUPS, ITERATIONS, ITERATION_MILLIS);
+		}
+	}
+
+	//Returns true if the benchmark called name should run
+	private static boolean selected(String name) {
+		return include.matcher(name).find();
+	}
+
+	//Returns a side by side grid of locations 10 apart, each joined to its
+	//neighbors in both directions by edges 10 to 15 long
+	private static Graph<CampusLocation, Double> grid(int side, Random random) {
+		GraphBuilder<CampusLocation, Double> builder = new GraphBuilder<CampusLocation, Double>();
+		List<Node<CampusLocation>> nodes = new ArrayList<Node<CampusLocation>>(side * side);
+		for (int i = 0; i < side * side; i++) {
+			nodes.add(new Node<CampusLocation>(new CampusLocation(10 * (i % side), 10 * (i / side))));
+		}
+		builder.addNodes(nodes);
+		for (int i = 0; i < side * side; i++) {
+			if (i % side + 1 < side) {
+				join(builder, nodes.get(i), nodes.get(i + 1), 10 + 5 * random.nextDouble());
+			}
+			if (i + side < side * side) {
+				join(builder, nodes.get(i), nodes.get(i + side), 10 + 5 * random.nextDouble());
+			}
+		}
+		return builder.build();
+	}
+
+	//Adds edges of the given weight from a to b and from b to a
+	private static void join(GraphBuilder<CampusLocation, Double> builder, Node<CampusLocation> a,
+			Node<CampusLocation> b, double weight) {
+		builder.addEdge(new Edge<Double>(a, b, weight));
+		builder.addEdge(new Edge<Double>(b, a, weight));
+	}
+
+	//Writes a paths file for a square grid of about nodes locations, each
+	//joined to its grid neighbours, to a temporary file and returns its name
+	private static String syntheticPaths(int nodes) throws Exception {
+		File file = File.createTempFile("synthetic_paths", ".dat");
+		file.deleteOnExit();
+		int side = (int) Math.ceil(Math.sqrt(nodes));
+		Random random = new Random(42);
+		double[] xs = new double[side * side];
+		double[] ys = new double[side * side];
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = Math.round(((i % side) * 20 + random.nextDouble() * 10) * 10000) / 10000.0;
+			ys[i] = Math.round(((i / side) * 20 + random.nextDouble() * 10) * 10000) / 10000.0;
+		}
+		PrintWriter out = new PrintWriter(new BufferedWriter(
+				new FileWriter(file)));
+		try {
+			int[][] steps = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+			for (int i = 0; i < xs.length; i++) {
+				out.print(xs[i] + "," + ys[i] + "\n");
+				for (int[] step : steps) {
+					int cx = i % side + step[0];
+					int cy = i / side + step[1];
+					if (cx >= 0 && cx < side && cy >= 0 && cy < side) {
+						int j = cy * side + cx;
+						out.print("\t" + xs[j] + "," + ys[j] + ": "
+								+ Math.hypot(xs[i] - xs[j], ys[i] - ys[j]) + "\n");
+					}
+				}
+			}
+		} finally {
+			out.close();
+		}
+		return file.getPath();
+	}
+
+	//Adds a copy of edges shifted right by dx to g and returns the buildings
+	//shifted the same way
+	private static List<CampusBuilding> shiftedCopy(Graph<CampusLocation, Double> g,
+			List<Edge<Double>> edges, List<CampusBuilding> buildings, double dx) {
+		for (Edge<Double> e : edges) {
+			Node<CampusLocation> parent = shift(e.getParent(), dx);
+			Node<CampusLocation> child = shift(e.getChild(), dx);
+			g.addNode(parent);
+			g.addNode(child);
+			g.addEdge(new Edge<Double>(parent, child, e.getLabel()));
+		}
+		List<CampusBuilding> result = new ArrayList<CampusBuilding>();
+		for (CampusBuilding b : buildings) {
+			CampusLocation l = b.getLocation();
+			result.add(new CampusBuilding(b.getShortName() + "+" + (int) dx, b.getLongName(),
+					new CampusLocation(l.getX() + dx, l.getY())));
+		}
+		return result;
+	}
+
+	//Returns a new Node at a location shifted right by dx
+	private static Node<CampusLocation> shift(Node<?> n, double dx) {
+		CampusLocation l = (CampusLocation) n.getData();
+		return new Node<CampusLocation>(new CampusLocation(l.getX() + dx, l.getY()));
+	}
+
+	//Returns a new Graph with the nodes and edges of g
+	private static Graph<CampusLocation, Double> copy(Graph<CampusLocation, Double> g) {
+		return new GraphBuilder<CampusLocation, Double>().addNodes(g.getNodes())
+				.addEdges(g.getEdges()).build();
+	}
+
+	//Returns the pair of stops with the longest least cost path between them
+	@SuppressWarnings("unchecked")
+	private static Node<CampusLocation>[] longestPair(List<Node<CampusLocation>> stops,
+			CompactGraph<CampusLocation> g, SearchSpace space) {
+		double[][] matrix = Dijkstra.getDistanceMatrix(stops, stops, g, space);
+		Node<CampusLocation>[] pair = (Node<CampusLocation>[]) new Node<?>[] { stops.get(0), stops.get(0) };
+		double longest = 0;
+		for (int i = 0; i < stops.size(); i++) {
+			for (int j = 0; j < stops.size(); j++) {
+				if (matrix[i][j] < Double.POSITIVE_INFINITY && matrix[i][j] > longest) {
+					longest = matrix[i][j];
+					pair[0] = stops.get(i);
+					pair[1] = stops.get(j);
+				}
+			}
+		}
+		return pair;
+	}
+
+	//Returns the number of edges of a path, 0 if there is no path
+	private static long size(List<Edge<Double>> path) {
+		return path == null ? 0 : path.size();
+	}
+
+	//Returns the number of locations of a path, 0 if there is no path
+	private static long size(CampusPath path) {
+		return path == null ? 0 : path.getPathLocations().size();
+	}
+
+	//An operation that asks a model for the route between the next pair of
+	//buildings each time it runs, cycling through every ordered pair, with
+	//the route cache cleared so that every route is searched for
+	private static class ModelCycle implements Microbenchmark.Operation {
+		private final CampusModel model;
+		private final List<CampusBuilding> buildings;
+		private int next;
+
+		ModelCycle(CampusModel model, List<CampusBuilding> buildings) {
+			this.model = model;
+			this.buildings = buildings;
+		}
+
+		public long run() {
+			CampusBuilding a = buildings.get(next / buildings.size());
+			CampusBuilding b = buildings.get(next % buildings.size());
+			next = (next + 1) % (buildings.size() * buildings.size());
+			model.getRouteCache().clear();
+			return size(model.getPath(a, b));
+		}
+	}
+
+	//An operation that routes between the next pair of stops each time it
+	//runs, cycling through every ordered pair
+	private abstract static class PairCycle implements Microbenchmark.Operation {
+		private final List<Node<CampusLocation>> stops;
+		private int next;
+
+		PairCycle(List<Node<CampusLocation>> stops) {
+			this.stops = stops;
+		}
+
+		public long run() {
+			Node<CampusLocation> a = stops.get(next / stops.size());
+			Node<CampusLocation> b = stops.get(next % stops.size());
+			next = (next + 1) % (stops.size() * stops.size());
+			return route(a, b);
+		}
+
+		//Routes from a to b and returns a value computed from the result
+		abstract long route(Node<CampusLocation> a, Node<CampusLocation> b);
+	}
+
+	//An operation that changes the weight of a random edge each time it
+	//runs, cycling through raising it, removing it, lowering it and
+	//restoring it, then repairs or recomputes every tree of paths
+	private static class WeightChanges implements Microbenchmark.Operation {
+		private final CompactGraph<CampusLocation> g;
+		private final DynamicShortestPaths<CampusLocation> trees;
+		private final boolean recompute;
+		private final Random random = new Random(20);
+		private int next;
+
+		WeightChanges(CompactGraph<CampusLocation> g, DynamicShortestPaths<CampusLocation> trees,
+				boolean recompute) {
+			this.g = g;
+			this.trees = trees;
+			this.recompute = recompute;
+		}
+
+		public long run() {
+			int u = random.nextInt(g.nodeCount());
+			while (g.firstEdge(u) == g.endEdge(u)) {
+				u = random.nextInt(g.nodeCount());
+			}
+			int e = g.firstEdge(u) + random.nextInt(g.endEdge(u) - g.firstEdge(u));
+			double weight;
+			switch (next++ % 4) {
+			case 0:
+				weight = g.weight(e) * (2 + random.nextDouble() * 3);
+				break;
+			case 1:
+				weight = Double.POSITIVE_INFINITY;
+				break;
+			case 2:
+				weight = g.weight(e) * random.nextDouble();
+				break;
+			default:
+				weight = g.weight(e);
+			}
+			trees.setWeight(g.getNode(u), g.getNode(g.target(e)), weight);
+			if (recompute) {
+				trees.recompute();
+			}
+			return trees.getLastRepairSize();
+		}
+	}
+}
@@ -5,13 +5,14 @@ import java.awt.*;
 
 /**
  * CampusMapView is a JPanel that displays a region map image
- * with a given path drawn on it.
+ * with a given path or area drawn on it.
  *
  */
 public class CampusMapView extends JPanel {
 
 	private Image i;
 	private CampusPath path;
+	private CampusArea area;
 
 	/**
 	 * 
@@ -19,15 +20,17 @@ public class CampusMapView extends JPanel {
 	 */
 	public CampusMapView(Image i) {
 		path = null;
+		area = null;
 		this.i = i;
 		setPreferredSize(new Dimension(1024, 728));
 	}
 
 	/**
-	 * Clears the path and resets the view
+	 * Clears the path and area and resets the view
 	 */
 	public void reset() {
 		path = null;
+		area = null;
 		repaint();
 	}
 
@@ -37,13 +40,24 @@ public class CampusMapView extends JPanel {
 	 */
 	public void setPath(CampusPath p) {
 		path = p;
+		area = null;
+		repaint();
+	}
+
+	/**
+	 * Clears the path and draws an area over the whole map
+	 * @param a new area to be drawn
+	 */
+	public void setArea(CampusArea a) {
+		path = null;
+		area = a;
 		repaint();
 	}
 
 	/**
 	 * Most of the work done here. Draws the map image and the path on top of it.
 	 * If the path is currently set, only the region around the path will be drawn.
-	 * If no path is set, the whole map will be drawn.
+	 * If no path is set, the whole map will be drawn with the area on it, if set.
 	 */
 	public void paintComponent(Graphics g) {
 		super.paintComponent(g);
@@ -117,6 +131,25 @@ public class CampusMapView extends JPanel {
 			
 		} else {
 			g2.drawImage(i, 0, 0, currentWidth, currentHeight, 0, 0, 4330, (int) (4330 / currentAsp), null);
+			if (area != null) {
+				double scale = 4330.0 / currentWidth;
+				// Shade Area
+				Polygon outline = new Polygon();
+				for (CampusLocation l : area.getOutline()) {
+					outline.addPoint((int) (l.getX() / scale), (int) (l.getY() / scale));
+				}
+				g2.setColor(new Color(255, 0, 0, 64));
+				g2.fillPolygon(outline);
+				g2.setColor(Color.RED);
+				g2.setStroke(new BasicStroke(2));
+				g2.drawPolygon(outline);
+
+				// Mark Buildings
+				for (CampusBuilding b : area.getBuildings()) {
+					g2.fillOval((int) (b.getLocation().getX() / scale) - 3,
+							(int) (b.getLocation().getY() / scale) - 3, 6, 6);
+				}
+			}
 		}
 	}
 }
@@ -1,9 +1,15 @@
 package sample;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * CampusPaths loads campus building data and path data from files and 
@@ -20,14 +26,74 @@ import java.util.TreeMap;
  */
 
 public class CampusModel {
+	/** The number of routes getPath keeps cached */
+	public static final int DEFAULT_CACHE_SIZE = 1024;
+	
+	// The number of pairs getPaths hands to a thread at a time
+	private static final int BATCH_CHUNK = 32;
+	
+	// The number of idle search scratch states kept for reuse: two per
+	// query, for the searches that go both ways, on every processor
+	private static final int IDLE_SPACES = 2 * Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * The search algorithms that getPath can answer queries with.
+	 * Every engine returns a least cost path.
+	 */
+	public enum Engine {
+		/** Dijkstra's algorithm from the start building */
+		DIJKSTRA,
+		/** A* search guided by the straight line distance to the destination */
+		ASTAR,
+		/** Dijkstra's algorithm from both buildings until the searches meet */
+		BIDIRECTIONAL,
+		/**
+		 * Upward searches in a contraction hierarchy, which is built
+		 * the first time this engine is selected
+		 */
+		CONTRACTION_HIERARCHY,
+		/**
+		 * A* search guided by distances to and from landmark nodes, which
+		 * are computed in parallel the first time this engine is selected
+		 * unless they were read by loadLandmarks
+		 */
+		LANDMARKS,
+		/**
+		 * Lookup in a table of least cost paths from every building, which
+		 * is built in parallel the first time this engine is selected
+		 */
+		BUILDING_TABLE
+	}
+	
 	private Graph<CampusLocation, Double> paths;
+	private volatile State state;
+	private RouteCache cache;
 	private SortedMap<String, CampusBuilding> buildings;
+	private SearchSpacePool spaces;
+	private ThreadLocal<KShortestPaths<CampusLocation>> alternatives;
+	private ThreadLocal<Isochrone> isochrones;
+	private RoutingStats stats;
+	private volatile boolean instrumented;
 	//Abstraction function: All buildings in campus_buildings.dat and 
 	//all path data from campus_paths.dat are loaded into buildings and
 	//paths. buildings provides a mapping from a buildings short name to
-	// a CampusBuilding object. 
+	// a CampusBuilding object. state holds a compact copy of one version of
+	// paths, the structures computed from it and the engine that routing
+	// queries are answered with; it is replaced, never changed, so a query
+	// that reads it once sees one consistent version. cache holds recent
+	// answers.
+	// spaces lends search scratch state to one query at a time, whatever
+	// thread it runs on. alternatives holds the scratch state of each
+	// thread that has called getAlternativePaths and isochrones that of
+	// each thread that has called getArea. stats accumulates the cost of the
+	// getPath calls made while instrumented is true, which also emit a
+	// RouteQueryEvent each.
 	
 	//Representation Invariant: paths != null, buildings != null,
+	// state != null, cache != null, stats != null.
+	// If paths.getVersion() == state.version then state.snapshot holds the
+	// same nodes and edges as paths.
+	// state is only replaced while holding the lock on this.
 	// Every CampusBuilding.getLocation() in buildings.values() corresponds to a 
 	// CampusLocation in paths.
 	
@@ -39,14 +105,22 @@ public class CampusModel {
 	 * path data loaded in from buildingFile and pathsFile.
 	 */
 	public CampusModel(String buildingFile, String pathsFile){
-		paths = new Graph<CampusLocation, Double>();
+		GraphBuilder<CampusLocation, Double> builder = new GraphBuilder<CampusLocation, Double>();
 		buildings = new TreeMap<String, CampusBuilding>();
 		try {
 			CampusParser.parseBuildingsList(buildingFile, buildings);
-			CampusParser.parsePaths(pathsFile, paths);
+			CampusParser.parsePathsMapped(pathsFile, builder);
 		} catch (Exception e){
 			e.printStackTrace();
 		}
+		paths = builder.build();
+		cache = new RouteCache(DEFAULT_CACHE_SIZE);
+		rebuild();
+		spaces = new SearchSpacePool(IDLE_SPACES);
+		alternatives = new ThreadLocal<KShortestPaths<CampusLocation>>();
+		isochrones = new ThreadLocal<Isochrone>();
+		stats = new RoutingStats();
+		instrumented = Boolean.getBoolean("sample.instrument");
 	}
 	
 	/**
@@ -68,6 +142,13 @@ public class CampusModel {
 	}
 	
 	/**
+	 * A pair of buildings with no path between them is answered without a
+	 * search as long as the path graph has at most
+	 * Components.MAX_CLOSURE_COMPONENTS strongly connected components.
+	 * Beyond that only pairs in different weakly connected components, or
+	 * whose strong components are in the wrong topological order, are, and
+	 * other unreachable pairs cost a full failed search.
+	 * 
 	 * @requires this.containsBuilding(start) && this.containsBuilding(dest)
 	 * @param start the CampusBuilding to start the path from
 	 * @param dest the CampusBuidling to connect the path to.
@@ -75,16 +156,498 @@ public class CampusModel {
 	 * returns null if no path found.
 	 */
 	public CampusPath getPath(CampusBuilding start, CampusBuilding dest){
+		return query(start, dest, true);
+	}
+	
+	//Answers getPath, looking the route up in and adding it to cache iff
+	//cacheable is true, and records the query if instrumented
+	private CampusPath query(CampusBuilding start, CampusBuilding dest, boolean cacheable){
+		State s = current();
+		if (!instrumented){
+			return findPath(start, dest, s, cacheable, null);
+		}
+		RouteQueryEvent event = new RouteQueryEvent();
+		event.begin();
+		long begin = System.nanoTime();
+		CampusPath result = findPath(start, dest, s, cacheable, event);
+		long nanos = System.nanoTime() - begin;
+		stats.record(s.engine, event.cacheHit, event.settled, event.relaxed, event.pushed, nanos);
+		if (event.shouldCommit()){
+			event.start = start.getShortName();
+			event.destination = dest.getShortName();
+			event.engine = s.engine.name();
+			event.found = result != null;
+			event.commit();
+		}
+		return result;
+	}
+	
+	//Answers getPath from state s, using cache iff cacheable is true. If
+	//event is not null, records in it whether the route was cached and the
+	//search work done.
+	private CampusPath findPath(CampusBuilding start, CampusBuilding dest, State s,
+			boolean cacheable, RouteQueryEvent event){
+		int version = s.version;
+		BuildingPair pair = new BuildingPair(start, dest);
+		CampusPath cached = cacheable ? cache.get(pair, version) : null;
+		if (cached != null){
+			if (event != null){
+				event.cacheHit = true;
+			}
+			return cached;
+		}
 		Node<CampusLocation> startLoc = new Node<CampusLocation>(start.getLocation());
 		Node<CampusLocation> destLoc = new Node<CampusLocation>(dest.getLocation());
-		List<Edge<Double>> path = Dijkstra.getPath(startLoc,destLoc, paths);
+		if (cannotReach(s, startLoc, destLoc)){
+			return null;
+		}
+		SearchSpace forward = spaces.borrow(s.snapshot.nodeCount());
+		SearchSpace backward = usesBackward(s.engine) ? spaces.borrow(s.snapshot.nodeCount()) : null;
+		List<Edge<Double>> path;
+		try {
+			path = route(s, startLoc, destLoc, forward, backward);
+			if (event != null){
+				countWork(forward, event);
+				if (backward != null){
+					countWork(backward, event);
+				}
+			}
+		} finally {
+			spaces.release(forward);
+			spaces.release(backward);
+		}
 		if (path != null){
-			return new CampusPath(path,start,dest);		
+			CampusPath result = new CampusPath(path,start,dest);
+			if (cacheable){
+				cache.put(pair, result, version);
+			}
+			return result;
 		} else {
 			return null;
 		}
 	}
 	
+	/**
+	 * Finds alternative walking routes between two buildings: the least
+	 * cost path and the next cheapest paths that visit no location twice.
+	 * 
+	 * @requires this.containsBuilding(start) && this.containsBuilding(dest)
+	 * @param start the CampusBuilding to start the paths from
+	 * @param dest the CampusBuilding to connect the paths to
+	 * @param k the largest number of paths to return, k >= 0
+	 * @return a List of at most k distinct CampusPaths between start and
+	 * dest in increasing order of total distance. The list is empty if no
+	 * path is found.
+	 */
+	public List<CampusPath> getAlternativePaths(CampusBuilding start, CampusBuilding dest, int k){
+		State s = current();
+		List<CampusPath> result = new ArrayList<CampusPath>();
+		Node<CampusLocation> startLoc = new Node<CampusLocation>(start.getLocation());
+		Node<CampusLocation> destLoc = new Node<CampusLocation>(dest.getLocation());
+		if (cannotReach(s, startLoc, destLoc)){
+			return result;
+		}
+		KShortestPaths<CampusLocation> yen = alternatives.get();
+		if (yen == null || yen.getGraph() != s.snapshot){
+			yen = new KShortestPaths<CampusLocation>(s.snapshot);
+			alternatives.set(yen);
+		}
+		for (List<Edge<Double>> path : yen.getPaths(startLoc, destLoc, k)){
+			result.add(new CampusPath(path, start, dest));
+		}
+		return result;
+	}
+	
+	/**
+	 * Finds the part of campus within a walking distance of a building.
+	 * Repeated calls on one thread reuse the same search buffers.
+	 * 
+	 * @requires this.containsBuilding(origin), radius >= 0
+	 * @param origin the CampusBuilding to measure walking distances from
+	 * @param radius the largest walking distance, in feet, to include
+	 * @return a CampusArea holding every building that can be reached from
+	 * origin by walking at most radius feet, nearest first, and the outline
+	 * of the path locations that can be reached
+	 */
+	public CampusArea getArea(CampusBuilding origin, double radius){
+		State s = current();
+		Isochrone iso = isochrones.get();
+		if (iso == null || iso.getGraph() != s.snapshot){
+			iso = new Isochrone(s.snapshot);
+			isochrones.set(iso);
+		}
+		iso.search(new Node<CampusLocation>(origin.getLocation()), radius);
+		List<CampusBuilding> inside = new ArrayList<CampusBuilding>();
+		List<Double> distances = new ArrayList<Double>();
+		for (CampusBuilding b : buildings.values()){
+			int id = s.snapshot.indexOf(new Node<CampusLocation>(b.getLocation()));
+			double d = id < 0 ? Double.POSITIVE_INFINITY : iso.getDistance(id);
+			if (d <= radius){
+				int i = distances.size();
+				while (i > 0 && distances.get(i - 1) > d){
+					i--;
+				}
+				inside.add(i, b);
+				distances.add(i, d);
+			}
+		}
+		return new CampusArea(origin, radius, inside, distances, iso.getHull());
+	}
+	
+	/**
+	 * Finds the path between the path locations nearest to two arbitrary
+	 * points, such as clicks on the map.
+	 * 
+	 * @param start the point to start the path from
+	 * @param dest the point to connect the path to
+	 * @requires start != null, dest != null, the graph has at least one node
+	 * @return A CampusPath between the nearest path locations to start and
+	 * dest, whose start and destination buildings are unnamed buildings at
+	 * those locations. Returns null if no path found. The path is not
+	 * cached.
+	 */
+	public CampusPath getPath(CampusLocation start, CampusLocation dest){
+		// the unnamed buildings are named by rounded coordinates and compare
+		// equal by name, so distinct locations could share a cache key
+		return query(unnamedBuilding(getNearestLocation(start)),
+				unnamedBuilding(getNearestLocation(dest)), false);
+	}
+	
+	/**
+	 * @param point any point on the map
+	 * @requires point != null, the graph has at least one node
+	 * @return the location on a path with the least straight line distance
+	 * to point
+	 */
+	public CampusLocation getNearestLocation(CampusLocation point){
+		State s = current();
+		return s.snapshot.getNode(s.index.nearest(point.getX(), point.getY())).getData();
+	}
+	
+	//Returns a building with no name standing at a location, shown by its
+	//coordinates
+	private static CampusBuilding unnamedBuilding(CampusLocation location){
+		return new CampusBuilding(location.toString(), location.toString(), location);
+	}
+	
+	/**
+	 * Finds the paths between many pairs of buildings on the common fork
+	 * join pool.
+	 * 
+	 * @requires this.containsBuilding(b) for the start and destination b of
+	 * every pair, the graph is not changed until getPaths returns
+	 * @param pairs the start and destination buildings of each path
+	 * @return a List whose i-th element is the CampusPath between the
+	 * buildings of pairs.get(i), or null if no path is found
+	 */
+	public List<CampusPath> getPaths(List<BuildingPair> pairs){
+		return getPaths(pairs, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Finds the paths between many pairs of buildings concurrently. The
+	 * pairs are split into chunks that run as separate tasks on executor.
+	 * Every query borrows search scratch state from a pool shared with
+	 * getPath, so executors that start a new thread per task, such as
+	 * virtual threads, reuse it as well as a fixed pool does.
+	 * 
+	 * @requires this.containsBuilding(b) for the start and destination b of
+	 * every pair, the graph is not changed until getPaths returns
+	 * @param pairs the start and destination buildings of each path
+	 * @param executor runs the queries
+	 * @throws RuntimeException any exception thrown by a query
+	 * @return a List whose i-th element is the CampusPath between the
+	 * buildings of pairs.get(i), or null if no path is found
+	 */
+	public List<CampusPath> getPaths(List<BuildingPair> pairs, Executor executor){
+		current();
+		final BuildingPair[] input = pairs.toArray(new BuildingPair[pairs.size()]);
+		final CampusPath[] results = new CampusPath[input.length];
+		List<CompletableFuture<Void>> tasks = new ArrayList<CompletableFuture<Void>>();
+		for (int from = 0; from < input.length; from += BATCH_CHUNK){
+			final int start = from;
+			final int end = Math.min(from + BATCH_CHUNK, input.length);
+			tasks.add(CompletableFuture.runAsync(() -> {
+				for (int i = start; i < end; i++){
+					results[i] = getPath(input[i].getStart(), input[i].getDestination());
+				}
+			}, executor));
+		}
+		try {
+			CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[tasks.size()])).join();
+		} catch (CompletionException e){
+			if (e.getCause() instanceof RuntimeException){
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+		List<CampusPath> result = new ArrayList<CampusPath>(results.length);
+		for (CampusPath p : results){
+			result.add(p);
+		}
+		return result;
+	}
+	
+	/**
+	 * Finds the walking distance from one building to each of several
+	 * buildings with a single search that stops once every destination is
+	 * reached.
+	 * 
+	 * @requires this.containsBuilding(b) for start and every b in dests
+	 * @param start the CampusBuilding the paths start from
+	 * @param dests the CampusBuildings the paths lead to
+	 * @return an array whose i-th entry is the length of the shortest path
+	 * from start to dests.get(i), infinity if there is no path
+	 */
+	public double[] getDistances(CampusBuilding start, List<CampusBuilding> dests){
+		State s = current();
+		SearchSpace space = spaces.borrow(s.snapshot.nodeCount());
+		try {
+			return Dijkstra.getDistances(new Node<CampusLocation>(start.getLocation()),
+					nodes(dests), s.snapshot, space);
+		} finally {
+			spaces.release(space);
+		}
+	}
+	
+	/**
+	 * Finds the walking distance from each of several buildings to each of
+	 * several buildings, with one search per starting building.
+	 * 
+	 * @requires this.containsBuilding(b) for every b in starts and dests
+	 * @param starts the CampusBuildings the paths start from
+	 * @param dests the CampusBuildings the paths lead to
+	 * @return a matrix whose entry [i][j] is the length of the shortest path
+	 * from starts.get(i) to dests.get(j), infinity if there is no path
+	 */
+	public double[][] getDistanceMatrix(List<CampusBuilding> starts, List<CampusBuilding> dests){
+		State s = current();
+		SearchSpace space = spaces.borrow(s.snapshot.nodeCount());
+		try {
+			return Dijkstra.getDistanceMatrix(nodes(starts), nodes(dests), s.snapshot, space);
+		} finally {
+			spaces.release(space);
+		}
+	}
+	
+	//Returns the path graph nodes at the locations of buildings
+	private static List<Node<CampusLocation>> nodes(List<CampusBuilding> buildings){
+		List<Node<CampusLocation>> result = new ArrayList<Node<CampusLocation>>(buildings.size());
+		for (CampusBuilding b : buildings){
+			result.add(new Node<CampusLocation>(b.getLocation()));
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the graph of paths between CampusLocations. Changes made to
+	 * the returned graph are seen by later calls to getPath, which throw
+	 * away cached routes and preprocessing once the graph changes.
+	 * 
+	 * @requires the graph is not changed while another thread is in getPath
+	 * @return the graph that routes are computed on
+	 */
+	public Graph<CampusLocation, Double> getGraph(){
+		return paths;
+	}
+	
+	/**
+	 * 
+	 * @return the cache of routes returned by getPath, which counts its
+	 * hits, misses and evictions
+	 */
+	public RouteCache getRouteCache(){
+		return cache;
+	}
+	
+	/**
+	 * 
+	 * @return the cumulative counters and latency histograms of the
+	 * getPath calls made while this is instrumented
+	 */
+	public RoutingStats getRoutingStats(){
+		return stats;
+	}
+	
+	/**
+	 * 
+	 * @return true iff getPath records every call in getRoutingStats() and
+	 * as a RouteQueryEvent. Initially true iff the system property
+	 * sample.instrument is "true".
+	 */
+	public boolean isInstrumented(){
+		return instrumented;
+	}
+	
+	/**
+	 * @param instrumented whether getPath should record its calls
+	 * @modifies this
+	 * @effects later calls to getPath are recorded in getRoutingStats()
+	 * and as RouteQueryEvents iff instrumented is true. When it is false
+	 * getPath does no extra work beyond reading the flag.
+	 */
+	public void setInstrumented(boolean instrumented){
+		this.instrumented = instrumented;
+	}
+	
+	//Finds the least cost path between two nodes of the snapshot of s
+	//with the engine of s, searching in forward and, if the engine searches
+	//both ways, backward. Returns null if there is no path.
+	private static List<Edge<Double>> route(State s, Node<CampusLocation> startLoc,
+			Node<CampusLocation> destLoc, SearchSpace forward, SearchSpace backward){
+		switch (s.engine){
+		case DIJKSTRA:
+			return Dijkstra.getPath(startLoc, destLoc, s.snapshot, forward);
+		case BIDIRECTIONAL:
+			return Dijkstra.getPath(startLoc, destLoc, s.snapshot, forward, backward);
+		case CONTRACTION_HIERARCHY:
+			return s.hierarchy.getPath(startLoc, destLoc, forward, backward);
+		case LANDMARKS:
+			return Dijkstra.getPath(startLoc, destLoc, s.snapshot, s.landmarks, forward);
+		case BUILDING_TABLE:
+			if (s.table.containsSource(startLoc)){
+				return s.table.getPath(startLoc, destLoc);
+			}
+			return Dijkstra.getPath(startLoc, destLoc, s.snapshot, s.heuristic, forward);
+		default:
+			return Dijkstra.getPath(startLoc, destLoc, s.snapshot, s.heuristic, forward);
+		}
+	}
+	
+	/**
+	 * 
+	 * @return the engine getPath answers queries with
+	 */
+	public Engine getEngine(){
+		return state.engine;
+	}
+	
+	/**
+	 * @param engine the engine for getPath to answer queries with
+	 * @requires engine != null
+	 * @modifies this
+	 * @effects later calls to getPath use engine. Runs the preprocessing
+	 * engine needs if it has not been run yet.
+	 */
+	public synchronized void setEngine(Engine engine){
+		State s = current();
+		state = prepare(s, engine, s.landmarks);
+	}
+	
+	/**
+	 * Reads landmark tables written by saveLandmarks for the LANDMARKS
+	 * engine to use, so that selecting it does not compute them again.
+	 * 
+	 * @param filename the file to read
+	 * @modifies this
+	 * @throws IOException if the file cannot be read, is malformed or holds
+	 * the tables of a different graph than the current one, in which case
+	 * this is unchanged
+	 * @effects the LANDMARKS engine uses the tables in filename until the
+	 * graph changes
+	 */
+	public synchronized void loadLandmarks(String filename) throws IOException{
+		State s = current();
+		state = prepare(s, s.engine, LandmarkHeuristic.load(filename, s.snapshot));
+	}
+	
+	/**
+	 * Writes the landmark tables of the current graph to a file for
+	 * loadLandmarks to read, computing them first if the LANDMARKS engine
+	 * has not been selected since the graph last changed. Nothing is
+	 * written unless this is called.
+	 * 
+	 * @param filename the file to write
+	 * @modifies this
+	 * @throws IOException if the file cannot be written
+	 */
+	public synchronized void saveLandmarks(String filename) throws IOException{
+		State s = current();
+		if (s.landmarks == null){
+			s = prepare(s, s.engine, new LandmarkHeuristic(s.snapshot));
+			state = s;
+		}
+		s.landmarks.save(filename);
+	}
+	
+	//Returns the current state, first rebuilding it if paths has changed
+	//since it was frozen
+	private State current(){
+		State s = state;
+		if (s == null || paths.getVersion() != s.version){
+			s = rebuild();
+		}
+		return s;
+	}
+	
+	//Freezes a new snapshot of paths if it has changed since the last one
+	//and publishes a state computed from it alone, with the preprocessing
+	//the selected engine needs. Returns the current state.
+	private synchronized State rebuild(){
+		State old = state;
+		int version = paths.getVersion();
+		if (old != null && version == old.version){
+			return old;
+		}
+		CompactGraph<CampusLocation> snapshot = CompactGraph.freeze(paths);
+		State fresh = new State(version, snapshot, new EuclideanHeuristic(snapshot),
+				new SpatialIndex(snapshot), new Components(snapshot), Engine.ASTAR, null, null, null);
+		state = prepare(fresh, old == null ? Engine.ASTAR : old.engine, null);
+		return state;
+	}
+	
+	//Returns a copy of s that answers queries with engine and uses
+	//landmarks, running the preprocessing engine needs that s does not hold
+	private State prepare(State s, Engine engine, LandmarkHeuristic landmarks){
+		ContractionHierarchy<CampusLocation> hierarchy = s.hierarchy;
+		if (engine == Engine.CONTRACTION_HIERARCHY && hierarchy == null){
+			hierarchy = new ContractionHierarchy<CampusLocation>(s.snapshot);
+		}
+		if (engine == Engine.LANDMARKS && landmarks == null){
+			landmarks = new LandmarkHeuristic(s.snapshot);
+		}
+		RouteTable<CampusLocation> table = s.table;
+		if (engine == Engine.BUILDING_TABLE && table == null){
+			table = buildTable(s.snapshot);
+		}
+		return new State(s.version, s.snapshot, s.heuristic, s.index, s.components, engine,
+				hierarchy, landmarks, table);
+	}
+	
+	//Returns true if used searches backward from the destination as well
+	private static boolean usesBackward(Engine used){
+		return used == Engine.BIDIRECTIONAL || used == Engine.CONTRACTION_HIERARCHY;
+	}
+	
+	//Adds the work done by the last search in space to event
+	private static void countWork(SearchSpace space, RouteQueryEvent event){
+		event.settled += space.settledCount();
+		event.relaxed += space.relaxedCount();
+		event.pushed += space.pushedCount();
+	}
+	
+	//Returns true if the components of the snapshot of s prove there is no
+	//path from startLoc to destLoc, without searching
+	private static boolean cannotReach(State s, Node<CampusLocation> startLoc,
+			Node<CampusLocation> destLoc){
+		int u = s.snapshot.indexOf(startLoc);
+		int v = s.snapshot.indexOf(destLoc);
+		return u >= 0 && v >= 0 && s.components.cannotReach(u, v);
+	}
+	
+	//Runs one search per building on the common fork join pool and
+	//returns the table of their results
+	private RouteTable<CampusLocation> buildTable(CompactGraph<CampusLocation> snapshot){
+		List<Node<CampusLocation>> sources = new ArrayList<Node<CampusLocation>>();
+		for (CampusBuilding b : buildings.values()){
+			Node<CampusLocation> n = new Node<CampusLocation>(b.getLocation());
+			if (snapshot.indexOf(n) >= 0){
+				sources.add(n);
+			}
+		}
+		return new RouteTable<CampusLocation>(snapshot, sources, ForkJoinPool.commonPool());
+	}
+	
 	/**
 	 * 
 	 * @param shortName the short name of the building to return
@@ -104,4 +667,62 @@ public class CampusModel {
 	public boolean containsBuilding(String shortName){
 		return buildings.containsKey(shortName);
 	}
+	
+	//An immutable view of one version of the path graph: its snapshot, the
+	//structures computed from it and the engine that answers queries on it.
+	//CampusModel publishes a new State instead of changing one, so a thread
+	//that reads the state field once sees an engine together with the
+	//preprocessing it needs.
+	private static final class State {
+		final int version;
+		final CompactGraph<CampusLocation> snapshot;
+		final Heuristic heuristic;
+		final SpatialIndex index;
+		final Components components;
+		final Engine engine;
+		final ContractionHierarchy<CampusLocation> hierarchy;
+		final LandmarkHeuristic landmarks;
+		final RouteTable<CampusLocation> table;
+		//Abstraction function: snapshot is a compact copy of version of the
+		//path graph that queries are answered from by engine. heuristic
+		//guides A*, index finds the nodes nearest to a point and components
+		//labels the connected components of snapshot, computed eagerly with
+		//it, to rule out unreachable pairs without a search. hierarchy,
+		//landmarks and table are the contraction hierarchy, landmark tables
+		//and building route table over snapshot, or null if they have not
+		//been computed.
+		//
+		//Rep inv: snapshot, heuristic, index, components, engine != null;
+		//hierarchy != null if engine is CONTRACTION_HIERARCHY, landmarks if
+		//engine is LANDMARKS and table if engine is BUILDING_TABLE.
+		
+		State(int version, CompactGraph<CampusLocation> snapshot, Heuristic heuristic,
+				SpatialIndex index, Components components, Engine engine,
+				ContractionHierarchy<CampusLocation> hierarchy, LandmarkHeuristic landmarks,
+				RouteTable<CampusLocation> table){
+			this.version = version;
+			this.snapshot = snapshot;
+			this.heuristic = heuristic;
+			this.index = index;
+			this.components = components;
+			this.engine = engine;
+			this.hierarchy = hierarchy;
+			this.landmarks = landmarks;
+			this.table = table;
+			checkRep();
+		}
+		
+		/** Checks that the representation invariant holds */
+		private void checkRep() throws RuntimeException {
+			if (snapshot == null || heuristic == null || index == null || components == null
+					|| engine == null){
+				throw new RuntimeException("Every state needs a snapshot and an engine");
+			}
+			if ((engine == Engine.CONTRACTION_HIERARCHY && hierarchy == null)
+					|| (engine == Engine.LANDMARKS && landmarks == null)
+					|| (engine == Engine.BUILDING_TABLE && table == null)){
+				throw new RuntimeException("Engine " + engine + " needs its preprocessing");
+			}
+		}
+	}
 }
@@ -3,6 +3,11 @@ package sample;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.SortedMap;
 /**
  * Loads data from files to allow CampusPaths to initialize its data structures
@@ -50,20 +55,42 @@ public class CampusParser {
 	    }
 	}
 	
-	/** Loads path data from a file into a Graph
+	/** Loads path data from a file into a Graph. The file is parsed into
+	 * a GraphBuilder and merged into paths in one step, so the invariant of
+	 * paths is checked once; callers building a new Graph should parse into
+	 * a GraphBuilder themselves to avoid the copy.
 	 * 
 	 * @param filename file to load path data from
 	 * @param paths Graph to populate with path data
+	 * @modifies paths
 	 * @throws Exception if file not found or if the file
 	 * is malformed in any way.
 	 */
 	public static void parsePaths(String filename, 
 			Graph<CampusLocation, Double> paths) throws Exception{
+		GraphBuilder<CampusLocation, Double> builder = new GraphBuilder<CampusLocation, Double>();
+		parsePaths(filename, builder);
+		paths.addAll(builder.build());
+	}
+	
+	/** Loads path data from a file into a GraphBuilder, so that the
+	 * Graph can be built in one step once the whole file is read. Every
+	 * location is stored in one Node shared by all the edges that use it.
+	 * 
+	 * @param filename file to load path data from
+	 * @param paths GraphBuilder to add the path data to
+	 * @modifies paths
+	 * @throws Exception if file not found or if the file
+	 * is malformed in any way.
+	 */
+	public static void parsePaths(String filename, 
+			GraphBuilder<CampusLocation, Double> paths) throws Exception{
 		
 		BufferedReader reader = null;
 	    try {
 	    	reader = new BufferedReader(new FileReader(filename));
 	    	String inputLine;
+	    	LocationInterner locations = new LocationInterner();
 	    	Node<CampusLocation> currentPar = new Node<CampusLocation>(new CampusLocation(0,0));
 	    	while ((inputLine = reader.readLine()) != null) {
 	    		String[] tokens = inputLine.split("\t");
@@ -71,7 +98,7 @@ public class CampusParser {
 	    			String parentPos = tokens[0];
 	    			String[] coords = parentPos.split(",");
 	    			if (coords.length == 2){
-	    				currentPar = new Node<CampusLocation>(new CampusLocation(new Double(coords[0]), new Double(coords[1])));
+	    				currentPar = locations.intern(Double.parseDouble(coords[0]), Double.parseDouble(coords[1]));
 	    			} else {
 	    				throw new Exception("Line should have an x and y position " + inputLine);
 	    			}
@@ -80,10 +107,9 @@ public class CampusParser {
 	    			String childDat = tokens[1];
 	    			String[] childTok = childDat.split(": ");
 	    			if (childTok.length == 2){
-	    				double distance = new Double(childTok[1]);
+	    				double distance = Double.parseDouble(childTok[1]);
 	    				String[] childPos = (childTok[0].split(","));
-	    				CampusLocation childLoc = new CampusLocation(new Double(childPos[0]), new Double(childPos[1]));
-	    				Node<CampusLocation> child = new Node<CampusLocation>(childLoc);
+	    				Node<CampusLocation> child = locations.intern(Double.parseDouble(childPos[0]), Double.parseDouble(childPos[1]));
 	    				Edge<Double> connect = new Edge<Double>(currentPar, child, distance);
 	    				paths.addNode(child);
 	    				paths.addEdge(connect);
@@ -102,4 +128,175 @@ public class CampusParser {
 	    }
 	}
 
+	/** Loads path data from a file into a GraphBuilder without going through
+	 * Strings. The file is memory mapped and coordinates and distances are
+	 * parsed straight from its bytes, and every location is stored in one
+	 * Node shared by all the edges that use it. Numbers whose digits form an integer
+	 * of at most 2^53, which includes every number of up to 15 significant
+	 * digits, with at most 22 digits after the point and no exponent are
+	 * converted with one correctly rounded division. Other numbers go to
+	 * Double.parseDouble, so every value is the same double parsePaths
+	 * would produce.
+	 * 
+	 * @param filename file to load path data from, smaller than 2GB
+	 * @param paths GraphBuilder to add the path data to
+	 * @modifies paths
+	 * @throws Exception if file not found or if the file
+	 * is malformed in any way.
+	 */
+	public static void parsePathsMapped(String filename, 
+			GraphBuilder<CampusLocation, Double> paths) throws Exception{
+		FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+		ByteBuffer buffer;
+		try {
+			if (channel.size() > Integer.MAX_VALUE){
+				throw new Exception("File too large to map: " + filename);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			channel.close();
+		}
+		PathScanner in = new PathScanner(buffer);
+		LocationInterner locations = new LocationInterner();
+		Node<CampusLocation> currentPar = null;
+		while (in.hasMore()){
+			if (in.skipLineEnd()){
+				continue;
+			}
+			boolean child = in.skip('\t');
+			double x = in.number();
+			in.expect(',');
+			double y = in.number();
+			Node<CampusLocation> n = locations.intern(x, y);
+			if (child){
+				in.expect(':');
+				in.expect(' ');
+				double distance = in.number();
+				if (currentPar == null){
+					throw in.error("Path has no starting location");
+				}
+				paths.addNode(n);
+				paths.addEdge(new Edge<Double>(currentPar, n, distance));
+			} else {
+				currentPar = n;
+				paths.addNode(n);
+			}
+			if (in.hasMore() && !in.skipLineEnd()){
+				throw in.error("Unexpected character");
+			}
+		}
+	}
+	
+	//Reads the numbers and separators of a paths file from a byte buffer
+	//and keeps track of the line being read for error messages
+	private static class PathScanner {
+		// POWERS[i] == 10^i, all exactly representable as doubles
+		private static final double[] POWERS = new double[23];
+		// The largest mantissa every smaller integer of which is a double
+		private static final long EXACT = 1L << 53;
+		static {
+			POWERS[0] = 1;
+			for (int i = 1; i < POWERS.length; i++){
+				POWERS[i] = POWERS[i - 1] * 10;
+			}
+		}
+		
+		private final ByteBuffer buffer;
+		private final int limit;
+		private int pos;
+		private int line = 1;
+		
+		PathScanner(ByteBuffer buffer){
+			this.buffer = buffer;
+			this.limit = buffer.limit();
+		}
+		
+		boolean hasMore(){
+			return pos < limit;
+		}
+		
+		//Skips c and returns true if it is the next byte
+		boolean skip(char c){
+			if (pos < limit && buffer.get(pos) == c){
+				pos++;
+				return true;
+			}
+			return false;
+		}
+		
+		//Skips a \n or \r\n line end and returns true if one is next
+		boolean skipLineEnd(){
+			skip('\r');
+			if (skip('\n')){
+				line++;
+				return true;
+			}
+			return false;
+		}
+		
+		//Skips c or throws if it is not the next byte
+		void expect(char c) throws Exception{
+			if (!skip(c)){
+				throw error("Expected '" + c + "'");
+			}
+		}
+		
+		//Parses a decimal number starting at the current position
+		double number() throws Exception{
+			int start = pos;
+			boolean negative = skip('-');
+			long mantissa = 0;
+			int significant = 0;
+			int scale = 0;
+			boolean dot = false;
+			boolean digits = false;
+			boolean exponent = false;
+			while (pos < limit){
+				byte b = buffer.get(pos);
+				if (b >= '0' && b <= '9'){
+					digits = true;
+					if (!exponent){
+						if (mantissa != 0 || b != '0'){
+							significant++;
+						}
+						if (significant <= 18){
+							mantissa = mantissa * 10 + (b - '0');
+							if (dot){
+								scale++;
+							}
+						}
+					}
+				} else if (b == '.' && !dot && !exponent){
+					dot = true;
+				} else if (b == 'e' || b == 'E' || b == '+' || (b == '-' && pos > start)){
+					exponent = true; // numbers with exponents take the slow path
+				} else {
+					break;
+				}
+				pos++;
+			}
+			if (!digits){
+				throw error("Expected a number");
+			}
+			if (!exponent && significant <= 18 && mantissa <= EXACT && scale < POWERS.length){
+				double value = mantissa / POWERS[scale];
+				return negative ? -value : value;
+			}
+			byte[] text = new byte[pos - start];
+			for (int i = 0; i < text.length; i++){
+				text[i] = buffer.get(start + i);
+			}
+			try {
+				return Double.parseDouble(new String(text, StandardCharsets.ISO_8859_1));
+			} catch (NumberFormatException e){
+				throw error("Malformed number");
+			}
+		}
+		
+		//Returns an exception describing a problem at the current line
+		Exception error(String message){
+			return new Exception(message + " on line " + line);
+		}
+	}
+
 }
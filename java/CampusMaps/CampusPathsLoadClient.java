@@ -0,0 +1,140 @@
+package sample;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * CampusPathsLoadClient sends path requests for random pairs of buildings to
+ * a CampusPathsServer from several threads and prints the throughput and
+ * the 50th and 99th percentile latency.
+ *
+ * Usage: CampusPathsLoadClient [threads requestsPerThread [url | buildingFile pathsFile]]
+ *
+ * Without a url the client starts a server for the campus data on a free
+ * local port and stops it when done, so no network is needed.
+ */
+public class CampusPathsLoadClient {
+	//Class does not represent an ADT
+
+	private static final Pattern SHORT_NAME = Pattern.compile("\"short\":\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+	/**
+	 * Runs the load test and prints the results to standard out.
+	 * @param args optionally the number of threads, the number of requests
+	 * per thread and either the base url of a running server or the
+	 * building file and the paths file to serve
+	 */
+	public static void main(String[] args) throws Exception {
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		final int requests = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		CampusPathsServer server = null;
+		String base;
+		if (args.length > 2 && args[2].startsWith("http")) {
+			base = args[2];
+		} else {
+			server = new CampusPathsServer(args.length > 3 ? new CampusModel(args[2], args[3])
+					: new CampusModel(), 0);
+			server.start();
+			base = "http://127.0.0.1:" + server.getPort();
+		}
+		try {
+			final List<String> names = new ArrayList<String>();
+			Matcher m = SHORT_NAME.matcher(get(base + "/buildings"));
+			while (m.find()) {
+				names.add(m.group(1).replace("\\\"", "\"").replace("\\\\", "\\"));
+			}
+			run(base, names, 1, Math.min(requests, 500)); // warm up
+			run(base, names, threads, requests);
+		} finally {
+			if (server != null) {
+				server.stop();
+			}
+		}
+	}
+
+	//Sends requests path requests from each of threads threads and prints
+	//the throughput and latency percentiles
+	private static void run(final String base, final List<String> names, int threads,
+			final int requests) throws Exception {
+		final long[] latencies = new long[threads * requests];
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		List<Thread> workers = new ArrayList<Thread>();
+		for (int t = 0; t < threads; t++) {
+			final int first = t * requests;
+			final Random r = new Random(t);
+			workers.add(new Thread(() -> {
+				try {
+					for (int i = 0; i < requests; i++) {
+						String url = base + "/path?from=" + encode(names.get(r.nextInt(names.size())))
+								+ "&to=" + encode(names.get(r.nextInt(names.size())));
+						long t0 = System.nanoTime();
+						get(url);
+						latencies[first + i] = System.nanoTime() - t0;
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			}));
+		}
+		long t0 = System.nanoTime();
+		for (Thread w : workers) {
+			w.start();
+		}
+		for (Thread w : workers) {
+			w.join();
+		}
+		long elapsed = System.nanoTime() - t0;
+		if (failure.get() != null) {
+			throw new RuntimeException(failure.get());
+		}
+		Arrays.sort(latencies);
+		System.out.printf("%d threads x %d requests: %.0f requests/s, p50 %.0f us, p99 %.0f us, max %.0f us%n",
+				threads, requests, latencies.length / (elapsed / 1e9),
+				percentile(latencies, 0.50) / 1000.0, percentile(latencies, 0.99) / 1000.0,
+				latencies[latencies.length - 1] / 1000.0);
+	}
+
+	//Returns the value below which fraction p of the sorted values fall
+	private static long percentile(long[] sorted, double p) {
+		return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+	}
+
+	//Returns the body of a GET request to url. Paths that do not exist are
+	//answered with 404, which is not an error here.
+	private static String get(String url) throws IOException {
+		HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+		int status = c.getResponseCode();
+		if (status != 200 && status != 404) {
+			throw new IOException("HTTP " + status + " for " + url);
+		}
+		InputStream in = status == 200 ? c.getInputStream() : c.getErrorStream();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		try {
+			byte[] buffer = new byte[8192];
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				body.write(buffer, 0, n);
+			}
+		} finally {
+			in.close();
+		}
+		return new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	//Returns s encoded for use in a query string
+	private static String encode(String s) throws IOException {
+		return URLEncoder.encode(s, "UTF-8");
+	}
+}
@@ -0,0 +1,282 @@
+package sample;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * CampusPathsServer serves the buildings and paths of a CampusModel over
+ * HTTP as JSON, using the HTTP server built into the JDK. The model is
+ * loaded once and shared by every request.
+ *
+ * GET /buildings returns an array of buildings:
+ * [{"short":"BAG","long":"Bagley Hall","x":1914.5,"y":1709.9},...]
+ *
+ * GET /path?from=BAG&to=BGR returns the shortest path between two buildings:
+ * {"from":"BAG","to":"BGR","total":520.4,"locations":[[x,y],...],
+ * "directions":["N",...],"distances":[12.5,...]}
+ * where the i-th direction and distance lead to the i-th location. Unknown
+ * buildings are answered with status 404, a missing parameter with 400 and a
+ * pair of buildings with no path between them with 404. HEAD is answered
+ * like GET without the body, any other method with 405, and a request that
+ * fails while it is being answered with 500.
+ *
+ * Requests are handled on virtual threads when the JVM has them and on a
+ * fixed pool of threads otherwise. CampusModel lends search scratch state
+ * from a pool, so starting a thread per request does not allocate it again.
+ *
+ * The JDK server writes the headers and body of a response separately, so
+ * without TCP_NODELAY each small response waits out the client's delayed
+ * ACK. The server cannot set this itself without changing it for every
+ * server in the JVM; launch with -Dsun.net.httpserver.nodelay=true instead.
+ */
+public class CampusPathsServer {
+	private CampusModel model;
+	private HttpServer server;
+	private ExecutorService executor;
+	private byte[] buildingsJson;
+	//Abstraction function:
+	//server answers requests about model on the threads of executor.
+	//buildingsJson is the response body of /buildings, which never changes.
+	//Rep inv:
+	//model, server, executor, buildingsJson != null
+
+	/**
+	 * @param model the model to answer queries from
+	 * @param port the port to listen on, or 0 for any free port
+	 * @requires model != null, model's graph is not changed while the
+	 * server runs
+	 * @throws IOException if the server cannot listen on port
+	 * @effects creates a new CampusPathsServer listening on port of the
+	 * loopback and other local addresses. The server does not answer
+	 * requests until start() is called.
+	 */
+	public CampusPathsServer(CampusModel model, int port) throws IOException {
+		this.model = model;
+		buildingsJson = buildingsJson(model.getBuildings()).getBytes(StandardCharsets.UTF_8);
+		server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.createContext("/buildings", guarded(this::handleBuildings));
+		server.createContext("/path", guarded(this::handlePath));
+		executor = newExecutor();
+		server.setExecutor(executor);
+	}
+
+	/**
+	 * Starts a server for the campus data and runs until the process is
+	 * killed.
+	 *
+	 * @param args optionally the port to listen on, default 8080, followed
+	 * by the building file and the paths file to load
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+		CampusModel model = args.length > 2 ? new CampusModel(args[1], args[2]) : new CampusModel();
+		CampusPathsServer server = new CampusPathsServer(model, port);
+		server.start();
+		System.out.println("Serving " + model.getBuildings().size() + " buildings on port "
+				+ server.getPort());
+	}
+
+	/**
+	 * @modifies this
+	 * @effects starts answering requests
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * @modifies this
+	 * @effects stops answering requests and releases the port and threads
+	 */
+	public void stop() {
+		server.stop(0);
+		executor.shutdown();
+	}
+
+	/**
+	 *
+	 * @return the port the server listens on
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	//Returns a handler that answers requests other than GET and HEAD with
+	//405 and otherwise runs handler, answering with 500 if it fails before
+	//responding. The exchange is always closed.
+	private static HttpHandler guarded(HttpHandler handler) {
+		return exchange -> {
+			try {
+				String method = exchange.getRequestMethod();
+				if (method.equals("GET") || method.equals("HEAD")) {
+					handler.handle(exchange);
+				} else {
+					exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+					send(exchange, 405, error("method not allowed"));
+				}
+			} catch (IOException | RuntimeException e) {
+				if (exchange.getResponseCode() == -1) {
+					System.err.println("Failed to answer " + exchange.getRequestURI() + ": " + e);
+					send(exchange, 500, error("internal error"));
+				}
+			} finally {
+				exchange.close();
+			}
+		};
+	}
+
+	//Answers GET /buildings
+	private void handleBuildings(HttpExchange exchange) throws IOException {
+		send(exchange, 200, buildingsJson);
+	}
+
+	//Answers GET /path?from=...&to=...
+	private void handlePath(HttpExchange exchange) throws IOException {
+		Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+		String from = query.get("from");
+		String to = query.get("to");
+		if (from == null || to == null) {
+			send(exchange, 400, error("from and to are required"));
+		} else if (!model.containsBuilding(from) || !model.containsBuilding(to)) {
+			send(exchange, 404, error("unknown building"));
+		} else {
+			CampusPath path = model.getPath(model.getBuilding(from), model.getBuilding(to));
+			if (path == null) {
+				send(exchange, 404, error("no path"));
+			} else {
+				send(exchange, 200, pathJson(path).getBytes(StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	//Writes a JSON response with the given status and body, or only its
+	//headers for a HEAD request, and closes the exchange
+	private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		if (exchange.getRequestMethod().equals("HEAD")) {
+			exchange.getResponseHeaders().set("Content-Length", Integer.toString(body.length));
+			exchange.sendResponseHeaders(status, -1);
+			exchange.close();
+			return;
+		}
+		exchange.sendResponseHeaders(status, body.length);
+		OutputStream out = exchange.getResponseBody();
+		try {
+			out.write(body);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	//Returns the body of an error response
+	private static byte[] error(String message) {
+		return ("{\"error\":" + quote(message) + "}").getBytes(StandardCharsets.UTF_8);
+	}
+
+	//Splits a raw query string into decoded names and values. Returns an
+	//empty map for a null query.
+	private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+		Map<String, String> result = new HashMap<String, String>();
+		if (rawQuery == null) {
+			return result;
+		}
+		for (String param : rawQuery.split("&")) {
+			int eq = param.indexOf('=');
+			if (eq > 0) {
+				result.put(URLDecoder.decode(param.substring(0, eq), "UTF-8"),
+						URLDecoder.decode(param.substring(eq + 1), "UTF-8"));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param buildings the buildings to describe
+	 * @return a JSON array with the short name, long name and location of
+	 * every building, in iteration order
+	 */
+	public static String buildingsJson(Collection<CampusBuilding> buildings) {
+		StringBuilder json = new StringBuilder("[");
+		for (CampusBuilding b : buildings) {
+			if (json.length() > 1) {
+				json.append(',');
+			}
+			json.append("{\"short\":").append(quote(b.getShortName()))
+					.append(",\"long\":").append(quote(b.getLongName()))
+					.append(",\"x\":").append(b.getLocation().getX())
+					.append(",\"y\":").append(b.getLocation().getY()).append('}');
+		}
+		return json.append(']').toString();
+	}
+
+	/**
+	 * @param path the path to describe
+	 * @requires path != null
+	 * @return a JSON object with the buildings, total distance, locations,
+	 * directions and distances of path
+	 */
+	public static String pathJson(CampusPath path) {
+		StringBuilder json = new StringBuilder();
+		json.append("{\"from\":").append(quote(path.getStartBuilding().getShortName()))
+				.append(",\"to\":").append(quote(path.getDestinationBuilding().getShortName()))
+				.append(",\"total\":").append(path.getTotalDistance())
+				.append(",\"locations\":[");
+		List<CampusLocation> locations = path.getPathLocations();
+		for (int i = 0; i < locations.size(); i++) {
+			json.append(i == 0 ? "[" : ",[").append(locations.get(i).getX())
+					.append(',').append(locations.get(i).getY()).append(']');
+		}
+		json.append("],\"directions\":[");
+		List<String> directions = path.getPathDirections();
+		for (int i = 0; i < directions.size(); i++) {
+			json.append(i == 0 ? "" : ",").append(quote(directions.get(i)));
+		}
+		json.append("],\"distances\":[");
+		List<Double> distances = path.getPathDistances();
+		for (int i = 0; i < distances.size(); i++) {
+			json.append(i == 0 ? "" : ",").append(distances.get(i).doubleValue());
+		}
+		return json.append("]}").toString();
+	}
+
+	//Returns s as a JSON string literal
+	private static String quote(String s) {
+		StringBuilder json = new StringBuilder(s.length() + 2).append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		return json.append('"').toString();
+	}
+
+	//Returns an executor that runs each request on a new virtual thread if
+	//the JVM supports them, otherwise a fixed pool of two threads per CPU
+	private static ExecutorService newExecutor() {
+		try {
+			return (ExecutorService) Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(2 * Runtime.getRuntime().availableProcessors());
+		}
+	}
+}
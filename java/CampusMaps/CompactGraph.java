@@ -0,0 +1,315 @@
+package sample;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CompactGraph is an immutable snapshot of a Graph<E,Double> stored in
+ * compressed sparse row form. Every node is given an integer id in the range
+ * [0, nodeCount()) and the outgoing edges of node u are the edge ids in the
+ * range [firstEdge(u), endEdge(u)). Edge weights are stored as primitive
+ * doubles so searches over the snapshot never hash Node objects or unbox
+ * Double labels.
+ *
+ * Changes made to the source Graph after the snapshot is frozen are not
+ * reflected in the snapshot.
+ */
+public class CompactGraph<E> implements RoutingGraph {
+	private List<Node<E>> nodes;
+	private Map<E, Integer> ids;
+	private int[] offsets;
+	private int[] targets;
+	private double[] weights;
+	private int[] reverseOffsets;
+	private int[] reverseEdges;
+	private int[] reverseSources;
+	// Abstraction function:
+	// CompactGraph c represents a directed graph whose nodes are
+	// nodes.get(0) ... nodes.get(nodes.size() - 1). For every node id u and
+	// every edge id i with offsets[u] <= i < offsets[u + 1] there is an edge
+	// from nodes.get(u) to nodes.get(targets[i]) with weight weights[i].
+	// ids maps the data of every node back to its id.
+	// The edges whose child is node v are the edge ids reverseEdges[r] for
+	// reverseOffsets[v] <= r < reverseOffsets[v + 1], and reverseSources[r]
+	// is the parent node of edge reverseEdges[r].
+	// Representation invariant:
+	// nodes, ids, offsets, targets, weights != null;
+	// offsets.length == nodes.size() + 1, offsets[0] == 0,
+	// offsets[nodes.size()] == targets.length == weights.length,
+	// offsets is non-decreasing; for all i, 0 <= targets[i] < nodes.size();
+	// for all u, ids.get(nodes.get(u).getData()) == u;
+	// reverseOffsets and reverseEdges hold every edge id exactly once,
+	// grouped by child node in the same form as offsets and targets.
+
+	/**
+	 * @param nodes the nodes of the snapshot indexed by id
+	 * @param offsets the start of each node's edge range
+	 * @param targets the child node id of each edge
+	 * @param weights the weight of each edge
+	 * @effects creates a new CompactGraph over the given arrays
+	 */
+	private CompactGraph(List<Node<E>> nodes, int[] offsets, int[] targets,
+			double[] weights) {
+		this.nodes = nodes;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		ids = new HashMap<E, Integer>(nodes.size() * 2);
+		for (int i = 0; i < nodes.size(); i++) {
+			ids.put(nodes.get(i).getData(), i);
+		}
+		reverseOffsets = new int[nodes.size() + 1];
+		reverseEdges = new int[targets.length];
+		reverseSources = new int[targets.length];
+		for (int t : targets) {
+			reverseOffsets[t + 1]++;
+		}
+		for (int v = 0; v < nodes.size(); v++) {
+			reverseOffsets[v + 1] += reverseOffsets[v];
+		}
+		int[] next = new int[nodes.size()];
+		for (int u = 0; u < nodes.size(); u++) {
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int r = reverseOffsets[targets[e]] + next[targets[e]]++;
+				reverseEdges[r] = e;
+				reverseSources[r] = u;
+			}
+		}
+		checkRep();
+	}
+
+	/**
+	 * Freezes the current contents of a Graph into a new CompactGraph.
+	 *
+	 * @param g
+	 *            the Graph to take a snapshot of
+	 * @requires g != null
+	 * @throws IllegalArgumentException
+	 *             if any edge in g has a null label
+	 * @return a CompactGraph containing every node and edge currently in g
+	 */
+	public static <E> CompactGraph<E> freeze(Graph<E, Double> g) {
+		List<Node<E>> nodes = new ArrayList<Node<E>>(g.getNodes());
+		Map<Node<?>, Integer> ids = new HashMap<Node<?>, Integer>(nodes.size() * 2);
+		int edgeCount = 0;
+		for (int i = 0; i < nodes.size(); i++) {
+			ids.put(nodes.get(i), i);
+			edgeCount += g.getNumChildren(nodes.get(i));
+		}
+		int[] offsets = new int[nodes.size() + 1];
+		int[] targets = new int[edgeCount];
+		double[] weights = new double[edgeCount];
+		int next = 0;
+		for (int i = 0; i < nodes.size(); i++) {
+			offsets[i] = next;
+			for (Edge<Double> e : g.getChildrenView(nodes.get(i))) {
+				if (e.getLabel() == null) {
+					throw new IllegalArgumentException(
+							"Every edge must have a weight: " + e);
+				}
+				targets[next] = ids.get(e.getChild());
+				weights[next] = e.getLabel();
+				next++;
+			}
+		}
+		offsets[nodes.size()] = next;
+		return new CompactGraph<E>(Collections.unmodifiableList(nodes),
+				offsets, targets, weights);
+	}
+
+	/**
+	 *
+	 * @return the number of nodes in the snapshot
+	 */
+	public int nodeCount() {
+		return nodes.size();
+	}
+
+	/**
+	 *
+	 * @return the number of edges in the snapshot
+	 */
+	public int edgeCount() {
+		return targets.length;
+	}
+
+	/**
+	 * Returns the id of a given node.
+	 *
+	 * @param n
+	 *            the node to find the id of
+	 * @requires n != null
+	 * @return the id of n, or -1 if n is not contained in the snapshot
+	 */
+	public int indexOf(Node<?> n) {
+		Integer id = ids.get(n.getData());
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 *
+	 * @param id
+	 *            the id of the node to return
+	 * @requires 0 <= id < nodeCount()
+	 * @return the Node with the given id
+	 */
+	public Node<E> getNode(int id) {
+		return nodes.get(id);
+	}
+
+	/**
+	 *
+	 * @param u
+	 *            the id of a node
+	 * @requires 0 <= u < nodeCount()
+	 * @return the id of the first edge that has u as a parent
+	 */
+	public int firstEdge(int u) {
+		return offsets[u];
+	}
+
+	/**
+	 *
+	 * @param u
+	 *            the id of a node
+	 * @requires 0 <= u < nodeCount()
+	 * @return one past the id of the last edge that has u as a parent
+	 */
+	public int endEdge(int u) {
+		return offsets[u + 1];
+	}
+
+	/**
+	 *
+	 * @param e
+	 *            the id of an edge
+	 * @requires 0 <= e < edgeCount()
+	 * @return the id of the child node of edge e
+	 */
+	public int target(int e) {
+		return targets[e];
+	}
+
+	/**
+	 *
+	 * @param e
+	 *            the id of an edge
+	 * @requires 0 <= e < edgeCount()
+	 * @return the weight of edge e
+	 */
+	public double weight(int e) {
+		return weights[e];
+	}
+
+	/**
+	 *
+	 * @param v
+	 *            the id of a node
+	 * @requires 0 <= v < nodeCount()
+	 * @return the first index into the incoming edges of v
+	 */
+	public int firstReverseEdge(int v) {
+		return reverseOffsets[v];
+	}
+
+	/**
+	 *
+	 * @param v
+	 *            the id of a node
+	 * @requires 0 <= v < nodeCount()
+	 * @return one past the last index into the incoming edges of v
+	 */
+	public int endReverseEdge(int v) {
+		return reverseOffsets[v + 1];
+	}
+
+	/**
+	 *
+	 * @param r
+	 *            an index into the incoming edges of some node v, with
+	 *            firstReverseEdge(v) <= r < endReverseEdge(v)
+	 * @return the id of the edge at index r, an edge whose child is v
+	 */
+	public int reverseEdge(int r) {
+		return reverseEdges[r];
+	}
+
+	/**
+	 *
+	 * @param r
+	 *            an index into the incoming edges of some node v, with
+	 *            firstReverseEdge(v) <= r < endReverseEdge(v)
+	 * @return the id of the parent node of the edge at index r
+	 */
+	public int reverseSource(int r) {
+		return reverseSources[r];
+	}
+
+	/**
+	 *
+	 * @param e
+	 *            the id of an edge
+	 * @requires 0 <= e < edgeCount()
+	 * @return the id of the parent node of edge e
+	 */
+	public int source(int e) {
+		int lo = 0;
+		int hi = nodes.size() - 1;
+		while (lo < hi) { // find the last node whose edges start at or before e
+			int mid = (lo + hi + 1) >>> 1;
+			if (offsets[mid] <= e) {
+				lo = mid;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Creates the Edge object corresponding to an edge id. The result is
+	 * equal to the Edge that the edge id was frozen from.
+	 *
+	 * @param parent
+	 *            the id of the parent node of the edge
+	 * @param e
+	 *            the id of the edge
+	 * @requires firstEdge(parent) <= e < endEdge(parent)
+	 * @return an Edge<Double> from getNode(parent) to getNode(target(e)) with
+	 *         the label weight(e)
+	 */
+	public Edge<Double> getEdge(int parent, int e) {
+		return new Edge<Double>(nodes.get(parent), nodes.get(targets[e]),
+				weights[e]);
+	}
+
+	/** Checks that the representation invariant holds */
+	private void checkRep() throws RuntimeException {
+		if (offsets.length != nodes.size() + 1 || offsets[0] != 0) {
+			throw new RuntimeException("offsets must have one entry per node plus one");
+		}
+		if (offsets[nodes.size()] != targets.length
+				|| targets.length != weights.length) {
+			throw new RuntimeException("targets and weights must cover every edge");
+		}
+		for (int i = 0; i < nodes.size(); i++) {
+			if (offsets[i] > offsets[i + 1]) {
+				throw new RuntimeException("offsets must be non-decreasing");
+			}
+		}
+		for (int t : targets) {
+			if (t < 0 || t >= nodes.size()) {
+				throw new RuntimeException("Edge target must be a node in the graph");
+			}
+		}
+		if (reverseOffsets[nodes.size()] != targets.length) {
+			throw new RuntimeException("Every edge must be indexed by its child");
+		}
+		if (ids.size() != nodes.size()) {
+			throw new RuntimeException("Two nodes cannot hold equal data");
+		}
+	}
+}
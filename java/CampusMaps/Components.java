@@ -0,0 +1,284 @@
+package sample;
+
+/**
+ * Components labels the strongly and weakly connected components of a
+ * RoutingGraph, so that queries for unreachable pairs can be answered
+ * without a search. Two nodes in the same strong component reach each
+ * other. A node cannot reach another node in a different weak component,
+ * nor one whose strong component comes after its own in the order below.
+ *
+ * When there are at most MAX_CLOSURE_COMPONENTS strong components, which
+ * holds for the campus, Components also stores which strong components
+ * reach which, computed over the graph of components, so that cannotReach
+ * is exact. Beyond that the closure would take too much memory and only
+ * the two tests above apply.
+ *
+ * Strong components are numbered in the order Tarjan's algorithm completes
+ * them, which is a reverse topological order of the graph of components: an
+ * edge from component a to a different component b means a > b. The search
+ * keeps its own stack of nodes and edge positions instead of recursing, so
+ * long chains of nodes cannot overflow the call stack.
+ */
+public class Components {
+	/**
+	 * The largest number of strong components whose reachability is
+	 * stored, in at most 2 MB
+	 */
+	public static final int MAX_CLOSURE_COMPONENTS = 4096;
+
+	private int[] strong;
+	private int[] weak;
+	private int strongCount;
+	private int weakCount;
+	private long[] reaches;
+	private int words;
+	// Abstraction function:
+	// Node v of the graph is in strong component strong[v] and weak
+	// component weak[v]; the graph has strongCount strong components and
+	// weakCount weak components. If reaches != null, bit d of the words
+	// reaches[c * words] to reaches[c * words + words - 1] is set iff strong
+	// component c reaches strong component d.
+	// Representation invariant:
+	// strong, weak != null, strong.length == weak.length;
+	// 0 <= strong[v] < strongCount and 0 <= weak[v] < weakCount for every v;
+	// for every edge from u to v, weak[u] == weak[v] and strong[u] >= strong[v];
+	// reaches == null or reaches.length == strongCount * words, and every
+	// component reaches itself.
+
+	/**
+	 * @param g the graph to label
+	 * @requires g != null
+	 * @effects creates a new Components holding the strong and weak
+	 *          components of g's current nodes and edges
+	 */
+	public Components(RoutingGraph g) {
+		int n = g.nodeCount();
+		strong = new int[n];
+		weak = new int[n];
+		labelStrong(g);
+		labelWeak(g);
+		if (strongCount <= MAX_CLOSURE_COMPONENTS) {
+			closeReachability(g);
+		}
+		checkRep();
+	}
+
+	/**
+	 *
+	 * @return the number of strongly connected components
+	 */
+	public int getStrongCount() {
+		return strongCount;
+	}
+
+	/**
+	 *
+	 * @return the number of weakly connected components
+	 */
+	public int getWeakCount() {
+		return weakCount;
+	}
+
+	/**
+	 * @param v the id of a node
+	 * @requires 0 <= v < the number of nodes of the graph
+	 * @return the strong component of v, numbered so that no edge leads
+	 *         from a component to one with a greater number
+	 */
+	public int getStrongComponent(int v) {
+		return strong[v];
+	}
+
+	/**
+	 * @param v the id of a node
+	 * @requires 0 <= v < the number of nodes of the graph
+	 * @return the weak component of v
+	 */
+	public int getWeakComponent(int v) {
+		return weak[v];
+	}
+
+	/**
+	 *
+	 * @return true if cannotReach is exact, that is the graph has at most
+	 *         MAX_CLOSURE_COMPONENTS strong components
+	 */
+	public boolean isExact() {
+		return reaches != null;
+	}
+
+	/**
+	 * Tests in constant time whether there is no path from u to v. If
+	 * isExact() this is the answer. Otherwise only pairs in different weak
+	 * components and pairs whose strong components are in the wrong
+	 * topological order are caught, and other unreachable pairs, such as
+	 * two components that both hang off a common one, return false.
+	 *
+	 * @param u the id of a node
+	 * @param v the id of a node
+	 * @requires u and v are ids of nodes of the graph
+	 * @return true only if there is no path from u to v. If isExact(), false
+	 *         only if there is one.
+	 */
+	public boolean cannotReach(int u, int v) {
+		int a = strong[u];
+		int b = strong[v];
+		if (weak[u] != weak[v] || a < b) {
+			return true;
+		}
+		return reaches != null && (reaches[a * words + (b >>> 6)] & (1L << b)) == 0;
+	}
+
+	/**
+	 * @param u the id of a node
+	 * @param v the id of a node
+	 * @requires u and v are ids of nodes of the graph
+	 * @return true if u and v are in the same strong component, which
+	 *         proves there is a path from u to v and one from v to u
+	 */
+	public boolean isStronglyConnected(int u, int v) {
+		return strong[u] == strong[v];
+	}
+
+	//Runs Tarjan's algorithm from every unvisited node, numbering strong
+	//components as they complete
+	private void labelStrong(RoutingGraph g) {
+		int n = g.nodeCount();
+		int[] order = new int[n]; // visit order + 1, 0 while unvisited
+		int[] low = new int[n];
+		boolean[] open = new boolean[n]; // on the component stack
+		int[] components = new int[n];
+		int[] frames = new int[n];
+		int[] nextEdge = new int[n];
+		int visited = 0;
+		int openTop = 0;
+		for (int root = 0; root < n; root++) {
+			if (order[root] != 0) {
+				continue;
+			}
+			int top = 0;
+			frames[0] = root;
+			nextEdge[0] = g.firstEdge(root);
+			order[root] = low[root] = ++visited;
+			components[openTop++] = root;
+			open[root] = true;
+			while (top >= 0) {
+				int v = frames[top];
+				int e = nextEdge[top];
+				if (e < g.endEdge(v)) {
+					nextEdge[top] = e + 1;
+					int w = g.target(e);
+					if (order[w] == 0) {
+						order[w] = low[w] = ++visited;
+						components[openTop++] = w;
+						open[w] = true;
+						top++;
+						frames[top] = w;
+						nextEdge[top] = g.firstEdge(w);
+					} else if (open[w] && order[w] < low[v]) {
+						low[v] = order[w];
+					}
+					continue;
+				}
+				if (low[v] == order[v]) {
+					int w;
+					do {
+						w = components[--openTop];
+						open[w] = false;
+						strong[w] = strongCount;
+					} while (w != v);
+					strongCount++;
+				}
+				top--;
+				if (top >= 0 && low[v] < low[frames[top]]) {
+					low[frames[top]] = low[v];
+				}
+			}
+		}
+	}
+
+	//Sets the reachability bits of every strong component. An edge only
+	//leads to a component with a smaller number, so components are closed
+	//in increasing order, each from the closed sets of the components its
+	//edges lead to.
+	private void closeReachability(RoutingGraph g) {
+		int n = g.nodeCount();
+		words = (strongCount + 63) >>> 6;
+		reaches = new long[strongCount * words];
+		int[] start = new int[strongCount + 1];
+		for (int v = 0; v < n; v++) {
+			start[strong[v] + 1]++;
+		}
+		for (int c = 0; c < strongCount; c++) {
+			start[c + 1] += start[c];
+		}
+		int[] members = new int[n];
+		int[] next = start.clone();
+		for (int v = 0; v < n; v++) {
+			members[next[strong[v]]++] = v;
+		}
+		for (int c = 0; c < strongCount; c++) {
+			int row = c * words;
+			reaches[row + (c >>> 6)] |= 1L << c;
+			for (int i = start[c]; i < start[c + 1]; i++) {
+				int u = members[i];
+				for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+					int d = strong[g.target(e)];
+					if (d != c && (reaches[row + (d >>> 6)] & (1L << d)) == 0) {
+						int from = d * words;
+						for (int w = 0; w < words; w++) {
+							reaches[row + w] |= reaches[from + w];
+						}
+					}
+				}
+			}
+		}
+	}
+
+	//Joins the ends of every edge in a union-find forest and numbers its
+	//trees
+	private void labelWeak(RoutingGraph g) {
+		int n = g.nodeCount();
+		int[] parent = new int[n];
+		for (int v = 0; v < n; v++) {
+			parent[v] = v;
+		}
+		for (int u = 0; u < n; u++) {
+			for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+				int a = find(parent, u);
+				int b = find(parent, g.target(e));
+				if (a != b) {
+					parent[Math.max(a, b)] = Math.min(a, b);
+				}
+			}
+		}
+		// every root is smaller than the rest of its tree, so roots are
+		// numbered before any node that refers to them
+		for (int v = 0; v < n; v++) {
+			int root = find(parent, v);
+			weak[v] = root == v ? weakCount++ : weak[root];
+		}
+	}
+
+	//Returns the root of v's tree, halving the path to it
+	private static int find(int[] parent, int v) {
+		while (parent[v] != v) {
+			parent[v] = parent[parent[v]];
+			v = parent[v];
+		}
+		return v;
+	}
+
+	/** Checks that the representation invariant holds */
+	private void checkRep() throws RuntimeException {
+		if (strong.length != weak.length) {
+			throw new RuntimeException("Every node needs a strong and a weak component");
+		}
+		if (strongCount < weakCount) {
+			throw new RuntimeException("Every weak component holds at least one strong component");
+		}
+		if (reaches != null && reaches.length != strongCount * words) {
+			throw new RuntimeException("Every strong component needs a row of reachability bits");
+		}
+	}
+}
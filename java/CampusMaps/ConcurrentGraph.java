@@ -0,0 +1,141 @@
+package sample;
+
+import java.util.function.Consumer;
+
+/**
+ * ConcurrentGraph is a thread-safe Graph<E,Double> for routing while the
+ * graph is being changed. Changes are made under a lock to a private Graph,
+ * and after every change a new CompactGraph snapshot of the whole graph is
+ * published. Readers take the current snapshot without locking and route
+ * on it; a snapshot is immutable, so a search always sees one consistent
+ * version of the graph no matter what writers do meanwhile.
+ * 
+ * Publishing costs time proportional to the size of the graph, so changes
+ * that belong together should be made in one call to update().
+ */
+public class ConcurrentGraph<E> {
+	private final Graph<E, Double> graph;
+	private volatile CompactGraph<E> snapshot;
+	// Abstraction function:
+	// ConcurrentGraph represents the graph held by graph. snapshot is the
+	// last published version of it.
+	// Representation invariant:
+	// graph != null, snapshot != null; while no thread holds the lock on
+	// this, snapshot holds the same nodes and edges as graph
+
+	/**
+	 * @effects creates a new ConcurrentGraph with no nodes and no edges
+	 */
+	public ConcurrentGraph() {
+		this(new Graph<E, Double>());
+	}
+
+	/**
+	 * @param g the graph to start from
+	 * @requires g != null, every edge in g has a non-null label, g is not
+	 *           used by the caller afterwards
+	 * @effects creates a new ConcurrentGraph containing the nodes and edges
+	 *          of g
+	 */
+	public ConcurrentGraph(Graph<E, Double> g) {
+		graph = g;
+		snapshot = CompactGraph.freeze(g);
+		checkRep();
+	}
+
+	/**
+	 * Returns the current version of the graph. Never blocks.
+	 * 
+	 * @return an immutable snapshot of the graph as of the last completed
+	 *         change
+	 */
+	public CompactGraph<E> snapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * @param n Node to be added
+	 * @requires n != null
+	 * @modifies this
+	 * @effects n is added to the graph unless it is already in the graph
+	 */
+	public synchronized void addNode(Node<E> n) {
+		if (!graph.containsNode(n)) {
+			graph.addNode(n);
+			publish();
+		}
+	}
+
+	/**
+	 * @param n Node to be removed
+	 * @requires n != null
+	 * @throws IllegalArgumentException if n is not contained in the graph
+	 * @modifies this
+	 * @effects removes n and every edge that references n
+	 */
+	public synchronized void removeNode(Node<E> n) {
+		graph.removeNode(n);
+		publish();
+	}
+
+	/**
+	 * @param e Edge to be added
+	 * @requires e != null, e.getLabel() != null
+	 * @throws IllegalArgumentException if e.getParent() or e.getChild() is
+	 *             not contained in the graph
+	 * @modifies this
+	 * @effects e is added to the graph
+	 */
+	public synchronized void addEdge(Edge<Double> e) {
+		graph.addEdge(e);
+		publish();
+	}
+
+	/**
+	 * @param e Edge to be removed
+	 * @requires e != null
+	 * @throws IllegalArgumentException if e is not contained in the graph
+	 * @modifies this
+	 * @effects removes one copy of e from the graph
+	 */
+	public synchronized void removeEdge(Edge<Double> e) {
+		graph.removeEdge(e);
+		publish();
+	}
+
+	/**
+	 * Makes several changes to the graph and publishes them as one version,
+	 * so that readers see either none or all of them.
+	 * 
+	 * @param changes makes the changes to the graph it is given
+	 * @requires changes != null, changes does not keep the graph it is
+	 *           given, every edge it adds has a non-null label
+	 * @modifies this
+	 * @effects runs changes on the graph and publishes the result. If
+	 *          changes throws, the changes it made before throwing are
+	 *          still published.
+	 */
+	public synchronized void update(Consumer<Graph<E, Double>> changes) {
+		try {
+			changes.accept(graph);
+		} finally {
+			publish();
+		}
+	}
+
+	//Freezes the graph and makes it the snapshot readers see
+	private void publish() {
+		snapshot = CompactGraph.freeze(graph);
+		checkRep();
+	}
+
+	/** Checks that the representation invariant holds */
+	private void checkRep() throws RuntimeException {
+		if (graph == null || snapshot == null) {
+			throw new RuntimeException("graph and snapshot cannot be null");
+		}
+		if (snapshot.nodeCount() != graph.getNodes().size()) {
+			throw new RuntimeException("snapshot must hold every node of the graph");
+		}
+	}
+}
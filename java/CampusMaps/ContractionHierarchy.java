@@ -0,0 +1,420 @@
+package sample;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ContractionHierarchy is an immutable index over a CompactGraph that
+ * answers least cost path queries by searching only a small part of the
+ * graph.
+ *
+ * Preprocessing contracts the nodes one at a time in order of importance.
+ * Contracting a node removes it from the remaining graph and adds a shortcut
+ * arc between two of its neighbors wherever the only least cost path
+ * between them went through the node. A query then runs a search upward in
+ * contraction order from both ends; the two searches meet at the most
+ * important node of the path. Shortcuts remember the two arcs they replace
+ * so every route can be unpacked into the original edges of the graph.
+ */
+public class ContractionHierarchy<E> {
+	//Witness searches give up after settling this many nodes and add the
+	//shortcut, which is never wrong, only redundant.
+	private static final int WITNESS_LIMIT = 500;
+	//Smaller limit used when only estimating how many shortcuts a node needs
+	private static final int ESTIMATE_LIMIT = 50;
+
+	private CompactGraph<E> g;
+	private int[] rank;
+	private int[] arcFrom;
+	private int[] arcTo;
+	private double[] arcWeight;
+	private int[] arcEdge;
+	private int[] arcFirst;
+	private int[] arcSecond;
+	private int[] upOffsets;
+	private int[] upArcs;
+	private int[] downOffsets;
+	private int[] downArcs;
+	private int shortcuts;
+	// Abstraction function:
+	// Node v of g was contracted rank[v]-th. Arc a goes from node arcFrom[a]
+	// to node arcTo[a] with weight arcWeight[a]. If arcEdge[a] >= 0 then a is
+	// the edge arcEdge[a] of g; otherwise a is a shortcut standing for arc
+	// arcFirst[a] followed by arc arcSecond[a]. The arcs that lead from
+	// node u to a node of higher rank are upArcs[i] for
+	// upOffsets[u] <= i < upOffsets[u + 1]. The arcs that lead to node v
+	// from a node of higher rank are downArcs[i] for
+	// downOffsets[v] <= i < downOffsets[v + 1]. shortcuts is the number of
+	// shortcut arcs.
+	// Representation invariant:
+	// all fields != null; rank is a permutation of [0, g.nodeCount());
+	// every arc a has arcWeight[a] equal to the sum of the weights of the
+	// edges it unpacks to; every arc whose ends differ appears exactly once
+	// in upArcs or downArcs.
+
+	/**
+	 * Runs the preprocessing for a graph.
+	 *
+	 * @param g the graph to build the hierarchy over
+	 * @requires g != null, every edge weight of g is non-negative
+	 * @effects creates a new ContractionHierarchy that answers queries for g
+	 */
+	public ContractionHierarchy(CompactGraph<E> g) {
+		this.g = g;
+		new Contraction().run();
+		checkRep();
+	}
+
+	/**
+	 *
+	 * @return the number of shortcut arcs added by preprocessing
+	 */
+	public int getShortcutCount() {
+		return shortcuts;
+	}
+
+	/**
+	 *
+	 * @return the number of arcs searched by queries, shortcuts included
+	 */
+	public int getArcCount() {
+		return upArcs.length + downArcs.length;
+	}
+
+	/**
+	 * Finds the least cost path between two given Nodes of the graph.
+	 *
+	 * @param startN the starting node of the path
+	 * @param destN the destination node of the path
+	 * @param forward scratch state for the search from startN
+	 * @param backward scratch state for the search from destN
+	 * @requires forward.capacity() >= nodeCount of the graph,
+	 *           backward.capacity() >= nodeCount of the graph,
+	 *           forward != backward
+	 * @modifies forward, backward
+	 * @throws IllegalArgumentException
+	 *             if startN or destN is not contained in the graph
+	 * @return a List of Edge<Double> of the graph representing the path
+	 *         between startN and destN. Returns null if no path is found.
+	 */
+	public List<Edge<Double>> getPath(Node<E> startN, Node<E> destN,
+			SearchSpace forward, SearchSpace backward) {
+		int start = g.indexOf(startN);
+		int dest = g.indexOf(destN);
+		if (start < 0 || dest < 0) {
+			throw new IllegalArgumentException(
+					"Start and destination must be contained in the given graph");
+		}
+		int meet = search(start, dest, forward, backward);
+		if (meet < 0) {
+			return null;
+		}
+		int[] stack = new int[16];
+		List<Edge<Double>> path = new ArrayList<Edge<Double>>();
+		int[] up = new int[16];
+		int count = 0;
+		for (int v = meet; forward.predecessor(v) >= 0; v = forward.predecessor(v)) {
+			if (count == up.length) {
+				up = Arrays.copyOf(up, count * 2);
+			}
+			up[count++] = forward.predecessorEdge(v);
+		}
+		for (int i = count - 1; i >= 0; i--) {
+			stack = unpack(up[i], path, stack);
+		}
+		for (int v = meet; backward.predecessor(v) >= 0; v = backward.predecessor(v)) {
+			stack = unpack(backward.predecessorEdge(v), path, stack);
+		}
+		return path;
+	}
+
+	/**
+	 * Runs the upward searches from start and dest.
+	 *
+	 * @param start the id of the starting node
+	 * @param dest the id of the destination node
+	 * @param forward scratch state for the search from start
+	 * @param backward scratch state for the search from dest
+	 * @requires forward.capacity() >= nodeCount of the graph,
+	 *           backward.capacity() >= nodeCount of the graph,
+	 *           forward != backward
+	 * @modifies forward, backward
+	 * @effects the predecessor arcs in forward lead from the returned node
+	 *          back to start and those in backward lead from it to dest
+	 * @return the id of the node where the searches meet on a least cost
+	 *         path, or -1 if there is no path
+	 */
+	public int search(int start, int dest, SearchSpace forward,
+			SearchSpace backward) {
+		forward.reset();
+		backward.reset();
+		forward.addSource(start, 0);
+		backward.addSource(dest, 0);
+		double best = start == dest ? 0 : Double.POSITIVE_INFINITY;
+		int meet = start == dest ? start : -1;
+		while (true) {
+			boolean goForward = !forward.isEmpty() && forward.minKey() < best;
+			boolean goBackward = !backward.isEmpty() && backward.minKey() < best;
+			if (goForward && goBackward) {
+				goForward = forward.minKey() <= backward.minKey();
+			} else if (!goForward && !goBackward) {
+				return meet;
+			}
+			SearchSpace side = goForward ? forward : backward;
+			SearchSpace other = goForward ? backward : forward;
+			int[] offsets = goForward ? upOffsets : downOffsets;
+			int[] arcs = goForward ? upArcs : downArcs;
+			int u = side.settle();
+			double du = side.distance(u);
+			double through = du + other.distance(u);
+			if (through < best) {
+				best = through;
+				meet = u;
+			}
+			for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+				int a = arcs[i];
+				int v = goForward ? arcTo[a] : arcFrom[a];
+				side.relax(v, du + arcWeight[a], u, a);
+			}
+		}
+	}
+
+	//Appends the original edges that arc a stands for to path, in order.
+	//Returns the stack used, which may have been grown.
+	private int[] unpack(int a, List<Edge<Double>> path, int[] stack) {
+		int size = 0;
+		stack[size++] = a;
+		while (size > 0) {
+			int top = stack[--size];
+			if (arcEdge[top] >= 0) {
+				path.add(g.getEdge(arcFrom[top], arcEdge[top]));
+			} else {
+				if (size + 2 > stack.length) {
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				}
+				stack[size++] = arcSecond[top];
+				stack[size++] = arcFirst[top];
+			}
+		}
+		return stack;
+	}
+
+	/** Checks that the representation invariant holds */
+	private void checkRep() throws RuntimeException {
+		boolean[] seen = new boolean[rank.length];
+		for (int r : rank) {
+			if (r < 0 || r >= rank.length || seen[r]) {
+				throw new RuntimeException("rank must be a permutation of the nodes");
+			}
+			seen[r] = true;
+		}
+		for (int i = 0; i < upArcs.length; i++) {
+			if (rank[arcFrom[upArcs[i]]] >= rank[arcTo[upArcs[i]]]) {
+				throw new RuntimeException("Upward arc must lead to a higher rank");
+			}
+		}
+		for (int i = 0; i < downArcs.length; i++) {
+			if (rank[arcFrom[downArcs[i]]] <= rank[arcTo[downArcs[i]]]) {
+				throw new RuntimeException("Downward arc must lead to a lower rank");
+			}
+		}
+	}
+
+	//Preprocessing state: the remaining graph as growable arc lists and the
+	//queue of nodes still to be contracted.
+	private class Contraction {
+		private int n = g.nodeCount();
+		private int count;
+		private int[][] out = new int[n][];
+		private int[] outSize = new int[n];
+		private int[][] in = new int[n][];
+		private int[] inSize = new int[n];
+		private boolean[] contracted = new boolean[n];
+		private int[] contractedNeighbors = new int[n];
+		private SearchSpace witness = new SearchSpace(n);
+
+		//Contracts every node and builds the query arrays
+		private void run() {
+			int capacity = Math.max(16, g.edgeCount() * 2);
+			arcFrom = new int[capacity];
+			arcTo = new int[capacity];
+			arcWeight = new double[capacity];
+			arcEdge = new int[capacity];
+			arcFirst = new int[capacity];
+			arcSecond = new int[capacity];
+			for (int v = 0; v < n; v++) {
+				out[v] = new int[4];
+				in[v] = new int[4];
+			}
+			for (int u = 0; u < n; u++) {
+				for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+					if (g.target(e) != u) {
+						addArc(u, g.target(e), g.weight(e), e, -1, -1);
+					}
+				}
+			}
+			IndexedHeap queue = new IndexedHeap(n);
+			for (int v = 0; v < n; v++) {
+				queue.push(v, priority(v));
+			}
+			rank = new int[n];
+			int next = 0;
+			while (!queue.isEmpty()) {
+				int v = queue.pop();
+				double p = priority(v);
+				if (!queue.isEmpty() && p > queue.minKey()) {
+					queue.push(v, p); // importance grew since v was queued
+					continue;
+				}
+				shortcuts += contract(v, WITNESS_LIMIT, false);
+				contracted[v] = true;
+				rank[v] = next++;
+				for (int i = 0; i < outSize[v]; i++) {
+					contractedNeighbors[arcTo[out[v][i]]]++;
+				}
+				for (int i = 0; i < inSize[v]; i++) {
+					contractedNeighbors[arcFrom[in[v][i]]]++;
+				}
+			}
+			buildQueryArrays();
+		}
+
+		//Returns the importance of v: twice the number of arcs contracting v
+		//would add minus the number it would remove, plus the number of
+		//neighbors already contracted so that contraction spreads evenly.
+		private double priority(int v) {
+			int removed = 0;
+			for (int i = 0; i < outSize[v]; i++) {
+				if (!contracted[arcTo[out[v][i]]]) {
+					removed++;
+				}
+			}
+			for (int i = 0; i < inSize[v]; i++) {
+				if (!contracted[arcFrom[in[v][i]]]) {
+					removed++;
+				}
+			}
+			return 2 * (contract(v, ESTIMATE_LIMIT, true) - removed) + contractedNeighbors[v];
+		}
+
+		//Finds the shortcuts needed to contract v and adds them unless
+		//simulate is set. Returns the number of shortcuts needed.
+		private int contract(int v, int limit, boolean simulate) {
+			int needed = 0;
+			double maxOut = 0;
+			for (int i = 0; i < outSize[v]; i++) {
+				int b = out[v][i];
+				if (!contracted[arcTo[b]]) {
+					maxOut = Math.max(maxOut, arcWeight[b]);
+				}
+			}
+			for (int i = 0; i < inSize[v]; i++) {
+				int a = in[v][i];
+				int u = arcFrom[a];
+				if (contracted[u]) {
+					continue;
+				}
+				witnessSearch(u, v, arcWeight[a] + maxOut, limit);
+				for (int j = 0; j < outSize[v]; j++) {
+					int b = out[v][j];
+					int w = arcTo[b];
+					if (contracted[w] || w == u) {
+						continue;
+					}
+					double d = arcWeight[a] + arcWeight[b];
+					if (witness.distance(w) > d) {
+						needed++;
+						if (!simulate) {
+							addArc(u, w, d, -1, a, b);
+						}
+					}
+				}
+			}
+			return needed;
+		}
+
+		//Searches from u in the remaining graph without passing through
+		//node skip, until every node within maxDist is settled or limit
+		//nodes have been settled.
+		private void witnessSearch(int u, int skip, double maxDist, int limit) {
+			witness.reset();
+			witness.addSource(u, 0);
+			while (!witness.isEmpty() && witness.settledCount() < limit
+					&& witness.minKey() <= maxDist) {
+				int x = witness.settle();
+				double dx = witness.distance(x);
+				for (int i = 0; i < outSize[x]; i++) {
+					int c = out[x][i];
+					int y = arcTo[c];
+					if (y != skip && !contracted[y]) {
+						witness.relax(y, dx + arcWeight[c], x, c);
+					}
+				}
+			}
+		}
+
+		//Adds an arc from u to w and returns its id
+		private int addArc(int u, int w, double weight, int edge, int first, int second) {
+			if (count == arcFrom.length) {
+				int capacity = count * 2;
+				arcFrom = Arrays.copyOf(arcFrom, capacity);
+				arcTo = Arrays.copyOf(arcTo, capacity);
+				arcWeight = Arrays.copyOf(arcWeight, capacity);
+				arcEdge = Arrays.copyOf(arcEdge, capacity);
+				arcFirst = Arrays.copyOf(arcFirst, capacity);
+				arcSecond = Arrays.copyOf(arcSecond, capacity);
+			}
+			int a = count++;
+			arcFrom[a] = u;
+			arcTo[a] = w;
+			arcWeight[a] = weight;
+			arcEdge[a] = edge;
+			arcFirst[a] = first;
+			arcSecond[a] = second;
+			if (outSize[u] == out[u].length) {
+				out[u] = Arrays.copyOf(out[u], outSize[u] * 2);
+			}
+			out[u][outSize[u]++] = a;
+			if (inSize[w] == in[w].length) {
+				in[w] = Arrays.copyOf(in[w], inSize[w] * 2);
+			}
+			in[w][inSize[w]++] = a;
+			return a;
+		}
+
+		//Sorts every arc into the upward arrays of its lower ranked end
+		private void buildQueryArrays() {
+			arcFrom = Arrays.copyOf(arcFrom, count);
+			arcTo = Arrays.copyOf(arcTo, count);
+			arcWeight = Arrays.copyOf(arcWeight, count);
+			arcEdge = Arrays.copyOf(arcEdge, count);
+			arcFirst = Arrays.copyOf(arcFirst, count);
+			arcSecond = Arrays.copyOf(arcSecond, count);
+			upOffsets = new int[n + 1];
+			downOffsets = new int[n + 1];
+			for (int a = 0; a < count; a++) {
+				if (rank[arcFrom[a]] < rank[arcTo[a]]) {
+					upOffsets[arcFrom[a] + 1]++;
+				} else {
+					downOffsets[arcTo[a] + 1]++;
+				}
+			}
+			for (int v = 0; v < n; v++) {
+				upOffsets[v + 1] += upOffsets[v];
+				downOffsets[v + 1] += downOffsets[v];
+			}
+			upArcs = new int[upOffsets[n]];
+			downArcs = new int[downOffsets[n]];
+			int[] upNext = Arrays.copyOf(upOffsets, n);
+			int[] downNext = Arrays.copyOf(downOffsets, n);
+			for (int a = 0; a < count; a++) {
+				if (rank[arcFrom[a]] < rank[arcTo[a]]) {
+					upArcs[upNext[arcFrom[a]]++] = a;
+				} else {
+					downArcs[downNext[arcTo[a]]++] = a;
+				}
+			}
+		}
+	}
+}
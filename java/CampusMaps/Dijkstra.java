@@ -50,7 +50,7 @@ public class Dijkstra {
 												// this node
 				continue;
 			}
-			for (Edge<Double> e : g.getChildren(minDest)) {
+			for (Edge<Double> e : g.getChildrenView(minDest)) {
 				if (!finished.contains(e.getChild())) { // Don't already know
 														// the min cost path to
 														// this node
@@ -65,6 +65,471 @@ public class Dijkstra {
 		return null;
 	}
 
+	/**
+	 * Finds the least cost path between two given Nodes in a CompactGraph
+	 * snapshot of a weighted Graph<E,Double>
+	 * 
+	 * @param startN
+	 *            the starting node of the path
+	 * @param destN
+	 *            the destination node of the path
+	 * @param g
+	 *            the snapshot that contains both startN and destN
+	 * @throws IllegalArgumentException
+	 *             if startN or destN is not contained in g
+	 * @return a List of Edge<Double> representing the path between startN and
+	 *         destN Returns null if no path is found.
+	 */
+	public static <E> List<Edge<Double>> getPath(Node<E> startN, Node<E> destN,
+			CompactGraph<E> g) {
+		return getPath(startN, destN, g, new SearchSpace(g.nodeCount()));
+	}
+
+	/**
+	 * Finds the least cost path between two given Nodes in a CompactGraph
+	 * snapshot of a weighted Graph<E,Double>, reusing the scratch state of
+	 * a previous search.
+	 * 
+	 * @param startN
+	 *            the starting node of the path
+	 * @param destN
+	 *            the destination node of the path
+	 * @param g
+	 *            the snapshot that contains both startN and destN
+	 * @param space
+	 *            scratch state for the search
+	 * @requires space.capacity() >= g.nodeCount()
+	 * @modifies space
+	 * @throws IllegalArgumentException
+	 *             if startN or destN is not contained in g
+	 * @return a List of Edge<Double> representing the path between startN and
+	 *         destN Returns null if no path is found.
+	 */
+	public static <E> List<Edge<Double>> getPath(Node<E> startN, Node<E> destN,
+			CompactGraph<E> g, SearchSpace space) {
+		int start = g.indexOf(startN);
+		int dest = g.indexOf(destN);
+		if (start < 0 || dest < 0) {
+			throw new IllegalArgumentException(
+					"Start and destination must be contained in the given graph");
+		}
+		if (search(start, dest, g, space)) {
+			return space.pathTo(g, dest);
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the least cost path between two given Nodes in a CompactGraph
+	 * with an A* search that settles the nodes closest to destN by the given
+	 * heuristic first.
+	 * 
+	 * @param startN
+	 *            the starting node of the path
+	 * @param destN
+	 *            the destination node of the path
+	 * @param g
+	 *            the snapshot that contains both startN and destN
+	 * @param h
+	 *            a consistent lower bound on path lengths in g
+	 * @param space
+	 *            scratch state for the search
+	 * @requires space.capacity() >= g.nodeCount()
+	 * @modifies space
+	 * @throws IllegalArgumentException
+	 *             if startN or destN is not contained in g
+	 * @return a List of Edge<Double> representing the path between startN and
+	 *         destN Returns null if no path is found.
+	 */
+	public static <E> List<Edge<Double>> getPath(Node<E> startN, Node<E> destN,
+			CompactGraph<E> g, Heuristic h, SearchSpace space) {
+		int start = g.indexOf(startN);
+		int dest = g.indexOf(destN);
+		if (start < 0 || dest < 0) {
+			throw new IllegalArgumentException(
+					"Start and destination must be contained in the given graph");
+		}
+		if (search(start, dest, g, h, space)) {
+			return space.pathTo(g, dest);
+		}
+		return null;
+	}
+
+	/**
+	 * Runs a search from start until the least cost path to dest is known.
+	 * Each node keeps only its tentative distance and predecessor, and a
+	 * node's distance is lowered in place in the heap when a shorter path to
+	 * it is found.
+	 * 
+	 * @param start
+	 *            the id of the starting node
+	 * @param dest
+	 *            the id of the destination node
+	 * @param g
+	 *            the graph to search
+	 * @param space
+	 *            scratch state for the search
+	 * @requires space.capacity() >= g.nodeCount(), start and dest are node
+	 *           ids of g
+	 * @modifies space
+	 * @effects space holds the distances and predecessors of every node
+	 *          settled by the search
+	 * @return true iff a path from start to dest exists
+	 */
+	public static boolean search(int start, int dest, RoutingGraph g,
+			SearchSpace space) {
+		return search(start, dest, g, null, space);
+	}
+
+	/**
+	 * Runs an A* search from start until the least cost path to dest is
+	 * known. Nodes are settled in order of their distance from start plus
+	 * the heuristic's estimate of their distance to dest.
+	 * 
+	 * @param start
+	 *            the id of the starting node
+	 * @param dest
+	 *            the id of the destination node
+	 * @param g
+	 *            the graph to search
+	 * @param h
+	 *            a consistent lower bound on path lengths in g, or null to
+	 *            settle nodes by distance alone
+	 * @param space
+	 *            scratch state for the search
+	 * @requires space.capacity() >= g.nodeCount(), start and dest are node
+	 *           ids of g
+	 * @modifies space
+	 * @effects space holds the distances and predecessors of every node
+	 *          settled by the search
+	 * @return true iff a path from start to dest exists
+	 */
+	public static boolean search(int start, int dest, RoutingGraph g,
+			Heuristic h, SearchSpace space) {
+		if (h == null) {
+			return dijkstra(start, dest, g, space);
+		}
+		space.reset();
+		space.addSource(start, 0, h.estimate(start, dest));
+		while (!space.isEmpty()) {
+			int u = space.settle();
+			if (u == dest) {
+				return true;
+			}
+			double du = space.distance(u);
+			for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+				int v = g.target(e);
+				double d = du + g.weight(e);
+				if (d < space.distance(v)) {
+					space.relax(v, d, u, e, d + h.estimate(v, dest));
+				} else {
+					space.skipRelax();
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the least cost path between two given Nodes in a CompactGraph
+	 * with a bidirectional search that grows one search forward from startN
+	 * and one backward from destN until they meet.
+	 * 
+	 * @param startN
+	 *            the starting node of the path
+	 * @param destN
+	 *            the destination node of the path
+	 * @param g
+	 *            the snapshot that contains both startN and destN
+	 * @param forward
+	 *            scratch state for the search from startN
+	 * @param backward
+	 *            scratch state for the search from destN
+	 * @requires forward.capacity() >= g.nodeCount(),
+	 *           backward.capacity() >= g.nodeCount(), forward != backward
+	 * @modifies forward, backward
+	 * @throws IllegalArgumentException
+	 *             if startN or destN is not contained in g
+	 * @return a List of Edge<Double> representing the path between startN and
+	 *         destN Returns null if no path is found.
+	 */
+	public static <E> List<Edge<Double>> getPath(Node<E> startN, Node<E> destN,
+			CompactGraph<E> g, SearchSpace forward, SearchSpace backward) {
+		int start = g.indexOf(startN);
+		int dest = g.indexOf(destN);
+		if (start < 0 || dest < 0) {
+			throw new IllegalArgumentException(
+					"Start and destination must be contained in the given graph");
+		}
+		int meet = searchBidirectional(start, dest, g, forward, backward);
+		if (meet < 0) {
+			return null;
+		}
+		List<Edge<Double>> path = forward.pathTo(g, meet);
+		for (int v = meet; backward.predecessor(v) >= 0; v = backward.predecessor(v)) {
+			path.add(g.getEdge(v, backward.predecessorEdge(v)));
+		}
+		return path;
+	}
+
+	/**
+	 * Runs a bidirectional search between start and dest. The side whose
+	 * next node is closer to its source is always expanded, and the search
+	 * stops once the two smallest tentative distances together are no less
+	 * than the shortest path seen so far, since no path through an
+	 * unsettled node can then be shorter.
+	 * 
+	 * @param start
+	 *            the id of the starting node
+	 * @param dest
+	 *            the id of the destination node
+	 * @param g
+	 *            the snapshot to search
+	 * @param forward
+	 *            scratch state for the search from start
+	 * @param backward
+	 *            scratch state for the search from dest over reversed edges
+	 * @requires forward.capacity() >= g.nodeCount(),
+	 *           backward.capacity() >= g.nodeCount(), forward != backward
+	 * @modifies forward, backward
+	 * @effects the predecessors in forward lead from the returned node back
+	 *          to start, and the predecessors in backward lead from it
+	 *          forward to dest, with the edge ids of g in both
+	 * @return the id of a node on a least cost path from start to dest, or
+	 *         -1 if there is no path
+	 */
+	public static int searchBidirectional(int start, int dest,
+			CompactGraph<?> g, SearchSpace forward, SearchSpace backward) {
+		forward.reset();
+		backward.reset();
+		forward.addSource(start, 0);
+		backward.addSource(dest, 0);
+		double best = start == dest ? 0 : Double.POSITIVE_INFINITY;
+		int meet = start == dest ? start : -1;
+		while (!forward.isEmpty() && !backward.isEmpty()
+				&& forward.minKey() + backward.minKey() < best) {
+			if (forward.minKey() <= backward.minKey()) {
+				int u = forward.settle();
+				double du = forward.distance(u);
+				for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+					int v = g.target(e);
+					forward.relax(v, du + g.weight(e), u, e);
+					double through = forward.distance(v) + backward.distance(v);
+					if (through < best) {
+						best = through;
+						meet = v;
+					}
+				}
+			} else {
+				int v = backward.settle();
+				double dv = backward.distance(v);
+				for (int r = g.firstReverseEdge(v); r < g.endReverseEdge(v); r++) {
+					int u = g.reverseSource(r);
+					int e = g.reverseEdge(r);
+					backward.relax(u, dv + g.weight(e), v, e);
+					double through = forward.distance(u) + backward.distance(u);
+					if (through < best) {
+						best = through;
+						meet = u;
+					}
+				}
+			}
+		}
+		return meet;
+	}
+
+	/**
+	 * Runs a search from start that settles every node reachable from it.
+	 * 
+	 * @param start
+	 *            the id of the starting node
+	 * @param g
+	 *            the graph to search
+	 * @param space
+	 *            scratch state for the search
+	 * @requires space.capacity() >= g.nodeCount(), start is a node id of g
+	 * @modifies space
+	 * @effects space holds the least cost distance from start to every node
+	 *          and a tree of least cost paths from start
+	 */
+	public static void searchAll(int start, RoutingGraph g, SearchSpace space) {
+		dijkstra(start, -1, g, space);
+	}
+
+	/**
+	 * Finds the least cost distances from one Node to each of several Nodes
+	 * in a CompactGraph with a single search.
+	 * 
+	 * @param startN
+	 *            the starting node of the paths
+	 * @param destNs
+	 *            the destination nodes of the paths
+	 * @param g
+	 *            the snapshot that contains startN and every node of destNs
+	 * @param space
+	 *            scratch state for the search
+	 * @requires space.capacity() >= g.nodeCount()
+	 * @modifies space
+	 * @throws IllegalArgumentException
+	 *             if startN or a node of destNs is not contained in g
+	 * @return an array whose i-th entry is the least cost distance from
+	 *         startN to destNs.get(i), infinity if there is no path
+	 */
+	public static <E> double[] getDistances(Node<E> startN,
+			List<Node<E>> destNs, CompactGraph<E> g, SearchSpace space) {
+		int start = g.indexOf(startN);
+		if (start < 0) {
+			throw new IllegalArgumentException(
+					"Start must be contained in the given graph");
+		}
+		int[] dests = indexOf(destNs, g);
+		searchAll(start, dests, g, space);
+		double[] result = new double[dests.length];
+		for (int i = 0; i < dests.length; i++) {
+			result[i] = space.distance(dests[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the least cost distance from each of several Nodes to each of
+	 * several Nodes in a CompactGraph with one search per starting node.
+	 * 
+	 * @param startNs
+	 *            the starting nodes of the paths
+	 * @param destNs
+	 *            the destination nodes of the paths
+	 * @param g
+	 *            the snapshot that contains every node of startNs and destNs
+	 * @param space
+	 *            scratch state for the searches
+	 * @requires space.capacity() >= g.nodeCount()
+	 * @modifies space
+	 * @throws IllegalArgumentException
+	 *             if a node of startNs or destNs is not contained in g
+	 * @return a matrix whose entry [i][j] is the least cost distance from
+	 *         startNs.get(i) to destNs.get(j), infinity if there is no path
+	 */
+	public static <E> double[][] getDistanceMatrix(List<Node<E>> startNs,
+			List<Node<E>> destNs, CompactGraph<E> g, SearchSpace space) {
+		int[] starts = indexOf(startNs, g);
+		int[] dests = indexOf(destNs, g);
+		double[][] result = new double[starts.length][dests.length];
+		for (int i = 0; i < starts.length; i++) {
+			searchAll(starts[i], dests, g, space);
+			for (int j = 0; j < dests.length; j++) {
+				result[i][j] = space.distance(dests[j]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Runs a search from start until the least cost path to every node of
+	 * dests is known, or every node reachable from start is settled.
+	 * 
+	 * @param start
+	 *            the id of the starting node
+	 * @param dests
+	 *            the ids of the destination nodes, in any order and possibly
+	 *            with repeats
+	 * @param g
+	 *            the graph to search
+	 * @param space
+	 *            scratch state for the search
+	 * @requires space.capacity() >= g.nodeCount(), start and every element
+	 *           of dests are node ids of g
+	 * @modifies space
+	 * @effects space holds the least cost distance from start to every node
+	 *          of dests and a tree of least cost paths to them
+	 * @return the number of elements of dests that can be reached from start
+	 */
+	public static int searchAll(int start, int[] dests, RoutingGraph g,
+			SearchSpace space) {
+		space.reset();
+		space.addSource(start, 0);
+		int waiting = 0; // dests[0 .. waiting) are all settled
+		while (waiting < dests.length && !space.isEmpty()) {
+			int u = space.settle();
+			double du = space.distance(u);
+			for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+				space.relax(g.target(e), du + g.weight(e), u, e);
+			}
+			while (waiting < dests.length && space.isSettled(dests[waiting])) {
+				waiting++;
+			}
+		}
+		int reached = 0;
+		for (int v : dests) {
+			if (space.isSettled(v)) {
+				reached++;
+			}
+		}
+		return reached;
+	}
+
+	/**
+	 * Runs a search backward over the edges of g from dest that settles
+	 * every node dest is reachable from.
+	 * 
+	 * @param dest
+	 *            the id of the destination node
+	 * @param g
+	 *            the snapshot to search
+	 * @param space
+	 *            scratch state for the search
+	 * @requires space.capacity() >= g.nodeCount(), dest is a node id of g
+	 * @modifies space
+	 * @effects space holds the least cost distance from every node to dest,
+	 *          and the predecessors lead from every node towards dest over
+	 *          the edge ids of g
+	 */
+	public static void searchAllReverse(int dest, CompactGraph<?> g, SearchSpace space) {
+		space.reset();
+		space.addSource(dest, 0);
+		while (!space.isEmpty()) {
+			int v = space.settle();
+			double dv = space.distance(v);
+			for (int r = g.firstReverseEdge(v); r < g.endReverseEdge(v); r++) {
+				int e = g.reverseEdge(r);
+				space.relax(g.reverseSource(r), dv + g.weight(e), v, e);
+			}
+		}
+	}
+
+	//Plain Dijkstra search from start to dest, see search(). Settles every
+	//reachable node if dest is -1.
+	private static boolean dijkstra(int start, int dest, RoutingGraph g,
+			SearchSpace space) {
+		space.reset();
+		space.addSource(start, 0);
+		while (!space.isEmpty()) {
+			int u = space.settle();
+			if (u == dest) {
+				return true;
+			}
+			double du = space.distance(u);
+			for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+				space.relax(g.target(e), du + g.weight(e), u, e);
+			}
+		}
+		return false;
+	}
+
+	//Returns the ids of nodes in g, throws IllegalArgumentException if one of
+	//them is not contained in g
+	private static int[] indexOf(List<? extends Node<?>> nodes, CompactGraph<?> g) {
+		int[] ids = new int[nodes.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = g.indexOf(nodes.get(i));
+			if (ids[i] < 0) {
+				throw new IllegalArgumentException(
+						"Every node must be contained in the given graph: " + nodes.get(i));
+			}
+		}
+		return ids;
+	}
+
 	//Returns a Comparator<List<Edge<Double>>> to compare paths for the PriorityQueue
 	private static Comparator<List<Edge<Double>>> pathComparator() {
 		return new Comparator<List<Edge<Double>>>() {
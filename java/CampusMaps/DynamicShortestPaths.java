@@ -0,0 +1,381 @@
+package sample;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DynamicShortestPaths keeps a tree of least cost paths from each of a set
+ * of source nodes while the weights of the graph's edges change. The nodes
+ * and edges are those of a Graph<E,Double> when the DynamicShortestPaths
+ * is created; afterwards edge weights can be raised, lowered, or set to
+ * infinity to remove an edge, and each tree is repaired in place.
+ *
+ * Lowering a weight runs a search outward from the end of the edge that only
+ * visits nodes whose distance improves. Raising the weight of a tree edge
+ * clears the subtree below it, reconnects each cleared node through its
+ * cheapest incoming edge from outside the subtree and runs a search inside
+ * the subtree only. Raising the weight of an edge that no tree uses
+ * changes nothing.
+ *
+ * A DynamicShortestPaths works on its own copy of the graph and does not
+ * follow the Graph it was created from: weight changes must be made through
+ * setWeight and removeEdge, and changes made to the Graph afterwards are not
+ * seen. In particular CampusModel does not use it, and still rebuilds its
+ * snapshot and preprocessing whenever its Graph changes.
+ */
+public class DynamicShortestPaths<E> {
+	private CompactGraph<E> g;
+	private double[] weights;
+	private Map<E, Integer> rows;
+	private int[] sources;
+	private double[][] dist;
+	private int[][] predEdge;
+	private IndexedHeap heap;
+	private int[] mark;
+	private int markStamp;
+	private int[] affected;
+	private int lastRepaired;
+	// Abstraction function:
+	// The graph has the nodes and edges of g, with the current weight of
+	// edge e in weights[e]; an edge with an infinite weight is removed.
+	// sources[i] is the node id of the i-th source and rows maps the data
+	// of each source node to i. dist[i][v] is the least cost distance from
+	// sources[i] to v, infinity if there is no path, and predEdge[i][v] is the
+	// last edge of such a path, -1 for the source and unreachable nodes.
+	// lastRepaired counts the nodes whose distance was recomputed by the
+	// last change. heap, mark, markStamp and affected are scratch state.
+	// Representation invariant:
+	// g, weights, rows, sources, dist, predEdge, heap, mark, affected != null;
+	// weights.length == g.edgeCount(); rows.size() == sources.length ==
+	// dist.length == predEdge.length; every dist[i] and predEdge[i] has
+	// length g.nodeCount(); dist[i][sources[i]] == 0; every weight >= 0;
+	// heap is empty between calls.
+
+	/**
+	 * Computes a tree of least cost paths from every source.
+	 *
+	 * @param graph the graph to route in
+	 * @param sourceNodes the nodes that paths start from
+	 * @requires graph, sourceNodes != null, every edge of graph has a
+	 *           non-negative label
+	 * @throws IllegalArgumentException if a node of sourceNodes is not
+	 *             contained in graph
+	 * @effects creates a new DynamicShortestPaths over graph's current nodes
+	 *          and edges with a tree from every node of sourceNodes
+	 */
+	public DynamicShortestPaths(Graph<E, Double> graph, Collection<Node<E>> sourceNodes) {
+		g = CompactGraph.freeze(graph);
+		int n = g.nodeCount();
+		weights = new double[g.edgeCount()];
+		for (int e = 0; e < weights.length; e++) {
+			weights[e] = g.weight(e);
+		}
+		rows = new HashMap<E, Integer>(sourceNodes.size() * 2);
+		List<Integer> ids = new ArrayList<Integer>();
+		for (Node<E> s : sourceNodes) {
+			int id = g.indexOf(s);
+			if (id < 0) {
+				throw new IllegalArgumentException("Source must be contained in the graph: " + s);
+			}
+			if (!rows.containsKey(s.getData())) {
+				rows.put(s.getData(), ids.size());
+				ids.add(id);
+			}
+		}
+		sources = new int[ids.size()];
+		dist = new double[sources.length][];
+		predEdge = new int[sources.length][];
+		heap = new IndexedHeap(n);
+		mark = new int[n];
+		affected = new int[n];
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = ids.get(i);
+			dist[i] = new double[n];
+			predEdge[i] = new int[n];
+		}
+		recompute();
+	}
+
+	/**
+	 * Changes the weight of every edge from parent to child and repairs
+	 * every tree.
+	 *
+	 * @param parent the parent of the edges
+	 * @param child the child of the edges
+	 * @param weight the new weight, or infinity to remove the edges
+	 * @throws IllegalArgumentException if weight is negative or NaN, or if
+	 *             the graph has no edge from parent to child. Nothing is
+	 *             changed in either case.
+	 * @modifies this
+	 * @effects every edge from parent to child has weight weight, and every
+	 *          tree holds least cost paths under the new weights
+	 */
+	public void setWeight(Node<E> parent, Node<E> child, double weight) {
+		if (!(weight >= 0)) {
+			throw new IllegalArgumentException("Edge weights cannot be negative or NaN: " + weight);
+		}
+		int u = g.indexOf(parent);
+		int v = g.indexOf(child);
+		boolean found = false;
+		if (u >= 0 && v >= 0) {
+			lastRepaired = 0;
+			for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+				if (g.target(e) == v) {
+					found = true;
+					setWeight(e, weight);
+				}
+			}
+		}
+		if (!found) {
+			throw new IllegalArgumentException("No edge from " + parent + " to " + child);
+		}
+	}
+
+	/**
+	 * Removes every edge from parent to child and repairs every tree. The
+	 * edges can be restored with setWeight.
+	 *
+	 * @param parent the parent of the edges
+	 * @param child the child of the edges
+	 * @throws IllegalArgumentException if the graph has no edge from parent
+	 *             to child
+	 * @modifies this
+	 * @effects same as setWeight(parent, child, infinity)
+	 */
+	public void removeEdge(Node<E> parent, Node<E> child) {
+		setWeight(parent, child, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Throws away every tree and computes them again from scratch, as a
+	 * baseline for the cost of repairs.
+	 *
+	 * @modifies this
+	 * @effects every tree holds least cost paths under the current weights
+	 */
+	public void recompute() {
+		lastRepaired = 0;
+		for (int i = 0; i < sources.length; i++) {
+			Arrays.fill(dist[i], Double.POSITIVE_INFINITY);
+			Arrays.fill(predEdge[i], -1);
+			dist[i][sources[i]] = 0;
+			heap.push(sources[i], 0);
+			lastRepaired += propagate(dist[i], predEdge[i]);
+		}
+		checkRep();
+	}
+
+	/**
+	 * @param source a source node
+	 * @param dest any node of the graph
+	 * @throws IllegalArgumentException if source is not a source or dest is
+	 *             not contained in the graph
+	 * @return the least cost distance from source to dest under the current
+	 *         weights, infinity if there is no path
+	 */
+	public double getDistance(Node<E> source, Node<E> dest) {
+		return dist[row(source)][node(dest)];
+	}
+
+	/**
+	 * @param source a source node
+	 * @param dest any node of the graph
+	 * @throws IllegalArgumentException if source is not a source or dest is
+	 *             not contained in the graph
+	 * @return a List of Edge<Double> representing a least cost path from
+	 *         source to dest, labelled with the current weights. Returns
+	 *         null if there is no path.
+	 */
+	public List<Edge<Double>> getPath(Node<E> source, Node<E> dest) {
+		int i = row(source);
+		int v = node(dest);
+		if (dist[i][v] == Double.POSITIVE_INFINITY) {
+			return null;
+		}
+		List<Edge<Double>> path = new ArrayList<Edge<Double>>();
+		for (int e = predEdge[i][v]; e >= 0; e = predEdge[i][v]) {
+			int u = g.source(e);
+			path.add(new Edge<Double>(g.getNode(u), g.getNode(v), weights[e]));
+			v = u;
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 *
+	 * @return the number of source nodes
+	 */
+	public int getSourceCount() {
+		return sources.length;
+	}
+
+	/**
+	 *
+	 * @return the number of (tree, node) distances recomputed by the last
+	 *         change or recompute()
+	 */
+	public int getLastRepairSize() {
+		return lastRepaired;
+	}
+
+	//Sets the weight of edge e and repairs every tree
+	private void setWeight(int e, double weight) {
+		double old = weights[e];
+		weights[e] = weight;
+		if (weight < old) {
+			for (int i = 0; i < sources.length; i++) {
+				lastRepaired += decrease(dist[i], predEdge[i], e);
+			}
+		} else if (weight > old) {
+			for (int i = 0; i < sources.length; i++) {
+				lastRepaired += increase(dist[i], predEdge[i], e);
+			}
+		}
+		checkRepAfter(e);
+	}
+
+	//Repairs one tree after the weight of edge e was lowered. Returns the
+	//number of nodes whose distance changed.
+	private int decrease(double[] d, int[] pred, int e) {
+		int u = g.source(e);
+		int v = g.target(e);
+		double through = d[u] + weights[e];
+		if (through >= d[v]) {
+			return 0;
+		}
+		d[v] = through;
+		pred[v] = e;
+		heap.push(v, through);
+		return propagate(d, pred);
+	}
+
+	//Repairs one tree after the weight of edge e was raised. Returns the
+	//number of nodes whose distance was recomputed.
+	private int increase(double[] d, int[] pred, int e) {
+		int v = g.target(e);
+		if (pred[v] != e) {
+			return 0;
+		}
+		// the subtree is listed in order of discovery, so affected[next, count)
+		// is the part whose children have not been visited yet
+		markStamp++;
+		affected[0] = v;
+		mark[v] = markStamp;
+		int count = 1;
+		for (int next = 0; next < count; next++) {
+			int x = affected[next];
+			for (int f = g.firstEdge(x); f < g.endEdge(x); f++) {
+				int y = g.target(f);
+				if (pred[y] == f && mark[y] != markStamp) {
+					mark[y] = markStamp;
+					affected[count++] = y;
+				}
+			}
+		}
+		return reattach(d, pred, count);
+	}
+
+	//Reconnects the marked subtree listed in affected[0, count) to the rest
+	//of the tree and settles it. Returns count.
+	private int reattach(double[] d, int[] pred, int count) {
+		for (int k = 0; k < count; k++) {
+			d[affected[k]] = Double.POSITIVE_INFINITY;
+			pred[affected[k]] = -1;
+		}
+		for (int k = 0; k < count; k++) {
+			int x = affected[k];
+			for (int r = g.firstReverseEdge(x); r < g.endReverseEdge(x); r++) {
+				int p = g.reverseSource(r);
+				int f = g.reverseEdge(r);
+				if (mark[p] != markStamp && d[p] + weights[f] < d[x]) {
+					d[x] = d[p] + weights[f];
+					pred[x] = f;
+				}
+			}
+			if (d[x] < Double.POSITIVE_INFINITY) {
+				heap.push(x, d[x]);
+			}
+		}
+		propagate(d, pred);
+		return count;
+	}
+
+	//Settles the nodes in heap and every node whose distance they improve.
+	//Returns the number of nodes settled.
+	private int propagate(double[] d, int[] pred) {
+		int settled = 0;
+		while (!heap.isEmpty()) {
+			int x = heap.pop();
+			settled++;
+			double dx = d[x];
+			for (int f = g.firstEdge(x); f < g.endEdge(x); f++) {
+				int y = g.target(f);
+				double through = dx + weights[f];
+				if (through < d[y]) {
+					d[y] = through;
+					pred[y] = f;
+					heap.push(y, through);
+				}
+			}
+		}
+		return settled;
+	}
+
+	//Returns the row of a source node, throws IllegalArgumentException if n
+	//is not a source
+	private int row(Node<E> n) {
+		Integer row = rows.get(n.getData());
+		if (row == null) {
+			throw new IllegalArgumentException("Not a source: " + n);
+		}
+		return row;
+	}
+
+	//Returns the id of a node, throws IllegalArgumentException if n is not
+	//in the graph
+	private int node(Node<E> n) {
+		int id = g.indexOf(n);
+		if (id < 0) {
+			throw new IllegalArgumentException("Node must be contained in the graph: " + n);
+		}
+		return id;
+	}
+
+	/** Checks that the representation invariant holds */
+	private void checkRep() throws RuntimeException {
+		checkRepAfter(-1);
+		for (double w : weights) {
+			if (!(w >= 0)) {
+				throw new RuntimeException("Edge weights cannot be negative or NaN");
+			}
+		}
+	}
+
+	/**
+	 * Checks the representation invariant after the weight of edge e
+	 * changed, looking at that weight only instead of every edge. e == -1
+	 * checks no weight.
+	 */
+	private void checkRepAfter(int e) throws RuntimeException {
+		if (weights.length != g.edgeCount() || rows.size() != sources.length) {
+			throw new RuntimeException("Every edge needs a weight and every source a row");
+		}
+		if (!heap.isEmpty()) {
+			throw new RuntimeException("Scratch heap must be empty between calls");
+		}
+		for (int i = 0; i < sources.length; i++) {
+			if (dist[i][sources[i]] != 0) {
+				throw new RuntimeException("A source must be at distance 0 from itself");
+			}
+		}
+		if (e >= 0 && !(weights[e] >= 0)) {
+			throw new RuntimeException("Edge weights cannot be negative or NaN");
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package sample;
+
+/**
+ * EuclideanHeuristic is an immutable Heuristic over a CompactGraph of
+ * CampusLocations that bounds path lengths by the straight line distance
+ * between two locations.
+ *
+ * The map coordinates and the path distances do not share a unit, so the
+ * straight line distance is multiplied by the smallest ratio of edge weight
+ * to edge length found in the graph. No edge is shorter than its scaled
+ * straight line, which keeps the bound consistent.
+ */
+public class EuclideanHeuristic implements Heuristic {
+	private double[] xs;
+	private double[] ys;
+	private double scale;
+	// Abstraction function:
+	// (xs[v], ys[v]) is the location of node v and estimate(u, t) is scale
+	// times the straight line distance from u to t.
+	// Representation invariant:
+	// xs, ys != null, xs.length == ys.length, 0 <= scale,
+	// for every edge e from u to v of the graph,
+	// scale * dist(u, v) <= weight(e)
+
+	/**
+	 * @param g the graph to estimate path lengths in
+	 * @requires g != null
+	 * @effects creates a new EuclideanHeuristic for g with the largest
+	 * scale that no edge of g is shorter than
+	 */
+	public EuclideanHeuristic(CompactGraph<CampusLocation> g) {
+		xs = new double[g.nodeCount()];
+		ys = new double[g.nodeCount()];
+		for (int v = 0; v < g.nodeCount(); v++) {
+			CampusLocation l = g.getNode(v).getData();
+			xs[v] = l.getX();
+			ys[v] = l.getY();
+		}
+		scale = Double.POSITIVE_INFINITY;
+		for (int u = 0; u < g.nodeCount(); u++) {
+			for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+				double length = Math.hypot(xs[g.target(e)] - xs[u], ys[g.target(e)] - ys[u]);
+				if (length > 0) {
+					scale = Math.min(scale, g.weight(e) / length);
+				}
+			}
+		}
+		if (scale == Double.POSITIVE_INFINITY) {
+			scale = 0;
+		}
+		scale *= 1 - 1e-9; // leave room for rounding in estimate()
+		checkRep(g);
+	}
+
+	/**
+	 *
+	 * @return the number of path distance units per unit of map distance
+	 * used by the estimate
+	 */
+	public double getScale() {
+		return scale;
+	}
+
+	/**
+	 * @param node the id of a node
+	 * @param target the id of the destination node
+	 * @return scale times the straight line distance from node to target
+	 */
+	@Override
+	public double estimate(int node, int target) {
+		double dx = xs[node] - xs[target];
+		double dy = ys[node] - ys[target];
+		return scale * Math.sqrt(dx * dx + dy * dy);
+	}
+
+	/** Checks that the representation invariant holds */
+	private void checkRep(CompactGraph<CampusLocation> g) throws RuntimeException {
+		if (scale < 0) {
+			throw new RuntimeException("scale cannot be negative");
+		}
+		for (int u = 0; u < g.nodeCount(); u++) {
+			for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+				if (estimate(u, g.target(e)) > g.weight(e)) {
+					throw new RuntimeException("Edge is shorter than its estimate: " + g.getEdge(u, e));
+				}
+			}
+		}
+	}
+}
@@ -2,11 +2,13 @@ package sample;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Graph represents a mutable collection of Nodes and Edges that connect the
@@ -20,15 +22,29 @@ import java.util.Set;
  * and Edges containing labels of type S
  */
 public class Graph<E,S> {
+	// The full representation check walks every node and edge, so after a
+	// single change it only runs when assertions are enabled (java -ea, as
+	// the tests are run). Otherwise only the lists the change touched are
+	// checked.
+	private static final boolean DEBUG = Graph.class.desiredAssertionStatus();
+
 	private Map<Node<E>, ArrayList<Edge<S>>> g;
+	private Map<Node<E>, ArrayList<Edge<S>>> in;
+	private int version;
 
 	// Abstraction function:
 	// Graph g represents a graph where each node in the graph is stored as
 	// a key in g and maps to a list of edges that have that node as a parent.
+	// in indexes the same edges by child: each node maps to the list of edges
+	// that have that node as a child.
+	// version counts the changes made to the graph since it was created.
 	// Representation invariant:
-	// g != null; for all Node n in g.keySet(), g.get(n) != null
+	// g != null; in != null; g.keySet().equals(in.keySet());
+	// for all Node n in g.keySet(), g.get(n) != null && in.get(n) != null
 	// for all Edge e in g, g.contains(e.getParent()) &&
 	// g.contains(e.getChild())
+	// every Edge appears in in.get(e.getChild()) as many times as it
+	// appears in g.get(e.getParent())
 
 	/**
 	 * Constructs a new empty Graph
@@ -37,6 +53,7 @@ public class Graph<E,S> {
 	 */
 	public Graph() {
 		g = new HashMap<Node<E>, ArrayList<Edge<S>>>();
+		in = new HashMap<Node<E>, ArrayList<Edge<S>>>();
 		checkRep();
 	}
 
@@ -50,7 +67,9 @@ public class Graph<E,S> {
 		this();
 		Iterator<Node<E>> i = nodes.iterator();
 		while (i.hasNext()) {
-			g.put(i.next(), new ArrayList<Edge<S>>());
+			Node<E> n = i.next();
+			g.put(n, new ArrayList<Edge<S>>());
+			in.put(n, new ArrayList<Edge<S>>());
 		}
 		checkRep();
 	}
@@ -68,10 +87,29 @@ public class Graph<E,S> {
 		for (int i = 0; i < edges.size(); i++) {
 			Edge<S> e = edges.get(i);
 			g.get(e.getParent()).add(e);
+			in.get(e.getChild()).add(e);
 		}
 		checkRep();
 	}
 
+	/**
+	 * Creates a graph over adjacency maps filled in by a GraphBuilder and
+	 * checks the representation invariant once.
+	 * 
+	 * @param g
+	 *            map from each node to the edges that have it as a parent
+	 * @param in
+	 *            map from each node to the edges that have it as a child
+	 * @requires g and in hold the same edges and are not used by the caller
+	 *           afterwards
+	 * @effects creates a graph containing the nodes and edges in g
+	 */
+	Graph(Map<Node<E>, ArrayList<Edge<S>>> g, Map<Node<E>, ArrayList<Edge<S>>> in) {
+		this.g = g;
+		this.in = in;
+		checkRep();
+	}
+
 	/**
 	 * Returns the collection of Node's in the graph.
 	 * 
@@ -88,8 +126,8 @@ public class Graph<E,S> {
 	 */
 	public List<Edge<S>> getEdges() {
 		List<Edge<S>> res = new ArrayList<Edge<S>>();
-		for (Node<E> n : g.keySet()) {
-			res.addAll(g.get(n));
+		for (ArrayList<Edge<S>> children : g.values()) {
+			res.addAll(children);
 		}
 		return res;
 	}
@@ -113,6 +151,88 @@ public class Graph<E,S> {
 		return res;
 	}
 
+	/**
+	 * Returns a read-only view of the Edges that have a given Node as a
+	 * parent. Unlike getChildren the edges are not copied, so the view
+	 * reflects later changes to the graph and must not be iterated while
+	 * the graph is being changed.
+	 * 
+	 * @param n
+	 *            the parent Node of the children to be returned
+	 * @requires n != null
+	 * @throws IllegalArgumentException
+	 *             if n is not contained in the graph.
+	 * @return an unmodifiable list of all Edges that have n as a parent Node
+	 */
+	public List<Edge<S>> getChildrenView(Node<?> n) {
+		List<Edge<S>> children = g.get(n);
+		if (children == null) {
+			throw new IllegalArgumentException();
+		}
+		return Collections.unmodifiableList(children);
+	}
+
+	/**
+	 * Returns a read-only view of the Edges that have a given Node as a
+	 * child, read from the index of incoming edges. Like getChildrenView
+	 * the view reflects later changes to the graph.
+	 * 
+	 * @param n
+	 *            the child Node of the parents to be returned
+	 * @requires n != null
+	 * @throws IllegalArgumentException
+	 *             if n is not contained in the graph.
+	 * @return an unmodifiable list of all Edges that have n as a child Node
+	 */
+	List<Edge<S>> getParentsView(Node<?> n) {
+		List<Edge<S>> parents = in.get(n);
+		if (parents == null) {
+			throw new IllegalArgumentException();
+		}
+		return Collections.unmodifiableList(parents);
+	}
+
+	/**
+	 * Performs an action for each Edge that has a given Node as a parent,
+	 * without copying the edges.
+	 * 
+	 * @param n
+	 *            the parent Node of the children to visit
+	 * @param action
+	 *            the action to perform on each child Edge
+	 * @requires n != null, action != null, action does not change the graph
+	 * @throws IllegalArgumentException
+	 *             if n is not contained in the graph.
+	 * @effects calls action.accept(e) for every Edge e that has n as a
+	 *          parent, in the order getChildren(n) returns them
+	 */
+	public void forEachChild(Node<?> n, Consumer<? super Edge<S>> action) {
+		List<Edge<S>> children = g.get(n);
+		if (children == null) {
+			throw new IllegalArgumentException();
+		}
+		for (int i = 0; i < children.size(); i++) {
+			action.accept(children.get(i));
+		}
+	}
+
+	/**
+	 * Performs an action for each Edge in the graph, without copying the
+	 * edges.
+	 * 
+	 * @param action
+	 *            the action to perform on each Edge
+	 * @requires action != null, action does not change the graph
+	 * @effects calls action.accept(e) for every Edge e in the graph
+	 */
+	public void forEachEdge(Consumer<? super Edge<S>> action) {
+		for (ArrayList<Edge<S>> children : g.values()) {
+			for (int i = 0; i < children.size(); i++) {
+				action.accept(children.get(i));
+			}
+		}
+	}
+
 	/**
 	 * Counts children of a given node
 	 * 
@@ -125,10 +245,11 @@ public class Graph<E,S> {
 	 *         connects to
 	 */
 	public int getNumChildren(Node<E> n) {
-		if (!this.containsNode(n)) {
+		List<Edge<S>> children = g.get(n);
+		if (children == null) {
 			throw new IllegalArgumentException();
 		}
-		return g.get(n).size();
+		return children.size();
 	}
 
 	/**
@@ -143,13 +264,16 @@ public class Graph<E,S> {
 	public void addNode(Node<E> n) {
 		if (!this.containsNode(n)) {
 			g.put(n, new ArrayList<Edge<S>>());
+			in.put(n, new ArrayList<Edge<S>>());
+			version++;
 		}
-		checkRep();
+		checkRepAfter(Collections.<Node<?>>singleton(n));
 	}
 
 	/**
 	 * Removes a given node from the graph and all edges that pointed to the
-	 * given node.
+	 * given node. Takes time proportional to the number of edges of the node
+	 * and of the nodes it is connected to, each of which is scanned once.
 	 * 
 	 * @param n
 	 *            Node to be removed from the Graph
@@ -163,14 +287,28 @@ public class Graph<E,S> {
 		if (!this.containsNode(n)) {
 			throw new IllegalArgumentException();
 		}
-		List<Edge<S>> ed = this.getEdges();
-		for (Edge<S> e : ed) {
-			if (e.getChild().equals(n)) {
-				removeEdge(e);
-			}
+		Set<Node<?>> parents = new HashSet<Node<?>>();
+		for (Edge<S> e : in.remove(n)) {
+			parents.add(e.getParent());
 		}
-		g.remove(n);
-		checkRep();
+		Set<Node<?>> children = new HashSet<Node<?>>();
+		for (Edge<S> e : g.remove(n)) {
+			children.add(e.getChild());
+		}
+		parents.remove(n);
+		children.remove(n);
+		for (Node<?> p : parents) {
+			g.get(p).removeIf(e -> e.getChild().equals(n));
+		}
+		for (Node<?> c : children) {
+			in.get(c).removeIf(e -> e.getParent().equals(n));
+		}
+		version++;
+		if (g.containsKey(n) || in.containsKey(n)) {
+			throw new RuntimeException("Removed node must not be in the graph");
+		}
+		parents.addAll(children);
+		checkRepAfter(parents);
 	}
 
 	/**
@@ -192,6 +330,9 @@ public class Graph<E,S> {
 			throw new IllegalArgumentException();
 		}
 		g.get(e.getParent()).add(e);
+		in.get(e.getChild()).add(e);
+		version++;
+		checkRepAfter(endpoints(e));
 	}
 
 	/**
@@ -211,9 +352,52 @@ public class Graph<E,S> {
 			throw new IllegalArgumentException();
 		}
 		g.get(e.getParent()).remove(e);
+		in.get(e.getChild()).remove(e);
+		version++;
+		checkRepAfter(endpoints(e));
+	}
+
+	/**
+	 * Adds every node and edge of another graph to this one, checking the
+	 * representation invariant once at the end instead of after every
+	 * addition. Edges already in this graph are duplicated, as by addEdge.
+	 * 
+	 * @param other
+	 *            the graph whose nodes and edges are added
+	 * @requires other != null, other != this
+	 * @modifies this
+	 * @effects adds the nodes of other that are not already in the graph,
+	 *          then every edge of other
+	 */
+	void addAll(Graph<E,S> other) {
+		for (Node<E> n : other.g.keySet()) {
+			if (!g.containsKey(n)) {
+				g.put(n, new ArrayList<Edge<S>>(other.g.get(n).size()));
+				in.put(n, new ArrayList<Edge<S>>(other.in.get(n).size()));
+			}
+		}
+		for (ArrayList<Edge<S>> children : other.g.values()) {
+			for (int i = 0; i < children.size(); i++) {
+				Edge<S> e = children.get(i);
+				g.get(e.getParent()).add(e);
+				in.get(e.getChild()).add(e);
+			}
+		}
+		version++;
 		checkRep();
 	}
 
+	/**
+	 * Returns a number that changes whenever the graph changes, so that
+	 * data computed from the graph can tell when it is out of date.
+	 * 
+	 * @return the number of times a node or edge has been added to or
+	 *         removed from the graph
+	 */
+	public int getVersion() {
+		return version;
+	}
+
 	/**
 	 * Returns true if the graph is empty, False otherwise.
 	 * 
@@ -248,8 +432,24 @@ public class Graph<E,S> {
 
 	/** Checks that the representation invariant holds */
 	private void checkRep() throws RuntimeException {
-		if (g == null) {
-			throw new RuntimeException("g cannot be null");
+		if (g == null || in == null) {
+			throw new RuntimeException("g and in cannot be null");
+		}
+		if (!g.keySet().equals(in.keySet())) {
+			throw new RuntimeException("Every node must index its incoming edges");
+		}
+		int incoming = 0;
+		for (Node<E> n : in.keySet()) {
+			if (in.get(n) == null) {
+				throw new RuntimeException(
+						"Each node must map to non null list");
+			}
+			for (Edge<S> e : in.get(n)) {
+				if (!(e.getChild().equals(n))) {
+					throw new RuntimeException("Node must index edges with itself as the child");
+				}
+				incoming++;
+			}
 		}
 		for (Node<E> n : g.keySet()) {
 			if (g.get(n) == null) {
@@ -265,6 +465,55 @@ public class Graph<E,S> {
 					throw new RuntimeException(
 							"Parent and child must be contained in graph");
 				}
+				incoming--;
+			}
+		}
+		if (incoming != 0) {
+			throw new RuntimeException("Every edge must be indexed by its child");
+		}
+	}
+
+	/**
+	 * Checks the representation invariant after a change to the edges of
+	 * the given nodes: all of it when assertions are enabled, otherwise
+	 * only the part that concerns those nodes
+	 */
+	private void checkRepAfter(Set<Node<?>> touched) throws RuntimeException {
+		if (DEBUG) {
+			checkRep();
+		} else {
+			checkRepAround(touched);
+		}
+	}
+
+	//Returns the set of the parent and child of e
+	private static Set<Node<?>> endpoints(Edge<?> e) {
+		Set<Node<?>> result = new HashSet<Node<?>>();
+		result.add(e.getParent());
+		result.add(e.getChild());
+		return result;
+	}
+
+	/**
+	 * Checks the part of the representation invariant that concerns the
+	 * edges of the given nodes, in time proportional to their number
+	 */
+	private void checkRepAround(Set<Node<?>> nodes) throws RuntimeException {
+		for (Node<?> n : nodes) {
+			List<Edge<S>> children = g.get(n);
+			List<Edge<S>> parents = in.get(n);
+			if (children == null || parents == null) {
+				throw new RuntimeException("Each node must map to non null lists");
+			}
+			for (Edge<S> e : children) {
+				if (!e.getParent().equals(n) || !g.containsKey(e.getChild())) {
+					throw new RuntimeException("Node must map to edges from itself to nodes in the graph");
+				}
+			}
+			for (Edge<S> e : parents) {
+				if (!e.getChild().equals(n) || !g.containsKey(e.getParent())) {
+					throw new RuntimeException("Node must index edges to itself from nodes in the graph");
+				}
 			}
 		}
 	}
@@ -0,0 +1,170 @@
+package sample;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * GraphBuilder collects nodes and edges in bulk and turns them into a Graph
+ * in one step. Nodes may be added any number of times and are stored once,
+ * and edges may be added before the nodes they connect. The adjacency lists
+ * of the new Graph are sized exactly and its representation invariant is
+ * checked once, by build(), instead of after every addition.
+ * 
+ * GraphBuilder<E,S> builds a Graph<E,S>. A GraphBuilder can build only one
+ * Graph.
+ */
+public class GraphBuilder<E,S> {
+	private Map<Node<E>, int[]> degrees;
+	private List<Edge<S>> edges;
+	private boolean built;
+	// Abstraction function:
+	// The graph being built contains the nodes degrees.keySet() and the edges
+	// in edges. built is true iff build() has been called.
+	// Representation invariant:
+	// degrees != null, edges != null, no value in degrees is null
+
+	/**
+	 * @effects creates a new GraphBuilder with no nodes and no edges
+	 */
+	public GraphBuilder() {
+		degrees = new LinkedHashMap<Node<E>, int[]>();
+		edges = new ArrayList<Edge<S>>();
+	}
+
+	/**
+	 * @param expectedNodes the number of distinct nodes expected
+	 * @param expectedEdges the number of edges expected
+	 * @effects creates a new GraphBuilder with no nodes and no edges and
+	 *          room for the given number of nodes and edges
+	 */
+	public GraphBuilder(int expectedNodes, int expectedEdges) {
+		degrees = new LinkedHashMap<Node<E>, int[]>(expectedNodes * 4 / 3 + 1);
+		edges = new ArrayList<Edge<S>>(expectedEdges);
+	}
+
+	/**
+	 * @param n the node to add
+	 * @requires n != null
+	 * @throws IllegalStateException if build() has been called
+	 * @modifies this
+	 * @effects n is added unless an equal node has already been added
+	 * @return this
+	 */
+	public GraphBuilder<E,S> addNode(Node<E> n) {
+		checkNotBuilt();
+		if (!degrees.containsKey(n)) {
+			degrees.put(n, new int[2]);
+		}
+		return this;
+	}
+
+	/**
+	 * @param nodes the nodes to add
+	 * @requires nodes != null and contains no null elements
+	 * @throws IllegalStateException if build() has been called
+	 * @modifies this
+	 * @effects every node in nodes is added unless an equal node has already
+	 *          been added
+	 * @return this
+	 */
+	public GraphBuilder<E,S> addNodes(Iterable<Node<E>> nodes) {
+		for (Node<E> n : nodes) {
+			addNode(n);
+		}
+		return this;
+	}
+
+	/**
+	 * @param e the edge to add
+	 * @requires e != null, e.getParent() and e.getChild() are added before
+	 *           build() is called
+	 * @throws IllegalStateException if build() has been called
+	 * @modifies this
+	 * @effects e is added to the graph being built, even if it is a
+	 *          duplicate of an edge already added
+	 * @return this
+	 */
+	public GraphBuilder<E,S> addEdge(Edge<S> e) {
+		checkNotBuilt();
+		edges.add(e);
+		return this;
+	}
+
+	/**
+	 * @param es the edges to add
+	 * @requires es != null and contains no null elements
+	 * @throws IllegalStateException if build() has been called
+	 * @modifies this
+	 * @effects every edge in es is added
+	 * @return this
+	 */
+	public GraphBuilder<E,S> addEdges(Iterable<Edge<S>> es) {
+		for (Edge<S> e : es) {
+			addEdge(e);
+		}
+		return this;
+	}
+
+	/**
+	 * @param es the edges to add
+	 * @requires es != null and contains no null elements
+	 * @throws IllegalStateException if build() has been called
+	 * @modifies this, es
+	 * @effects every edge in es is added and es is consumed
+	 * @return this
+	 */
+	public GraphBuilder<E,S> addEdges(Stream<Edge<S>> es) {
+		checkNotBuilt();
+		es.forEachOrdered(edges::add);
+		return this;
+	}
+
+	/**
+	 * Creates the Graph holding every node and edge added.
+	 * 
+	 * @throws IllegalStateException if build() has already been called
+	 * @throws IllegalArgumentException if the parent or child of an added
+	 *             edge was never added as a node
+	 * @modifies this
+	 * @return a new Graph containing the added nodes and edges
+	 */
+	public Graph<E,S> build() {
+		checkNotBuilt();
+		built = true;
+		for (Edge<S> e : edges) {
+			int[] parent = degrees.get(e.getParent());
+			int[] child = degrees.get(e.getChild());
+			if (parent == null || child == null) {
+				throw new IllegalArgumentException(
+						"Parent and child must be added as nodes: " + e);
+			}
+			parent[0]++;
+			child[1]++;
+		}
+		int capacity = degrees.size() * 4 / 3 + 1;
+		Map<Node<E>, ArrayList<Edge<S>>> out = new HashMap<Node<E>, ArrayList<Edge<S>>>(capacity);
+		Map<Node<E>, ArrayList<Edge<S>>> in = new HashMap<Node<E>, ArrayList<Edge<S>>>(capacity);
+		for (Map.Entry<Node<E>, int[]> entry : degrees.entrySet()) {
+			out.put(entry.getKey(), new ArrayList<Edge<S>>(entry.getValue()[0]));
+			in.put(entry.getKey(), new ArrayList<Edge<S>>(entry.getValue()[1]));
+		}
+		for (Edge<S> e : edges) {
+			out.get(e.getParent()).add(e);
+			in.get(e.getChild()).add(e);
+		}
+		degrees = null;
+		edges = null;
+		return new Graph<E,S>(out, in);
+	}
+
+	//Throws IllegalStateException if build() has been called
+	private void checkNotBuilt() {
+		if (built) {
+			throw new IllegalStateException("GraphBuilder has already built its graph");
+		}
+	}
+}
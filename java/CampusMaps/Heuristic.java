@@ -0,0 +1,19 @@
+package sample;
+
+/**
+ * A Heuristic gives a lower bound on the length of the least cost path
+ * between two nodes of a RoutingGraph. Dijkstra uses it to settle the nodes
+ * that lead towards the destination first.
+ *
+ * An implementation must be consistent: for every edge e from u to v,
+ * estimate(u, t) <= weight(e) + estimate(v, t), and estimate(t, t) == 0.
+ */
+public interface Heuristic {
+
+	/**
+	 * @param node the id of a node
+	 * @param target the id of the destination node
+	 * @return a lower bound on the length of every path from node to target
+	 */
+	double estimate(int node, int target);
+}
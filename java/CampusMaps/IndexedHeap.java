@@ -0,0 +1,166 @@
+package sample;
+
+import java.util.Arrays;
+
+/**
+ * IndexedHeap is a mutable 4-ary min heap of node ids in the range
+ * [0, capacity) ordered by a double key. Each id is contained at most once
+ * and the key of a contained id can be lowered in place, so searches never
+ * hold stale entries.
+ */
+public class IndexedHeap {
+	private static final int ARITY = 4;
+
+	private int[] heap;
+	private double[] keys;
+	private int[] pos;
+	private int size;
+	// Abstraction function:
+	// IndexedHeap h holds the ids heap[0] ... heap[size - 1] where the key of
+	// heap[i] is keys[i]. pos[id] is the index of id in heap, or -1 if id is
+	// not contained in h.
+	// Representation invariant:
+	// heap, keys, pos != null; heap.length == keys.length == pos.length;
+	// 0 <= size <= heap.length; for all 0 <= i < size, pos[heap[i]] == i;
+	// for all 0 < i < size, keys[(i - 1) / ARITY] <= keys[i];
+	// every id not in heap[0 .. size - 1] has pos[id] == -1
+
+	/**
+	 * @param capacity one more than the largest id that will be pushed
+	 * @requires capacity >= 0
+	 * @effects creates a new empty IndexedHeap for ids in [0, capacity)
+	 */
+	public IndexedHeap(int capacity) {
+		heap = new int[capacity];
+		keys = new double[capacity];
+		pos = new int[capacity];
+		Arrays.fill(pos, -1);
+		size = 0;
+	}
+
+	/**
+	 *
+	 * @return true iff the heap contains no ids
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 *
+	 * @return the number of ids in the heap
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param id the id to look for
+	 * @requires 0 <= id < capacity
+	 * @return true iff id is in the heap
+	 */
+	public boolean contains(int id) {
+		return pos[id] >= 0;
+	}
+
+	/**
+	 * Inserts an id or lowers its key if it is already contained.
+	 *
+	 * @param id the id to insert
+	 * @param key the key of id
+	 * @requires 0 <= id < capacity, if id is contained key is no greater
+	 *           than its current key
+	 * @modifies this
+	 * @effects id is in the heap with the given key
+	 */
+	public void push(int id, double key) {
+		int i = pos[id];
+		if (i < 0) {
+			i = size++;
+		}
+		siftUp(i, id, key);
+	}
+
+	/**
+	 * @requires !isEmpty()
+	 * @return the smallest key in the heap
+	 */
+	public double minKey() {
+		return keys[0];
+	}
+
+	/**
+	 * Removes the id with the smallest key.
+	 *
+	 * @requires !isEmpty()
+	 * @modifies this
+	 * @return the id that had the smallest key
+	 */
+	public int pop() {
+		int min = heap[0];
+		pos[min] = -1;
+		size--;
+		if (size > 0) {
+			siftDown(0, heap[size], keys[size]);
+		}
+		return min;
+	}
+
+	/**
+	 * Removes every id from the heap in time proportional to its size.
+	 *
+	 * @modifies this
+	 * @effects this is empty
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			pos[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	//Moves id with the given key from slot i towards the root until its
+	//parent key is no greater.
+	private void siftUp(int i, int id, double key) {
+		while (i > 0) {
+			int parent = (i - 1) / ARITY;
+			if (keys[parent] <= key) {
+				break;
+			}
+			place(i, heap[parent], keys[parent]);
+			i = parent;
+		}
+		place(i, id, key);
+	}
+
+	//Moves id with the given key from slot i towards the leaves until no
+	//child has a smaller key.
+	private void siftDown(int i, int id, double key) {
+		while (true) {
+			int first = i * ARITY + 1;
+			if (first >= size) {
+				break;
+			}
+			int best = first;
+			int last = Math.min(first + ARITY, size);
+			for (int c = first + 1; c < last; c++) {
+				if (keys[c] < keys[best]) {
+					best = c;
+				}
+			}
+			if (keys[best] >= key) {
+				break;
+			}
+			place(i, heap[best], keys[best]);
+			i = best;
+		}
+		place(i, id, key);
+	}
+
+	//Stores id with the given key in slot i
+	private void place(int i, int id, double key) {
+		heap[i] = id;
+		keys[i] = key;
+		pos[id] = i;
+	}
+}
@@ -0,0 +1,268 @@
+package sample;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Isochrone finds every node of a CompactGraph<CampusLocation> within a
+ * given walking distance of an origin. The search settles nodes in order of
+ * distance like Dijkstra's algorithm and stops expanding as soon as the next
+ * node is farther than the radius, so a query only touches the nodes inside
+ * the radius and the edges leaving them.
+ *
+ * The reached nodes and their distances are kept in arrays that are
+ * allocated once and reused by every search, so repeated queries from
+ * different origins allocate nothing. An Isochrone must not be shared
+ * between threads.
+ */
+public class Isochrone {
+	private CompactGraph<CampusLocation> g;
+	private SearchSpace space;
+	private int[] reached;
+	private double[] distances;
+	private int count;
+	private double radius;
+	private double[] xs;
+	private double[] ys;
+	private int[] ids;
+	private int[] hull;
+	// Abstraction function:
+	// The last search reached the count nodes reached[0, count) of g, at
+	// least cost distances distances[0, count) from its origin, in
+	// increasing order of distance, and every other node is farther than
+	// radius. space is scratch state, and so are xs, ys, ids and hull, which
+	// are null until the first call to getHull.
+	// Representation invariant:
+	// g, space, reached, distances != null;
+	// reached.length == distances.length == g.nodeCount() <= space.capacity();
+	// 0 <= count <= reached.length; distances[0, count) is non-decreasing
+	// and no greater than radius.
+
+	/**
+	 * @param g the graph to search
+	 * @requires g != null
+	 * @effects creates a new Isochrone over g that has reached no nodes
+	 */
+	public Isochrone(CompactGraph<CampusLocation> g) {
+		this.g = g;
+		space = new SearchSpace(g.nodeCount());
+		reached = new int[g.nodeCount()];
+		distances = new double[g.nodeCount()];
+		checkRep();
+	}
+
+	/**
+	 *
+	 * @return the graph searched
+	 */
+	public CompactGraph<CampusLocation> getGraph() {
+		return g;
+	}
+
+	/**
+	 * Finds every node whose least cost distance from origin is at most
+	 * radius.
+	 *
+	 * @param origin the node to measure distances from
+	 * @param radius the largest distance to include
+	 * @requires radius >= 0
+	 * @modifies this
+	 * @throws IllegalArgumentException
+	 *             if origin is not contained in the graph
+	 * @effects forgets the previous search and holds the nodes found
+	 * @return the number of nodes found, including origin
+	 */
+	public int search(Node<CampusLocation> origin, double radius) {
+		int id = g.indexOf(origin);
+		if (id < 0) {
+			throw new IllegalArgumentException("Origin must be contained in the graph: " + origin);
+		}
+		return search(id, radius);
+	}
+
+	/**
+	 * Finds every node whose least cost distance from origin is at most
+	 * radius.
+	 *
+	 * @param origin the id of the node to measure distances from
+	 * @param radius the largest distance to include
+	 * @requires 0 <= origin < getGraph().nodeCount(), radius >= 0
+	 * @modifies this
+	 * @effects forgets the previous search and holds the nodes found
+	 * @return the number of nodes found, including origin
+	 */
+	public int search(int origin, double radius) {
+		this.radius = radius;
+		count = 0;
+		space.reset();
+		space.addSource(origin, 0);
+		while (!space.isEmpty() && space.minKey() <= radius) {
+			int u = space.settle();
+			double du = space.distance(u);
+			reached[count] = u;
+			distances[count] = du;
+			count++;
+			for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+				double d = du + g.weight(e);
+				if (d <= radius) {
+					space.relax(g.target(e), d, u, e);
+				} else {
+					space.skipRelax();
+				}
+			}
+		}
+		checkRep();
+		return count;
+	}
+
+	/**
+	 *
+	 * @return the number of nodes found by the last search
+	 */
+	public int getReachedCount() {
+		return count;
+	}
+
+	/**
+	 * Copies the nodes found by the last search and their distances into
+	 * arrays supplied by the caller, in increasing order of distance.
+	 *
+	 * @param nodes receives the ids of the nodes found
+	 * @param dists receives the distances of the nodes found, or null
+	 * @requires nodes.length >= getReachedCount(), dists == null or
+	 *           dists.length >= getReachedCount()
+	 * @modifies nodes, dists
+	 * @return getReachedCount()
+	 */
+	public int copyReached(int[] nodes, double[] dists) {
+		System.arraycopy(reached, 0, nodes, 0, count);
+		if (dists != null) {
+			System.arraycopy(distances, 0, dists, 0, count);
+		}
+		return count;
+	}
+
+	/**
+	 * @param v the id of a node
+	 * @return the least cost distance from the origin of the last search to
+	 *         v, or infinity if v is farther than its radius
+	 */
+	public double getDistance(int v) {
+		return space.isSettled(v) ? space.distance(v) : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Finds the smallest convex polygon that contains the location of every
+	 * node found by the last search, as an outline to draw on a map.
+	 *
+	 * @modifies this
+	 * @return the corners of the polygon in counterclockwise order for y
+	 *         pointing up, clockwise on screen. Fewer than three corners are
+	 *         returned if the nodes found lie on fewer than three distinct
+	 *         points of one line.
+	 */
+	public List<CampusLocation> getHull() {
+		if (xs == null) {
+			xs = new double[reached.length];
+			ys = new double[reached.length];
+			ids = new int[reached.length];
+			hull = new int[reached.length + 1];
+		}
+		for (int i = 0; i < count; i++) {
+			CampusLocation l = g.getNode(reached[i]).getData();
+			xs[i] = l.getX();
+			ys[i] = l.getY();
+			ids[i] = reached[i];
+		}
+		sort(0, count - 1);
+		// Andrew's monotone chain: the lower hull left to right, then the
+		// upper hull right to left, each dropping points that do not turn left
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			while (size >= 2 && cross(hull[size - 2], hull[size - 1], i) <= 0) {
+				size--;
+			}
+			hull[size++] = i;
+		}
+		int lower = size + 1;
+		for (int i = count - 2; i >= 0; i--) {
+			while (size >= lower && cross(hull[size - 2], hull[size - 1], i) <= 0) {
+				size--;
+			}
+			hull[size++] = i;
+		}
+		// the chain ends where it started unless it has a single point
+		int corners = size > 1 ? size - 1 : size;
+		List<CampusLocation> result = new ArrayList<CampusLocation>(corners);
+		for (int i = 0; i < corners; i++) {
+			CampusLocation l = g.getNode(ids[hull[i]]).getData();
+			if (result.isEmpty() || !l.equals(result.get(result.size() - 1))) {
+				result.add(l);
+			}
+		}
+		return result;
+	}
+
+	//Sorts positions [lo, hi] of xs, ys and ids by x, then by y
+	private void sort(int lo, int hi) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			double px = xs[mid];
+			double py = ys[mid];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (xs[i] < px || (xs[i] == px && ys[i] < py)) {
+					i++;
+				}
+				while (xs[j] > px || (xs[j] == px && ys[j] > py)) {
+					j--;
+				}
+				if (i <= j) {
+					swap(i++, j--);
+				}
+			}
+			// recurse into the smaller part to bound the stack depth
+			if (j - lo < hi - i) {
+				sort(lo, j);
+				lo = i;
+			} else {
+				sort(i, hi);
+				hi = j;
+			}
+		}
+	}
+
+	//Swaps the points at positions i and j
+	private void swap(int i, int j) {
+		double x = xs[i];
+		xs[i] = xs[j];
+		xs[j] = x;
+		double y = ys[i];
+		ys[i] = ys[j];
+		ys[j] = y;
+		int id = ids[i];
+		ids[i] = ids[j];
+		ids[j] = id;
+	}
+
+	//Returns the z component of the cross product of (b - a) and (c - a)
+	//for the points at positions a, b and c, positive iff they turn left
+	private double cross(int a, int b, int c) {
+		return (xs[b] - xs[a]) * (ys[c] - ys[a]) - (ys[b] - ys[a]) * (xs[c] - xs[a]);
+	}
+
+	/** Checks that the representation invariant holds */
+	private void checkRep() throws RuntimeException {
+		if (reached.length != g.nodeCount() || distances.length != g.nodeCount()
+				|| space.capacity() < g.nodeCount()) {
+			throw new RuntimeException("Buffers must be sized for the graph");
+		}
+		if (count < 0 || count > reached.length) {
+			throw new RuntimeException("Reached count out of range");
+		}
+		if (count > 0 && distances[count - 1] > radius) {
+			throw new RuntimeException("Reached a node beyond the radius");
+		}
+	}
+}
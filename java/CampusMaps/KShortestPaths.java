@@ -0,0 +1,330 @@
+package sample;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * KShortestPaths finds the k least cost loopless paths between two nodes of
+ * a CompactGraph with Yen's algorithm. Each path after the first leaves an
+ * earlier path at some spur node, so Yen's algorithm runs one spur search
+ * per node of the previous path, with the edges that earlier paths take out
+ * of the same prefix and the nodes of the prefix itself excluded.
+ *
+ * Instead of copying the graph and deleting edges, the excluded edges and
+ * nodes are marked in stamp arrays that are cleared in constant time. The
+ * spur searches reuse one tree of least cost paths into the destination,
+ * computed once per destination. The cheapest allowed edge out of a spur
+ * node by its weight plus the tree distance of its child is taken with the
+ * tree path after it, without searching, when that tree path avoids the
+ * excluded edges and nodes. Otherwise the tree distances guide an A*
+ * search, since excluding edges can only lengthen paths.
+ *
+ * A KShortestPaths must not be shared between threads.
+ */
+public class KShortestPaths<E> {
+	private CompactGraph<E> g;
+	private SearchSpace tree;
+	private int treeDest;
+	private SearchSpace spur;
+	private int[] blockedNode;
+	private int[] bannedEdge;
+	private int stamp;
+	// Abstraction function:
+	// Paths are found in g. If treeDest >= 0, tree holds the least cost
+	// distance from every node to treeDest, and the predecessor of a node in
+	// tree is the next node of a least cost path from it to treeDest.
+	// During a spur search node v is excluded iff blockedNode[v] == stamp
+	// and edge e iff bannedEdge[e] == stamp. spur is scratch state.
+	// Representation invariant:
+	// g, tree, spur, blockedNode, bannedEdge != null;
+	// tree and spur have capacity >= g.nodeCount();
+	// blockedNode.length == g.nodeCount(), bannedEdge.length == g.edgeCount();
+	// -1 <= treeDest < g.nodeCount().
+
+	/**
+	 * @param g the graph to find paths in
+	 * @requires g != null
+	 * @effects creates a new KShortestPaths over g
+	 */
+	public KShortestPaths(CompactGraph<E> g) {
+		this.g = g;
+		tree = new SearchSpace(g.nodeCount());
+		spur = new SearchSpace(g.nodeCount());
+		treeDest = -1;
+		blockedNode = new int[g.nodeCount()];
+		bannedEdge = new int[g.edgeCount()];
+		checkRep();
+	}
+
+	/**
+	 *
+	 * @return the graph paths are found in
+	 */
+	public CompactGraph<E> getGraph() {
+		return g;
+	}
+
+	/**
+	 * Finds up to k least cost paths from startN to destN that visit no
+	 * node twice.
+	 *
+	 * @param startN the starting node of the paths
+	 * @param destN the destination node of the paths
+	 * @param k the number of paths to find
+	 * @requires k >= 0
+	 * @modifies this
+	 * @throws IllegalArgumentException
+	 *             if startN or destN is not contained in the graph
+	 * @return a List of at most k distinct paths from startN to destN in
+	 *         increasing order of cost, each a List of Edge<Double>. Fewer
+	 *         than k paths are returned if there are no more.
+	 */
+	public List<List<Edge<Double>>> getPaths(Node<E> startN, Node<E> destN, int k) {
+		int start = g.indexOf(startN);
+		int dest = g.indexOf(destN);
+		if (start < 0 || dest < 0) {
+			throw new IllegalArgumentException(
+					"Start and destination must be contained in the given graph");
+		}
+		List<List<Edge<Double>>> result = new ArrayList<List<Edge<Double>>>();
+		for (Route r : getRoutes(start, dest, k)) {
+			result.add(r.toEdges());
+		}
+		return result;
+	}
+
+	//Runs Yen's algorithm from start to dest and returns up to k routes
+	private List<Route> getRoutes(int start, int dest, int k) {
+		List<Route> found = new ArrayList<Route>();
+		if (k <= 0) {
+			return found;
+		}
+		growTree(dest);
+		if (!tree.reached(start)) {
+			return found;
+		}
+		found.add(treeRoute(null, 0, start, tree.distance(start)));
+		PriorityQueue<Route> candidates = new PriorityQueue<Route>();
+		while (found.size() < k) {
+			Route last = found.get(found.size() - 1);
+			for (int i = 0; i < last.edges.length; i++) {
+				Route r = spurRoute(last, i, found, dest);
+				if (r != null && !candidates.contains(r) && !found.contains(r)) {
+					candidates.add(r);
+				}
+			}
+			if (candidates.isEmpty()) {
+				break;
+			}
+			found.add(candidates.poll());
+		}
+		return found;
+	}
+
+	//Returns the least cost route that follows the first i edges of last,
+	//then leaves it through an edge no route in found takes after the same
+	//i edges, or null if there is none
+	private Route spurRoute(Route last, int i, List<Route> found, int dest) {
+		stamp++;
+		if (stamp == Integer.MAX_VALUE) {
+			Arrays.fill(blockedNode, 0);
+			Arrays.fill(bannedEdge, 0);
+			stamp = 1;
+		}
+		for (Route r : found) {
+			if (r.edges.length > i && r.sharesPrefix(last, i)) {
+				bannedEdge[r.edges[i]] = stamp;
+			}
+		}
+		for (int j = 0; j < i; j++) {
+			blockedNode[last.nodes[j]] = stamp;
+		}
+		int from = last.nodes[i];
+		double rootCost = last.costTo(i);
+		// every spur path leaves through an allowed edge and then costs at
+		// least the tree distance, so the cheapest such bound is exact when
+		// the tree path after it is allowed
+		int best = -1;
+		double bound = Double.POSITIVE_INFINITY;
+		for (int e = g.firstEdge(from); e < g.endEdge(from); e++) {
+			int v = g.target(e);
+			if (bannedEdge[e] != stamp && blockedNode[v] != stamp
+					&& g.weight(e) + tree.distance(v) < bound) {
+				best = e;
+				bound = g.weight(e) + tree.distance(v);
+			}
+		}
+		if (best < 0) {
+			return null;
+		}
+		if (treePathAllowed(g.target(best), from)) {
+			return treeRoute(last, i, best, rootCost + bound);
+		}
+		if (!searchSpur(from, dest)) {
+			return null;
+		}
+		int n = 0;
+		for (int v = dest; v != from; v = spur.predecessor(v)) {
+			n++;
+		}
+		int[] nodes = Arrays.copyOf(last.nodes, i + n + 1);
+		int[] edges = Arrays.copyOf(last.edges, i + n);
+		for (int v = dest, j = i + n; v != from; v = spur.predecessor(v), j--) {
+			nodes[j] = v;
+			edges[j - 1] = spur.predecessorEdge(v);
+		}
+		return new Route(nodes, edges, rootCost + spur.distance(dest));
+	}
+
+	//Computes the tree of least cost paths into dest unless it is the
+	//current tree
+	private void growTree(int dest) {
+		if (treeDest == dest) {
+			return;
+		}
+		tree.reset();
+		tree.addSource(dest, 0);
+		while (!tree.isEmpty()) {
+			int v = tree.settle();
+			double dv = tree.distance(v);
+			for (int r = g.firstReverseEdge(v); r < g.endReverseEdge(v); r++) {
+				int e = g.reverseEdge(r);
+				tree.relax(g.reverseSource(r), dv + g.weight(e), v, e);
+			}
+		}
+		treeDest = dest;
+	}
+
+	//Returns true if the tree path from v avoids every excluded node and
+	//edge and does not pass through from
+	private boolean treePathAllowed(int v, int from) {
+		for (; tree.predecessor(v) >= 0; v = tree.predecessor(v)) {
+			if (blockedNode[v] == stamp || v == from
+					|| bannedEdge[tree.predecessorEdge(v)] == stamp) {
+				return false;
+			}
+		}
+		return v != from;
+	}
+
+	//Returns the route that takes the first i edges of prefix, then edge e
+	//from their last node, then the tree path from the child of e. If
+	//prefix is null, returns the tree path from node e instead.
+	private Route treeRoute(Route prefix, int i, int e, double cost) {
+		int v = prefix == null ? e : g.target(e);
+		int n = 0;
+		for (int u = v; tree.predecessor(u) >= 0; u = tree.predecessor(u)) {
+			n++;
+		}
+		int head = prefix == null ? 0 : i + 1;
+		int[] nodes = prefix == null ? new int[n + 1] : Arrays.copyOf(prefix.nodes, head + n + 1);
+		int[] edges = prefix == null ? new int[n] : Arrays.copyOf(prefix.edges, head + n);
+		if (prefix != null) {
+			edges[i] = e;
+		}
+		nodes[head] = v;
+		for (int u = v, j = head; tree.predecessor(u) >= 0; u = tree.predecessor(u), j++) {
+			edges[j] = tree.predecessorEdge(u);
+			nodes[j + 1] = tree.predecessor(u);
+		}
+		return new Route(nodes, edges, cost);
+	}
+
+	//A* search from start to dest that skips excluded nodes and edges,
+	//estimating the distance left by the tree distance. Returns true iff
+	//dest was reached.
+	private boolean searchSpur(int start, int dest) {
+		spur.reset();
+		spur.addSource(start, 0, tree.distance(start));
+		while (!spur.isEmpty()) {
+			int u = spur.settle();
+			if (u == dest) {
+				return true;
+			}
+			double du = spur.distance(u);
+			for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+				int v = g.target(e);
+				if (bannedEdge[e] == stamp || blockedNode[v] == stamp || !tree.reached(v)) {
+					continue;
+				}
+				double d = du + g.weight(e);
+				if (d < spur.distance(v)) {
+					spur.relax(v, d, u, e, d + tree.distance(v));
+				} else {
+					spur.skipRelax();
+				}
+			}
+		}
+		return false;
+	}
+
+	/** Checks that the representation invariant holds */
+	private void checkRep() throws RuntimeException {
+		if (blockedNode.length != g.nodeCount() || bannedEdge.length != g.edgeCount()) {
+			throw new RuntimeException("Every node and edge needs a mark");
+		}
+		if (tree.capacity() < g.nodeCount() || spur.capacity() < g.nodeCount()) {
+			throw new RuntimeException("Scratch state is too small for the graph");
+		}
+	}
+
+	//A path as the ids of its nodes and edges, ordered by cost; two routes
+	//are equal iff they take the same edges
+	private class Route implements Comparable<Route> {
+		private final int[] nodes;
+		private final int[] edges;
+		private final double cost;
+
+		Route(int[] nodes, int[] edges, double cost) {
+			this.nodes = nodes;
+			this.edges = edges;
+			this.cost = cost;
+		}
+
+		//Returns true if this route takes the same first i edges as other
+		boolean sharesPrefix(Route other, int i) {
+			for (int j = 0; j < i; j++) {
+				if (edges[j] != other.edges[j]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		//Returns the cost of the first i edges of this route
+		double costTo(int i) {
+			double total = 0;
+			for (int j = 0; j < i; j++) {
+				total += g.weight(edges[j]);
+			}
+			return total;
+		}
+
+		//Returns the Edges of this route in order
+		List<Edge<Double>> toEdges() {
+			List<Edge<Double>> path = new ArrayList<Edge<Double>>(edges.length);
+			for (int j = 0; j < edges.length; j++) {
+				path.add(g.getEdge(nodes[j], edges[j]));
+			}
+			return path;
+		}
+
+		@Override
+		public int compareTo(Route other) {
+			return Double.compare(cost, other.cost);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof KShortestPaths.Route
+					&& Arrays.equals(edges, ((KShortestPaths<?>.Route) obj).edges);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(edges);
+		}
+	}
+}
@@ -0,0 +1,307 @@
+package sample;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * LandmarkHeuristic is an immutable Heuristic over a CompactGraph that
+ * bounds path lengths with exact distances to and from a few landmark
+ * nodes (the ALT technique). For a landmark L and any nodes v and t the
+ * triangle inequality gives dist(v, t) >= dist(L, t) - dist(L, v) and
+ * dist(v, t) >= dist(v, L) - dist(t, L). Because the bounds come from real
+ * path lengths they stay tight where paths wind around obstacles.
+ *
+ * Landmarks are chosen by farthest-point selection: each new landmark is
+ * the node farthest from the landmarks already chosen.
+ */
+public class LandmarkHeuristic implements Heuristic {
+	/** The number of landmarks used when none is given */
+	public static final int DEFAULT_LANDMARKS = 8;
+
+	private static final int MAGIC = 0x414c5431; // "ALT1"
+
+	private int nodeCount;
+	private long checksum;
+	private int[] landmarks;
+	private double[] from;
+	private double[] to;
+	// Abstraction function:
+	// landmarks[i] is the node id of the i-th landmark. from[i * nodeCount + v]
+	// is the least cost distance from landmarks[i] to node v and
+	// to[i * nodeCount + v] is the least cost distance from node v to
+	// landmarks[i], infinity where there is no path. checksum identifies the
+	// graph the tables were computed for.
+	// Representation invariant:
+	// landmarks, from, to != null;
+	// from.length == to.length == landmarks.length * nodeCount;
+	// for all i, from[i * nodeCount + landmarks[i]] == 0
+
+	/**
+	 * Selects DEFAULT_LANDMARKS landmarks and computes their distance tables.
+	 *
+	 * @param g the graph to estimate path lengths in
+	 * @requires g != null, every edge weight of g is non-negative
+	 * @effects creates a new LandmarkHeuristic for g
+	 */
+	public LandmarkHeuristic(CompactGraph<?> g) {
+		this(g, DEFAULT_LANDMARKS);
+	}
+
+	/**
+	 * Selects landmarks and computes their distance tables. The tables of
+	 * the different landmarks are computed in parallel.
+	 *
+	 * @param g the graph to estimate path lengths in
+	 * @param k the number of landmarks to select
+	 * @requires g != null, k > 0, every edge weight of g is non-negative
+	 * @effects creates a new LandmarkHeuristic for g with at most k landmarks
+	 */
+	public LandmarkHeuristic(CompactGraph<?> g, int k) {
+		nodeCount = g.nodeCount();
+		checksum = checksum(g);
+		k = Math.min(k, nodeCount);
+		landmarks = nodeCount == 0 ? new int[0] : selectLandmarks(g, k);
+		from = new double[landmarks.length * nodeCount];
+		to = new double[landmarks.length * nodeCount];
+		computeTables(g);
+		checkRep();
+	}
+
+	/**
+	 * Creates a LandmarkHeuristic from tables saved by save().
+	 *
+	 * @param filename the file the tables were saved to
+	 * @param g the graph the tables were computed for
+	 * @requires g != null
+	 * @throws IOException if the file cannot be read, is malformed or was
+	 *             saved for a different graph
+	 * @return the LandmarkHeuristic that was saved
+	 */
+	public static LandmarkHeuristic load(String filename, CompactGraph<?> g)
+			throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(filename)));
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a landmark file: " + filename);
+			}
+			LandmarkHeuristic h = new LandmarkHeuristic();
+			h.nodeCount = in.readInt();
+			h.checksum = in.readLong();
+			if (h.nodeCount != g.nodeCount() || h.checksum != checksum(g)) {
+				throw new IOException("Landmarks in " + filename
+						+ " were computed for a different graph");
+			}
+			int count = in.readInt();
+			if (count < Math.min(1, h.nodeCount) || count > h.nodeCount) {
+				throw new IOException("Corrupt landmark file, " + count + " landmarks for "
+						+ h.nodeCount + " nodes: " + filename);
+			}
+			h.landmarks = new int[count];
+			for (int i = 0; i < h.landmarks.length; i++) {
+				h.landmarks[i] = in.readInt();
+				if (h.landmarks[i] < 0 || h.landmarks[i] >= h.nodeCount) {
+					throw new IOException("Corrupt landmark file, landmark " + i + " is node "
+							+ h.landmarks[i] + " of " + h.nodeCount + ": " + filename);
+				}
+			}
+			h.from = new double[h.landmarks.length * h.nodeCount];
+			h.to = new double[h.landmarks.length * h.nodeCount];
+			for (int i = 0; i < h.from.length; i++) {
+				h.from[i] = in.readDouble();
+			}
+			for (int i = 0; i < h.to.length; i++) {
+				h.to[i] = in.readDouble();
+			}
+			for (int i = 0; i < h.landmarks.length; i++) {
+				if (h.from[i * h.nodeCount + h.landmarks[i]] != 0) {
+					throw new IOException("Corrupt landmark file, landmark " + i
+							+ " is not at distance 0 from itself: " + filename);
+				}
+			}
+			h.checkRep();
+			return h;
+		} finally {
+			in.close();
+		}
+	}
+
+	//Creates an empty LandmarkHeuristic for load() to fill in
+	private LandmarkHeuristic() {
+	}
+
+	/**
+	 * Writes the landmarks and their distance tables to a file.
+	 *
+	 * @param filename the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(String filename) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(filename)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(nodeCount);
+			out.writeLong(checksum);
+			out.writeInt(landmarks.length);
+			for (int l : landmarks) {
+				out.writeInt(l);
+			}
+			for (double d : from) {
+				out.writeDouble(d);
+			}
+			for (double d : to) {
+				out.writeDouble(d);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 *
+	 * @return the node ids of the landmarks
+	 */
+	public int[] getLandmarks() {
+		return landmarks.clone();
+	}
+
+	/**
+	 * @param node the id of a node
+	 * @param target the id of the destination node
+	 * @return the largest lower bound on the distance from node to target
+	 *         given by any landmark
+	 */
+	@Override
+	public double estimate(int node, int target) {
+		double best = 0;
+		for (int i = 0, base = 0; i < landmarks.length; i++, base += nodeCount) {
+			double ahead = from[base + target] - from[base + node];
+			if (ahead > best) {
+				best = ahead;
+			}
+			double behind = to[base + node] - to[base + target];
+			if (behind > best) {
+				best = behind;
+			}
+		}
+		return best;
+	}
+
+	//Picks k landmarks by farthest-point selection, starting from the node
+	//farthest from node 0. Stops early once every reachable node is a
+	//landmark.
+	private int[] selectLandmarks(CompactGraph<?> g, int k) {
+		SearchSpace space = new SearchSpace(nodeCount);
+		double[] nearest = new double[nodeCount];
+		Dijkstra.searchAll(0, g, space);
+		for (int v = 0; v < nodeCount; v++) {
+			nearest[v] = space.distance(v);
+		}
+		int[] chosen = new int[k];
+		for (int i = 0; i < k; i++) {
+			int next = farthest(nearest);
+			if (i > 0 && nearest[next] == 0) {
+				return Arrays.copyOf(chosen, i);
+			}
+			chosen[i] = next;
+			Dijkstra.searchAll(next, g, space);
+			for (int v = 0; v < nodeCount; v++) {
+				nearest[v] = i == 0 ? space.distance(v) : Math.min(nearest[v], space.distance(v));
+			}
+		}
+		return chosen;
+	}
+
+	//Returns the node with the largest finite distance in dist
+	private static int farthest(double[] dist) {
+		int best = 0;
+		double bestDist = -1;
+		for (int v = 0; v < dist.length; v++) {
+			if (dist[v] != Double.POSITIVE_INFINITY && dist[v] > bestDist) {
+				best = v;
+				bestDist = dist[v];
+			}
+		}
+		return best;
+	}
+
+	//Fills in from and to with one search per landmark and direction, run
+	//in parallel on the common fork join pool.
+	private void computeTables(final CompactGraph<?> g) {
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < landmarks.length; i++) {
+			final int landmark = landmarks[i];
+			final int base = i * nodeCount;
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					SearchSpace space = new SearchSpace(nodeCount);
+					Dijkstra.searchAll(landmark, g, space);
+					for (int v = 0; v < nodeCount; v++) {
+						from[base + v] = space.distance(v);
+					}
+					return null;
+				}
+			});
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					SearchSpace space = new SearchSpace(nodeCount);
+					Dijkstra.searchAllReverse(landmark, g, space);
+					for (int v = 0; v < nodeCount; v++) {
+						to[base + v] = space.distance(v);
+					}
+					return null;
+				}
+			});
+		}
+		try {
+			for (Future<Void> f : ForkJoinPool.commonPool().invokeAll(tasks)) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while computing landmarks", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	//Returns a hash of the nodes and edges of g, used to tell whether saved
+	//tables belong to g
+	private static long checksum(CompactGraph<?> g) {
+		long h = g.nodeCount();
+		for (int u = 0; u < g.nodeCount(); u++) {
+			h = 31 * h + g.getNode(u).hashCode();
+			for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+				h = 31 * h + g.target(e);
+				h = 31 * h + Double.doubleToLongBits(g.weight(e));
+			}
+		}
+		return h;
+	}
+
+	/** Checks that the representation invariant holds */
+	private void checkRep() throws RuntimeException {
+		if (from.length != landmarks.length * nodeCount
+				|| to.length != landmarks.length * nodeCount) {
+			throw new RuntimeException("Each landmark needs a distance for every node");
+		}
+		for (int i = 0; i < landmarks.length; i++) {
+			if (from[i * nodeCount + landmarks[i]] != 0) {
+				throw new RuntimeException("A landmark must be at distance 0 from itself");
+			}
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package sample;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram is a thread-safe, cumulative histogram of durations in
+ * nanoseconds. Durations are counted in log-linear buckets: every power of
+ * two is split into four buckets of equal width, so a bucket is never more
+ * than a quarter as wide as the durations it holds and the whole range of a
+ * long fits in a few hundred counters. Recording a duration takes a few
+ * atomic additions and never allocates or locks.
+ *
+ * Reads are not atomic with respect to concurrent records, so a reader may
+ * see a duration counted in getCount() but not yet in its bucket.
+ */
+public class LatencyHistogram {
+	// Each power of two is split into 1 << SUB_BITS buckets
+	private static final int SUB_BITS = 2;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	/** The number of buckets durations are counted in */
+	public static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+	private AtomicLongArray buckets;
+	private LongAdder count;
+	private LongAdder total;
+	private AtomicLong max;
+	// Abstraction function:
+	// buckets[i] durations between getLowerBound(i) and getUpperBound(i)
+	// have been recorded, count of them in all, adding up to total
+	// nanoseconds, the longest of them max nanoseconds long.
+	// Representation invariant:
+	// buckets, count, total, max != null; buckets.length() == BUCKETS;
+	// every counter >= 0.
+
+	/**
+	 * @effects creates a new LatencyHistogram that has recorded nothing
+	 */
+	public LatencyHistogram() {
+		buckets = new AtomicLongArray(BUCKETS);
+		count = new LongAdder();
+		total = new LongAdder();
+		max = new AtomicLong();
+	}
+
+	/**
+	 * Counts one duration.
+	 *
+	 * @param nanos the duration in nanoseconds; negative durations, which a
+	 *            clock adjustment can produce, are counted as 0
+	 * @modifies this
+	 * @effects adds nanos to the histogram
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		buckets.incrementAndGet(bucketOf(nanos));
+		count.increment();
+		total.add(nanos);
+		long longest = max.get();
+		while (nanos > longest && !max.compareAndSet(longest, nanos)) {
+			longest = max.get();
+		}
+	}
+
+	/**
+	 *
+	 * @return the number of durations recorded
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 *
+	 * @return the sum of the durations recorded, in nanoseconds
+	 */
+	public long getTotal() {
+		return total.sum();
+	}
+
+	/**
+	 *
+	 * @return the mean duration recorded in nanoseconds, 0 if none has been
+	 */
+	public double getMean() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double) total.sum() / n;
+	}
+
+	/**
+	 *
+	 * @return the longest duration recorded in nanoseconds, 0 if none has
+	 *         been
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * @param percentile the percentage of durations to cover
+	 * @requires 0 <= percentile <= 100
+	 * @return a duration in nanoseconds that at least percentile percent of
+	 *         the recorded durations do not exceed, accurate to the width
+	 *         of a bucket and never more than getMax(); 0 if nothing has
+	 *         been recorded
+	 */
+	public long getPercentile(double percentile) {
+		long[] counts = new long[BUCKETS];
+		long n = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			n += counts[i];
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(getUpperBound(i), max.get());
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @param bucket the index of a bucket
+	 * @requires 0 <= bucket < BUCKETS
+	 * @return the number of durations recorded in bucket
+	 */
+	public long getBucketCount(int bucket) {
+		return buckets.get(bucket);
+	}
+
+	/**
+	 * @param bucket the index of a bucket
+	 * @requires 0 <= bucket < BUCKETS
+	 * @return the shortest duration, in nanoseconds, counted in bucket
+	 */
+	public static long getLowerBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long sub = bucket % SUB_BUCKETS;
+		return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+	}
+
+	/**
+	 * @param bucket the index of a bucket
+	 * @requires 0 <= bucket < BUCKETS
+	 * @return the longest duration, in nanoseconds, counted in bucket
+	 */
+	public static long getUpperBound(int bucket) {
+		return bucket == BUCKETS - 1 ? Long.MAX_VALUE : getLowerBound(bucket + 1) - 1;
+	}
+
+	//Returns the index of the bucket that counts nanos >= 0
+	private static int bucketOf(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+}
@@ -0,0 +1,134 @@
+package sample;
+
+/**
+ * LocationInterner hands out one canonical Node<CampusLocation> per
+ * coordinate pair, so that every edge and map entry for the same location
+ * shares a single Node and CampusLocation. Locations are looked up by the
+ * bits of their coordinates in an open addressing table of primitive keys,
+ * so a lookup of a location that has been seen before allocates nothing.
+ *
+ * Two coordinate pairs are the same location iff their bits are equal,
+ * matching CampusLocation.equals.
+ */
+public class LocationInterner {
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private long[] xBits;
+	private long[] yBits;
+	private Node<CampusLocation>[] nodes;
+	private int size;
+	// Abstraction function:
+	// The interned locations are nodes[i] for every i with nodes[i] != null,
+	// and nodes[i] is at (longBitsToDouble(xBits[i]), longBitsToDouble(yBits[i])).
+	// Representation invariant:
+	// xBits, yBits, nodes != null, all three have the same length, a power
+	// of two; size is the number of non-null elements of nodes and
+	// size <= nodes.length / 2; each location is stored at most once, at or
+	// after its hash slot with no empty slot in between.
+
+	/**
+	 * @effects creates a new LocationInterner with no locations
+	 */
+	public LocationInterner() {
+		this(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @param expected the number of distinct locations expected
+	 * @effects creates a new LocationInterner with no locations and room for
+	 *          expected locations
+	 */
+	public LocationInterner(int expected) {
+		int capacity = Integer.highestOneBit(Math.max(2, expected) * 2 - 1) * 2;
+		allocate(capacity);
+	}
+
+	/**
+	 * Returns the canonical node at a location, creating it the first time
+	 * the location is seen.
+	 *
+	 * @param x the x coordinate of the location
+	 * @param y the y coordinate of the location
+	 * @modifies this
+	 * @return the Node<CampusLocation> at (x, y). Every call with the same
+	 *         coordinates returns the same object.
+	 */
+	public Node<CampusLocation> intern(double x, double y) {
+		long xb = Double.doubleToLongBits(x);
+		long yb = Double.doubleToLongBits(y);
+		int mask = nodes.length - 1;
+		int i = hash(xb, yb) & mask;
+		while (nodes[i] != null) {
+			if (xBits[i] == xb && yBits[i] == yb) {
+				return nodes[i];
+			}
+			i = (i + 1) & mask;
+		}
+		Node<CampusLocation> n = new Node<CampusLocation>(new CampusLocation(x, y));
+		xBits[i] = xb;
+		yBits[i] = yb;
+		nodes[i] = n;
+		size++;
+		if (size > nodes.length / 2) {
+			grow();
+		}
+		return n;
+	}
+
+	/**
+	 *
+	 * @return the number of distinct locations interned
+	 */
+	public int size() {
+		return size;
+	}
+
+	//Doubles the table and reinserts every location
+	private void grow() {
+		long[] oldX = xBits;
+		long[] oldY = yBits;
+		Node<CampusLocation>[] oldNodes = nodes;
+		allocate(oldNodes.length * 2);
+		int mask = nodes.length - 1;
+		for (int j = 0; j < oldNodes.length; j++) {
+			if (oldNodes[j] != null) {
+				int i = hash(oldX[j], oldY[j]) & mask;
+				while (nodes[i] != null) {
+					i = (i + 1) & mask;
+				}
+				xBits[i] = oldX[j];
+				yBits[i] = oldY[j];
+				nodes[i] = oldNodes[j];
+			}
+		}
+		checkRep();
+	}
+
+	//Creates empty tables with the given power of two capacity
+	@SuppressWarnings("unchecked")
+	private void allocate(int capacity) {
+		xBits = new long[capacity];
+		yBits = new long[capacity];
+		nodes = (Node<CampusLocation>[]) new Node<?>[capacity];
+	}
+
+	//Mixes the bits of both coordinates so that nearby locations spread
+	//over the table
+	private static int hash(long xb, long yb) {
+		long h = xb * 0x9E3779B97F4A7C15L + yb;
+		h ^= h >>> 29;
+		h *= 0xBF58476D1CE4E5B9L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/** Checks that the representation invariant holds */
+	private void checkRep() throws RuntimeException {
+		if (xBits.length != nodes.length || yBits.length != nodes.length
+				|| Integer.bitCount(nodes.length) != 1) {
+			throw new RuntimeException("Tables must share a power of two capacity");
+		}
+		if (size > nodes.length / 2) {
+			throw new RuntimeException("Table is too full");
+		}
+	}
+}
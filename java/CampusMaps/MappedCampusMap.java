@@ -0,0 +1,437 @@
+package sample;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MappedCampusMap is an immutable campus map read from a binary map file
+ * that is memory mapped rather than parsed. Node coordinates, edges and
+ * weights are read straight from the mapped file, so loading a map creates
+ * no object per node or edge and routing queries run on the mapped data.
+ *
+ * A map file is written by write() and holds, in order and big-endian:
+ * a header of the magic number "CMAP", the format version, the node, edge
+ * and building counts, 4 bytes of padding and the heuristic scale (a
+ * double); the x and then the y coordinate of every node, the weight of
+ * every edge and the x and then the y coordinate of every building as
+ * doubles; the edge offsets of every node plus one, the target node of
+ * every edge and the node of every building as ints; the offsets of the
+ * UTF-8 short and long names of every building plus one as ints; and the
+ * name bytes. Node and edge ids are those of a CompactGraph:
+ * the edges of node u are [offsets[u], offsets[u + 1]). Buildings are stored
+ * in the order they were given, with node -1 if their location is not in the
+ * graph.
+ */
+public class MappedCampusMap implements RoutingGraph {
+	/** The version of the map file format written by write() */
+	public static final int FORMAT_VERSION = 1;
+
+	private static final int MAGIC = 0x434d4150; // "CMAP"
+	private static final int HEADER_BYTES = 32;
+
+	private DoubleBuffer xs;
+	private DoubleBuffer ys;
+	private DoubleBuffer weights;
+	private DoubleBuffer buildingXs;
+	private DoubleBuffer buildingYs;
+	private IntBuffer offsets;
+	private IntBuffer targets;
+	private IntBuffer buildingNodes;
+	private IntBuffer nameOffsets;
+	private ByteBuffer names;
+	private double scale;
+	private Heuristic heuristic;
+	private Map<String, Integer> buildings;
+	// Abstraction function:
+	// Node u is at (xs.get(u), ys.get(u)) and has the outgoing edges
+	// [offsets.get(u), offsets.get(u + 1)), where edge e leads to
+	// targets.get(e) with weight weights.get(e). Building i is at
+	// (buildingXs.get(i), buildingYs.get(i)) and stands at node
+	// buildingNodes.get(i), and its short name is the bytes of names in
+	// [nameOffsets.get(2i), nameOffsets.get(2i + 1)) and its long name the
+	// bytes in [nameOffsets.get(2i + 1), nameOffsets.get(2i + 2)). buildings
+	// maps the short name of every building to its index. scale times the
+	// straight line distance between two nodes never exceeds the length of
+	// a path between them, and heuristic estimates path lengths that way.
+	// Representation invariant:
+	// every buffer != null, xs.limit() == ys.limit() == n,
+	// offsets.limit() == n + 1, offsets.get(0) == 0,
+	// offsets.get(n) == targets.limit() == weights.limit(),
+	// buildingNodes.limit() == buildingXs.limit() == buildingYs.limit()
+	// == buildings.size(),
+	// nameOffsets.limit() == 2 * buildings.size() + 1, scale >= 0
+
+	//Creates an empty MappedCampusMap for load() to fill in
+	private MappedCampusMap() {
+	}
+
+	/**
+	 * Writes a path graph and its buildings to a map file.
+	 *
+	 * @param filename the file to write
+	 * @param paths the graph of paths between locations
+	 * @param campusBuildings the buildings of the map
+	 * @requires paths != null, every edge of paths has a non-null,
+	 *           non-negative label, campusBuildings != null and holds no
+	 *           two buildings with the same short name
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(String filename, Graph<CampusLocation, Double> paths,
+			Collection<CampusBuilding> campusBuildings) throws IOException {
+		CompactGraph<CampusLocation> g = CompactGraph.freeze(paths);
+		int n = g.nodeCount();
+		List<byte[]> text = new ArrayList<byte[]>();
+		for (CampusBuilding b : campusBuildings) {
+			text.add(b.getShortName().getBytes(StandardCharsets.UTF_8));
+			text.add(b.getLongName().getBytes(StandardCharsets.UTF_8));
+		}
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(filename)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(n);
+			out.writeInt(g.edgeCount());
+			out.writeInt(campusBuildings.size());
+			out.writeInt(0);
+			out.writeDouble(new EuclideanHeuristic(g).getScale());
+			for (int u = 0; u < n; u++) {
+				out.writeDouble(g.getNode(u).getData().getX());
+			}
+			for (int u = 0; u < n; u++) {
+				out.writeDouble(g.getNode(u).getData().getY());
+			}
+			for (int e = 0; e < g.edgeCount(); e++) {
+				out.writeDouble(g.weight(e));
+			}
+			for (CampusBuilding b : campusBuildings) {
+				out.writeDouble(b.getLocation().getX());
+			}
+			for (CampusBuilding b : campusBuildings) {
+				out.writeDouble(b.getLocation().getY());
+			}
+			for (int u = 0; u <= n; u++) {
+				out.writeInt(u < n ? g.firstEdge(u) : g.edgeCount());
+			}
+			for (int e = 0; e < g.edgeCount(); e++) {
+				out.writeInt(g.target(e));
+			}
+			for (CampusBuilding b : campusBuildings) {
+				out.writeInt(g.indexOf(new Node<CampusLocation>(b.getLocation())));
+			}
+			int offset = 0;
+			out.writeInt(offset);
+			for (byte[] t : text) {
+				offset += t.length;
+				out.writeInt(offset);
+			}
+			for (byte[] t : text) {
+				out.write(t);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Maps a map file written by write() into memory.
+	 *
+	 * @param filename the map file
+	 * @throws IOException if the file cannot be read, is not a map file, has
+	 *             a different format version, is truncated or holds edge
+	 *             ranges, edge targets, weights, building nodes or names
+	 *             that are out of range
+	 * @return the map stored in the file
+	 */
+	public static MappedCampusMap load(String filename) throws IOException {
+		ByteBuffer file;
+		FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+		try {
+			if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Not a map file: " + filename);
+			}
+			file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			channel.close();
+		}
+		if (file.getInt(0) != MAGIC) {
+			throw new IOException("Not a map file: " + filename);
+		}
+		if (file.getInt(4) != FORMAT_VERSION) {
+			throw new IOException("Unsupported map file version " + file.getInt(4) + ": " + filename);
+		}
+		int n = file.getInt(8);
+		int m = file.getInt(12);
+		int b = file.getInt(16);
+		long expected = HEADER_BYTES + 8L * (2L * n + m + 2L * b) + 4L * (n + 1 + m + b + 2L * b + 1);
+		if (n < 0 || m < 0 || b < 0 || file.capacity() < expected) {
+			throw new IOException("Truncated map file: " + filename);
+		}
+		MappedCampusMap map = new MappedCampusMap();
+		map.scale = file.getDouble(24);
+		int at = HEADER_BYTES;
+		map.xs = slice(file, at, 8 * n).asDoubleBuffer();
+		map.ys = slice(file, at += 8 * n, 8 * n).asDoubleBuffer();
+		map.weights = slice(file, at += 8 * n, 8 * m).asDoubleBuffer();
+		map.buildingXs = slice(file, at += 8 * m, 8 * b).asDoubleBuffer();
+		map.buildingYs = slice(file, at += 8 * b, 8 * b).asDoubleBuffer();
+		map.offsets = slice(file, at += 8 * b, 4 * (n + 1)).asIntBuffer();
+		map.targets = slice(file, at += 4 * (n + 1), 4 * m).asIntBuffer();
+		map.buildingNodes = slice(file, at += 4 * m, 4 * b).asIntBuffer();
+		map.nameOffsets = slice(file, at += 4 * b, 4 * (2 * b + 1)).asIntBuffer();
+		at += 4 * (2 * b + 1);
+		int nameBytes = map.nameOffsets.get(2 * b);
+		if (nameBytes < 0 || (long) at + nameBytes > file.capacity()) {
+			throw new IOException("Truncated map file: " + filename);
+		}
+		map.names = slice(file, at, nameBytes);
+		map.validate(filename);
+		map.heuristic = map.new StraightLine();
+		map.buildings = new HashMap<String, Integer>(b * 2);
+		for (int i = 0; i < b; i++) {
+			if (map.buildings.put(map.name(2 * i), i) != null) {
+				throw new IOException("Corrupt map file, two buildings are named "
+						+ map.name(2 * i) + ": " + filename);
+			}
+		}
+		map.checkRep();
+		return map;
+	}
+
+	//Checks once that every id and offset read from the file is in range,
+	//so that a corrupt file is reported here instead of failing inside a
+	//query. Throws IOException naming the first value out of range.
+	private void validate(String filename) throws IOException {
+		int n = xs.limit();
+		int m = targets.limit();
+		if (offsets.get(0) != 0 || offsets.get(n) != m) {
+			throw new IOException("Corrupt map file, edge offsets must run from 0 to " + m + ": "
+					+ filename);
+		}
+		for (int u = 0; u < n; u++) {
+			if (offsets.get(u) > offsets.get(u + 1)) {
+				throw new IOException("Corrupt map file, edge offsets of node " + u
+						+ " decrease: " + filename);
+			}
+		}
+		for (int e = 0; e < m; e++) {
+			if (targets.get(e) < 0 || targets.get(e) >= n) {
+				throw new IOException("Corrupt map file, edge " + e + " leads to node "
+						+ targets.get(e) + " of " + n + ": " + filename);
+			}
+			if (!(weights.get(e) >= 0)) {
+				throw new IOException("Corrupt map file, edge " + e + " has weight "
+						+ weights.get(e) + ": " + filename);
+			}
+		}
+		for (int i = 0; i < buildingNodes.limit(); i++) {
+			if (buildingNodes.get(i) < -1 || buildingNodes.get(i) >= n) {
+				throw new IOException("Corrupt map file, building " + i + " stands at node "
+						+ buildingNodes.get(i) + " of " + n + ": " + filename);
+			}
+		}
+		if (nameOffsets.get(0) != 0) {
+			throw new IOException("Corrupt map file, name offsets must start at 0: " + filename);
+		}
+		for (int i = 0; i + 1 < nameOffsets.limit(); i++) {
+			if (nameOffsets.get(i) > nameOffsets.get(i + 1)) {
+				throw new IOException("Corrupt map file, name offset " + i + " decreases: "
+						+ filename);
+			}
+		}
+		if (!(scale >= 0) || Double.isInfinite(scale)) {
+			throw new IOException("Corrupt map file, heuristic scale is " + scale + ": " + filename);
+		}
+	}
+
+	//Returns the len bytes of file starting at offset as a buffer of its own
+	private static ByteBuffer slice(ByteBuffer file, int offset, int len) {
+		ByteBuffer copy = file.duplicate();
+		copy.position(offset);
+		copy.limit(offset + len);
+		return copy.slice();
+	}
+
+	@Override
+	public int nodeCount() {
+		return xs.limit();
+	}
+
+	@Override
+	public int edgeCount() {
+		return targets.limit();
+	}
+
+	@Override
+	public int firstEdge(int u) {
+		return offsets.get(u);
+	}
+
+	@Override
+	public int endEdge(int u) {
+		return offsets.get(u + 1);
+	}
+
+	@Override
+	public int target(int e) {
+		return targets.get(e);
+	}
+
+	@Override
+	public double weight(int e) {
+		return weights.get(e);
+	}
+
+	/**
+	 * @param u the id of a node
+	 * @requires 0 <= u < nodeCount()
+	 * @return the location of node u
+	 */
+	public CampusLocation getLocation(int u) {
+		return new CampusLocation(xs.get(u), ys.get(u));
+	}
+
+	/**
+	 *
+	 * @return a consistent lower bound on path lengths between nodes, the
+	 *         scaled straight line distance of EuclideanHeuristic
+	 */
+	public Heuristic getHeuristic() {
+		return heuristic;
+	}
+
+	//Estimates path lengths from the mapped coordinates as
+	//EuclideanHeuristic does from a CompactGraph
+	private class StraightLine implements Heuristic {
+		@Override
+		public double estimate(int node, int target) {
+			double dx = xs.get(node) - xs.get(target);
+			double dy = ys.get(node) - ys.get(target);
+			return scale * Math.sqrt(dx * dx + dy * dy);
+		}
+	}
+
+	/**
+	 *
+	 * @return the number of buildings on the map
+	 */
+	public int getBuildingCount() {
+		return buildingNodes.limit();
+	}
+
+	/**
+	 * @param shortName the short name of a building
+	 * @return the CampusBuilding with the given short name, or null if there
+	 *         is none
+	 */
+	public CampusBuilding getBuilding(String shortName) {
+		Integer i = buildings.get(shortName);
+		return i == null ? null : building(i);
+	}
+
+	/**
+	 *
+	 * @return the short names of every building on the map, in the order
+	 *         they were written
+	 */
+	public List<String> getBuildingNames() {
+		List<String> result = new ArrayList<String>(getBuildingCount());
+		for (int i = 0; i < getBuildingCount(); i++) {
+			result.add(name(2 * i));
+		}
+		return result;
+	}
+
+	/**
+	 * @param shortName the short name of a building
+	 * @return the id of the node at the building, or -1 if there is no such
+	 *         building or its location is not on a path
+	 */
+	public int getBuildingNode(String shortName) {
+		Integer i = buildings.get(shortName);
+		return i == null ? -1 : buildingNodes.get(i);
+	}
+
+	/**
+	 * Finds the shortest path between two buildings with an A* search on the
+	 * mapped data.
+	 *
+	 * @param start the short name of the building to start from
+	 * @param dest the short name of the building to end at
+	 * @param space scratch state for the search
+	 * @requires space.capacity() >= nodeCount()
+	 * @modifies space
+	 * @throws IllegalArgumentException if start or dest is not a building on
+	 *             a path of the map
+	 * @return the CampusPath between start and dest, or null if there is no
+	 *         path
+	 */
+	public CampusPath getPath(String start, String dest, SearchSpace space) {
+		int s = getBuildingNode(start);
+		int t = getBuildingNode(dest);
+		if (s < 0 || t < 0) {
+			throw new IllegalArgumentException("Start and destination must be buildings on a path");
+		}
+		if (!Dijkstra.search(s, t, this, heuristic, space)) {
+			return null;
+		}
+		List<Edge<Double>> path = new ArrayList<Edge<Double>>();
+		for (int v = t; space.predecessor(v) >= 0; v = space.predecessor(v)) {
+			path.add(new Edge<Double>(new Node<CampusLocation>(getLocation(space.predecessor(v))),
+					new Node<CampusLocation>(getLocation(v)), weights.get(space.predecessorEdge(v))));
+		}
+		Collections.reverse(path);
+		return new CampusPath(path, getBuilding(start), getBuilding(dest));
+	}
+
+	//Returns the building at index i
+	private CampusBuilding building(int i) {
+		return new CampusBuilding(name(2 * i), name(2 * i + 1),
+				new CampusLocation(buildingXs.get(i), buildingYs.get(i)));
+	}
+
+	//Returns the name with the given index in nameOffsets
+	private String name(int index) {
+		int from = nameOffsets.get(index);
+		byte[] bytes = new byte[nameOffsets.get(index + 1) - from];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = names.get(from + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/** Checks that the representation invariant holds */
+	private void checkRep() throws RuntimeException {
+		int n = xs.limit();
+		if (ys.limit() != n || offsets.limit() != n + 1 || offsets.get(0) != 0) {
+			throw new RuntimeException("Every node needs coordinates and an edge range");
+		}
+		if (offsets.get(n) != targets.limit() || targets.limit() != weights.limit()) {
+			throw new RuntimeException("Edge ranges must cover every edge");
+		}
+		if (buildingXs.limit() != buildingNodes.limit() || buildingYs.limit() != buildingNodes.limit()) {
+			throw new RuntimeException("Every building needs a location");
+		}
+		if (buildings.size() != buildingNodes.limit()) {
+			throw new RuntimeException("Two buildings cannot share a short name");
+		}
+		if (scale < 0) {
+			throw new RuntimeException("scale cannot be negative");
+		}
+	}
+}
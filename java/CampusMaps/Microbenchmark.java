@@ -0,0 +1,148 @@
+package sample;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * Microbenchmark times one operation the way a JMH benchmark in average
+ * time mode with the GC profiler does, without needing JMH on the class
+ * path. The operation runs back to back for a number of timed warmup
+ * iterations that are thrown away, then for a number of timed measurement
+ * iterations. For each iteration it records the operations completed, the
+ * elapsed time, the bytes allocated by the calling thread and the
+ * collections run, and reports:
+ *
+ * avgt: mean time per operation over the measurement iterations, with the
+ * half-width of a 99.9% confidence interval (normal approximation);
+ * thrpt: operations per second;
+ * gc.alloc.rate.norm: bytes allocated per operation;
+ * gc.alloc.rate: MB allocated per second;
+ * gc.count: collections during the measurement iterations.
+ *
+ * The value each operation returns is folded into a volatile field so that
+ * the JIT cannot discard the work, as JMH's Blackhole does.
+ */
+public class Microbenchmark {
+	//Class does not represent an ADT
+
+	/** The work measured by a benchmark. */
+	public interface Operation {
+		/**
+		 * Runs the operation once.
+		 *
+		 * @throws Exception if the operation fails, which ends the benchmark
+		 * @return any value computed from the result, so it is not dead code
+		 */
+		long run() throws Exception;
+	}
+
+	private static final double Z_999 = 3.29;
+
+	// Results written here cannot be optimized away
+	private static volatile long sink;
+
+	/**
+	 * Prints the header of the table that measure() prints rows of.
+	 */
+	public static void printHeader() {
+		System.out.printf("%-40s %12s %10s %9s %12s %10s %6s%n", "Benchmark", "avgt us/op",
+				"error", "ops/s", "alloc B/op", "alloc MB/s", "gc");
+	}
+
+	/**
+	 * Measures op and prints one row of results.
+	 *
+	 * @param name the name to print
+	 * @param op the operation to measure
+	 * @param warmups the number of warmup iterations
+	 * @param iterations the number of measurement iterations
+	 * @param iterationMillis the length of each iteration in milliseconds.
+	 *            An iteration always runs op at least once.
+	 * @requires name, op != null, warmups >= 0, iterations > 0,
+	 *           iterationMillis > 0
+	 * @throws Exception if op throws
+	 * @return the mean time per operation in nanoseconds
+	 */
+	public static double measure(String name, Operation op, int warmups, int iterations,
+			long iterationMillis) throws Exception {
+		for (int i = 0; i < warmups; i++) {
+			iterate(op, iterationMillis, null);
+		}
+		double[] nanosPerOp = new double[iterations];
+		long ops = 0;
+		long nanos = 0;
+		long allocated = 0;
+		long collections = gcCount();
+		long[] totals = new long[3];
+		for (int i = 0; i < iterations; i++) {
+			iterate(op, iterationMillis, totals);
+			nanosPerOp[i] = (double) totals[1] / totals[0];
+			ops += totals[0];
+			nanos += totals[1];
+			allocated += totals[2];
+		}
+		collections = gcCount() - collections;
+		double mean = 0;
+		for (double t : nanosPerOp) {
+			mean += t / iterations;
+		}
+		double variance = 0;
+		for (double t : nanosPerOp) {
+			variance += (t - mean) * (t - mean) / Math.max(1, iterations - 1);
+		}
+		double error = Z_999 * Math.sqrt(variance / iterations);
+		System.out.printf("%-40s %12.3f %10s %9.0f %12s %10s %6d%n", name, mean / 1e3,
+				String.format("+- %.3f", error / 1e3), ops / (nanos / 1e9),
+				allocated < 0 ? "n/a" : String.format("%.0f", (double) allocated / ops),
+				allocated < 0 ? "n/a" : String.format("%.1f", allocated / (nanos / 1e9) / 1e6),
+				collections);
+		return mean;
+	}
+
+	//Runs op repeatedly for at least millis milliseconds. If totals is not
+	//null, stores the operations run, the nanoseconds taken and the bytes
+	//allocated in it, -1 bytes if the JVM cannot count them.
+	private static void iterate(Operation op, long millis, long[] totals) throws Exception {
+		long bytes = allocatedBytes();
+		long start = System.nanoTime();
+		long end = start + millis * 1000000;
+		long ops = 0;
+		long now;
+		long result = 0;
+		do {
+			result += op.run();
+			ops++;
+			now = System.nanoTime();
+		} while (now < end);
+		sink += result;
+		if (totals != null) {
+			long after = allocatedBytes();
+			totals[0] = ops;
+			totals[1] = now - start;
+			totals[2] = bytes < 0 ? -1 : after - bytes;
+		}
+	}
+
+	//Returns the bytes allocated by the calling thread so far, or -1 if the
+	//JVM does not count them
+	private static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+					Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	//Returns the number of collections run by every collector so far
+	private static long gcCount() {
+		long count = 0;
+		List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+		for (GarbageCollectorMXBean bean : beans) {
+			count += Math.max(0, bean.getCollectionCount());
+		}
+		return count;
+	}
+}
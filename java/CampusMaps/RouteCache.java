@@ -0,0 +1,138 @@
+package sample;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * RouteCache is a thread-safe, size bounded cache of CampusPaths keyed by
+ * the BuildingPair they connect. When the cache is full the least recently
+ * used route is evicted. Every lookup names the version of the graph the
+ * caller is routing on, and all cached routes are dropped as soon as that
+ * version changes.
+ */
+public class RouteCache {
+	private int capacity;
+	private LinkedHashMap<BuildingPair, CampusPath> routes;
+	private int version;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+	// Abstraction function:
+	// routes holds the cached routes in order from least to most recently
+	// used, all computed on version of the graph. hits, misses, evictions
+	// and invalidations count the lookups answered from the cache, the
+	// lookups that were not, the routes dropped to make room and the times
+	// the cache was emptied because the graph changed.
+	// Representation invariant:
+	// routes != null, capacity > 0, routes.size() <= capacity
+	// All fields are guarded by this.
+
+	/**
+	 * @param capacity the largest number of routes to hold
+	 * @requires capacity > 0
+	 * @effects creates a new empty RouteCache
+	 */
+	public RouteCache(int capacity) {
+		this.capacity = capacity;
+		routes = new LinkedHashMap<BuildingPair, CampusPath>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<BuildingPair, CampusPath> eldest) {
+				if (size() > RouteCache.this.capacity) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @param pair the route to look up
+	 * @param graphVersion the current version of the graph being routed on
+	 * @modifies this
+	 * @return the route for pair cached for graphVersion, null if there is
+	 *         none
+	 */
+	public synchronized CampusPath get(BuildingPair pair, int graphVersion) {
+		if (graphVersion != version) {
+			if (!routes.isEmpty()) {
+				invalidations++;
+			}
+			routes.clear();
+			version = graphVersion;
+		}
+		CampusPath path = routes.get(pair);
+		if (path != null) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return path;
+	}
+
+	/**
+	 * @param pair the route to store
+	 * @param path the route for pair
+	 * @param graphVersion the version of the graph path was computed on
+	 * @requires path != null
+	 * @modifies this
+	 * @effects caches path for pair, evicting the least recently used route
+	 *          if the cache is full. Does nothing if the graph has changed
+	 *          since graphVersion.
+	 */
+	public synchronized void put(BuildingPair pair, CampusPath path, int graphVersion) {
+		if (graphVersion == version) {
+			routes.put(pair, path);
+		}
+	}
+
+	/**
+	 * @modifies this
+	 * @effects removes every cached route
+	 */
+	public synchronized void clear() {
+		routes.clear();
+	}
+
+	/**
+	 *
+	 * @return the number of routes cached
+	 */
+	public synchronized int size() {
+		return routes.size();
+	}
+
+	/**
+	 *
+	 * @return the number of lookups answered from the cache
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 *
+	 * @return the number of lookups not answered from the cache
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 *
+	 * @return the number of routes evicted to make room for others
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 *
+	 * @return the number of times the cache was emptied because the graph
+	 *         changed
+	 */
+	public synchronized long getInvalidations() {
+		return invalidations;
+	}
+}
@@ -0,0 +1,55 @@
+package sample;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * RouteQueryEvent is the JDK Flight Recorder event for one call to
+ * CampusModel.getPath while the model is instrumented. Its duration is the
+ * elapsed time of the call, and its fields say which engine answered it,
+ * whether it was answered from the route cache and how much searching it
+ * did. The event is committed only while a recording has it enabled, for
+ * example with -XX:StartFlightRecording or jcmd JFR.start.
+ */
+@Name("sample.RouteQuery")
+@Label("Route Query")
+@Category({ "Campus Maps", "Routing" })
+@Description("A route between two buildings computed by CampusModel.getPath")
+@StackTrace(false)
+public class RouteQueryEvent extends Event {
+	@Label("Start")
+	@Description("Short name of the starting building")
+	String start;
+
+	@Label("Destination")
+	@Description("Short name of the destination building")
+	String destination;
+
+	@Label("Engine")
+	@Description("The search algorithm that answered the query")
+	String engine;
+
+	@Label("Cache Hit")
+	@Description("True if the route was found in the route cache")
+	boolean cacheHit;
+
+	@Label("Found")
+	@Description("True if a path was found")
+	boolean found;
+
+	@Label("Nodes Settled")
+	@Description("Nodes settled, and so popped from the heap, by the search")
+	int settled;
+
+	@Label("Edges Relaxed")
+	@Description("Edges scanned from settled nodes by the search, whether or not they lowered a distance")
+	int relaxed;
+
+	@Label("Heap Pushes")
+	@Description("Nodes pushed onto the heap or moved up in it by the search")
+	int pushed;
+}
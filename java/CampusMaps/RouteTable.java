@@ -0,0 +1,211 @@
+package sample;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * RouteTable is an immutable table of precomputed least cost paths from a
+ * fixed set of source nodes of a CompactGraph. It holds the distance between
+ * every pair of sources and a tree of least cost paths from every source,
+ * so a query from a source is a lookup followed by walking up a tree.
+ *
+ * The table needs one int per graph node for every source, so it suits
+ * graphs with a small number of sources such as campus buildings.
+ */
+public class RouteTable<E> {
+	private CompactGraph<E> g;
+	private Map<E, Integer> rows;
+	private int[] sources;
+	private double[] distances;
+	private int[] trees;
+	// Abstraction function:
+	// sources[i] is the node id of the i-th source, and rows maps the data of
+	// each source node to i. distances[i * sources.length + j] is the least
+	// cost distance from sources[i] to sources[j], infinity if there is no
+	// path. trees[i * n + v], n = g.nodeCount(), is the id of the last edge of
+	// a least cost path from sources[i] to node v, or -1 if v is sources[i]
+	// or cannot be reached from it.
+	// Representation invariant:
+	// g, rows, sources, distances, trees != null; rows.size() == sources.length;
+	// distances.length == sources.length * sources.length;
+	// trees.length == sources.length * g.nodeCount()
+
+	/**
+	 * Runs one search per source on a fork join pool and stores the results.
+	 *
+	 * @param g the graph to route in
+	 * @param sourceNodes the nodes that paths can start from
+	 * @param pool the pool to run the searches on
+	 * @requires g, sourceNodes, pool != null, every edge weight of g is
+	 *           non-negative
+	 * @throws IllegalArgumentException if a node of sourceNodes is not
+	 *             contained in g
+	 * @effects creates a new RouteTable of least cost paths in g from every
+	 *          node in sourceNodes
+	 */
+	public RouteTable(CompactGraph<E> g, Collection<Node<E>> sourceNodes,
+			ForkJoinPool pool) {
+		this.g = g;
+		rows = new HashMap<E, Integer>(sourceNodes.size() * 2);
+		List<Integer> ids = new ArrayList<Integer>();
+		for (Node<E> n : sourceNodes) {
+			int id = g.indexOf(n);
+			if (id < 0) {
+				throw new IllegalArgumentException("Source must be contained in the graph: " + n);
+			}
+			if (!rows.containsKey(n.getData())) {
+				rows.put(n.getData(), ids.size());
+				ids.add(id);
+			}
+		}
+		sources = new int[ids.size()];
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = ids.get(i);
+		}
+		distances = new double[sources.length * sources.length];
+		trees = new int[sources.length * g.nodeCount()];
+		fill(pool);
+		checkRep();
+	}
+
+	/**
+	 *
+	 * @return the number of source nodes in the table
+	 */
+	public int getSourceCount() {
+		return sources.length;
+	}
+
+	/**
+	 *
+	 * @return the number of bytes held by the distance matrix and the
+	 *         path trees
+	 */
+	public long getTableBytes() {
+		return 8L * distances.length + 4L * trees.length;
+	}
+
+	/**
+	 * @param n a node
+	 * @return true iff paths from n are held in the table
+	 */
+	public boolean containsSource(Node<?> n) {
+		return rows.containsKey(n.getData());
+	}
+
+	/**
+	 * @param start a source node
+	 * @param dest a source node
+	 * @throws IllegalArgumentException if start or dest is not a source
+	 * @return the least cost distance from start to dest, infinity if there
+	 *         is no path
+	 */
+	public double getDistance(Node<E> start, Node<E> dest) {
+		return distances[row(start) * sources.length + row(dest)];
+	}
+
+	/**
+	 * Finds the least cost path from a source to any node of the graph.
+	 *
+	 * @param start a source node
+	 * @param dest the destination node of the path
+	 * @throws IllegalArgumentException if start is not a source or dest is
+	 *             not contained in the graph
+	 * @return a List of Edge<Double> representing the path between start and
+	 *         dest. Returns null if no path is found.
+	 */
+	public List<Edge<Double>> getPath(Node<E> start, Node<E> dest) {
+		int base = row(start) * g.nodeCount();
+		int source = g.indexOf(start);
+		int v = g.indexOf(dest);
+		if (v < 0) {
+			throw new IllegalArgumentException(
+					"Destination must be contained in the given graph");
+		}
+		List<Edge<Double>> path = new ArrayList<Edge<Double>>();
+		while (v != source) {
+			int e = trees[base + v];
+			if (e < 0) {
+				return null;
+			}
+			int u = g.source(e);
+			path.add(g.getEdge(u, e));
+			v = u;
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	//Returns the row of a source node, throws IllegalArgumentException if n
+	//is not a source
+	private int row(Node<?> n) {
+		Integer row = rows.get(n.getData());
+		if (row == null) {
+			throw new IllegalArgumentException("Not a source of the table: " + n);
+		}
+		return row;
+	}
+
+	//Runs the search from every source as a task on pool. Each task borrows
+	//a SearchSpace from a pool kept for this call only, so the workers
+	//share as many SearchSpaces as run at once and none outlive the call.
+	private void fill(ForkJoinPool pool) {
+		final int n = g.nodeCount();
+		final SearchSpacePool spaces = new SearchSpacePool(pool.getParallelism());
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < sources.length; i++) {
+			final int row = i;
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					SearchSpace space = spaces.borrow(n);
+					try {
+						Dijkstra.searchAll(sources[row], g, space);
+						for (int v = 0; v < n; v++) {
+							trees[row * n + v] = space.reached(v) ? space.predecessorEdge(v) : -1;
+						}
+						for (int j = 0; j < sources.length; j++) {
+							distances[row * sources.length + j] = space.distance(sources[j]);
+						}
+					} finally {
+						spaces.release(space);
+					}
+					return null;
+				}
+			});
+		}
+		try {
+			for (Future<Void> f : pool.invokeAll(tasks)) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while building route table", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/** Checks that the representation invariant holds */
+	private void checkRep() throws RuntimeException {
+		if (rows.size() != sources.length) {
+			throw new RuntimeException("Every source needs its own row");
+		}
+		if (distances.length != sources.length * sources.length
+				|| trees.length != sources.length * g.nodeCount()) {
+			throw new RuntimeException("Table must have one entry per source and node");
+		}
+		for (int i = 0; i < sources.length; i++) {
+			if (distances[i * sources.length + i] != 0) {
+				throw new RuntimeException("A source must be at distance 0 from itself");
+			}
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package sample;
+
+/**
+ * A RoutingGraph is a read-only directed graph with primitive weights that
+ * Dijkstra's one-directional searches run on. Every node has an integer id
+ * in the range [0, nodeCount()) and the outgoing edges of node u are the
+ * edge ids in the range [firstEdge(u), endEdge(u)).
+ */
+public interface RoutingGraph {
+
+	/**
+	 *
+	 * @return the number of nodes in the graph
+	 */
+	int nodeCount();
+
+	/**
+	 *
+	 * @return the number of edges in the graph
+	 */
+	int edgeCount();
+
+	/**
+	 * @param u the id of a node
+	 * @requires 0 <= u < nodeCount()
+	 * @return the id of the first edge that has u as a parent
+	 */
+	int firstEdge(int u);
+
+	/**
+	 * @param u the id of a node
+	 * @requires 0 <= u < nodeCount()
+	 * @return one past the id of the last edge that has u as a parent
+	 */
+	int endEdge(int u);
+
+	/**
+	 * @param e the id of an edge
+	 * @requires 0 <= e < edgeCount()
+	 * @return the id of the child node of edge e
+	 */
+	int target(int e);
+
+	/**
+	 * @param e the id of an edge
+	 * @requires 0 <= e < edgeCount()
+	 * @return the weight of edge e
+	 */
+	double weight(int e);
+}
@@ -0,0 +1,146 @@
+package sample;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RoutingStats accumulates what the routing queries answered by a
+ * CampusModel cost, separately for each CampusModel.Engine: how many
+ * queries there were, how many of them were answered from the route cache,
+ * the search work they did and a LatencyHistogram of their elapsed times.
+ * Recording never locks or allocates, so any number of threads can record
+ * at once.
+ *
+ * Search work is counted in SearchSpace operations: nodes settled, which
+ * are the nodes popped from the heap, edges relaxed, and nodes pushed onto
+ * the heap or moved up in it. Every engine counts an edge as relaxed when
+ * it scans it from a settled node, whether or not it lowers a distance, so
+ * the counts of different engines can be compared. Edges an engine never
+ * scans, such as the arcs a contraction hierarchy search does not climb,
+ * are not counted.
+ */
+public class RoutingStats {
+	private LongAdder[] queries;
+	private LongAdder[] cacheHits;
+	private LongAdder[] settled;
+	private LongAdder[] relaxed;
+	private LongAdder[] pushed;
+	private LatencyHistogram[] latencies;
+	// Abstraction function:
+	// For each engine e with ordinal i, queries[i] queries were answered by
+	// e, cacheHits[i] of them from the cache, settling settled[i] nodes,
+	// relaxing relaxed[i] edges and pushing pushed[i] nodes in all, and
+	// latencies[i] holds their elapsed times.
+	// Representation invariant:
+	// every array and element != null;
+	// every array has one element per CampusModel.Engine.
+
+	/**
+	 * @effects creates a new RoutingStats that has recorded no queries
+	 */
+	public RoutingStats() {
+		int n = CampusModel.Engine.values().length;
+		queries = adders(n);
+		cacheHits = adders(n);
+		settled = adders(n);
+		relaxed = adders(n);
+		pushed = adders(n);
+		latencies = new LatencyHistogram[n];
+		for (int i = 0; i < n; i++) {
+			latencies[i] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * Counts one query.
+	 *
+	 * @param engine the engine the query was answered with
+	 * @param cacheHit true iff the query was answered from the route cache
+	 * @param settledNodes the number of nodes the query settled
+	 * @param relaxedEdges the number of edges the query relaxed
+	 * @param pushedNodes the number of heap pushes the query made
+	 * @param nanos the elapsed time of the query in nanoseconds
+	 * @requires engine != null
+	 * @modifies this
+	 * @effects adds the query to the totals and histogram of engine
+	 */
+	public void record(CampusModel.Engine engine, boolean cacheHit, int settledNodes,
+			int relaxedEdges, int pushedNodes, long nanos) {
+		int i = engine.ordinal();
+		queries[i].increment();
+		if (cacheHit) {
+			cacheHits[i].increment();
+		}
+		settled[i].add(settledNodes);
+		relaxed[i].add(relaxedEdges);
+		pushed[i].add(pushedNodes);
+		latencies[i].record(nanos);
+	}
+
+	/**
+	 * @param engine an engine
+	 * @requires engine != null
+	 * @return the number of queries answered with engine
+	 */
+	public long getQueries(CampusModel.Engine engine) {
+		return queries[engine.ordinal()].sum();
+	}
+
+	/**
+	 * @param engine an engine
+	 * @requires engine != null
+	 * @return the number of queries answered with engine from the route
+	 *         cache, without searching
+	 */
+	public long getCacheHits(CampusModel.Engine engine) {
+		return cacheHits[engine.ordinal()].sum();
+	}
+
+	/**
+	 * @param engine an engine
+	 * @requires engine != null
+	 * @return the number of nodes settled, and so popped from the heap, by
+	 *         queries answered with engine
+	 */
+	public long getSettled(CampusModel.Engine engine) {
+		return settled[engine.ordinal()].sum();
+	}
+
+	/**
+	 * @param engine an engine
+	 * @requires engine != null
+	 * @return the number of edges scanned from settled nodes, whether or
+	 *         not they lowered a distance, by queries answered with engine
+	 */
+	public long getRelaxed(CampusModel.Engine engine) {
+		return relaxed[engine.ordinal()].sum();
+	}
+
+	/**
+	 * @param engine an engine
+	 * @requires engine != null
+	 * @return the number of heap pushes made by queries answered with
+	 *         engine
+	 */
+	public long getPushed(CampusModel.Engine engine) {
+		return pushed[engine.ordinal()].sum();
+	}
+
+	/**
+	 * @param engine an engine
+	 * @requires engine != null
+	 * @return the live histogram of the elapsed times of queries answered
+	 *         with engine
+	 */
+	public LatencyHistogram getLatency(CampusModel.Engine engine) {
+		return latencies[engine.ordinal()];
+	}
+
+	//Returns n new LongAdders
+	private static LongAdder[] adders(int n) {
+		LongAdder[] result = new LongAdder[n];
+		for (int i = 0; i < n; i++) {
+			result[i] = new LongAdder();
+		}
+		return result;
+	}
+}
@@ -0,0 +1,278 @@
+package sample;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SearchSpace is the mutable scratch state of a shortest path search over a
+ * CompactGraph: a tentative distance and predecessor for every node and a
+ * heap of the nodes whose distance is not yet final. A SearchSpace can be
+ * reused for any number of searches; reset() runs in constant time so a
+ * query only pays for the nodes it touches.
+ *
+ * A SearchSpace must not be shared between threads.
+ */
+public class SearchSpace {
+	private double[] dist;
+	private int[] predNode;
+	private int[] predEdge;
+	private int[] stamp;
+	private int current;
+	private IndexedHeap heap;
+	private int settled;
+	private int relaxed;
+	private int pushed;
+	// Abstraction function:
+	// A node v has been reached by the current search iff stamp[v] == current.
+	// A reached node has tentative distance dist[v] and was reached through
+	// edge predEdge[v] from predNode[v], or predNode[v] == -1 if v is a
+	// source. A reached node is settled iff it is not in heap. Nodes that
+	// have not been reached have an infinite distance. settled counts the
+	// nodes removed from heap by the current search, relaxed the edges
+	// scanned, which are the calls to relax and skipRelax, and pushed the
+	// calls that inserted a node into heap or lowered its key.
+	// Representation invariant:
+	// dist, predNode, predEdge, stamp, heap != null;
+	// dist.length == predNode.length == predEdge.length == stamp.length;
+	// current > 0; every id in heap is reached.
+
+	/**
+	 * @param nodeCount the number of nodes of the graphs to be searched
+	 * @effects creates a new SearchSpace for graphs with at most nodeCount
+	 *          nodes
+	 */
+	public SearchSpace(int nodeCount) {
+		dist = new double[nodeCount];
+		predNode = new int[nodeCount];
+		predEdge = new int[nodeCount];
+		stamp = new int[nodeCount];
+		current = 1;
+		heap = new IndexedHeap(nodeCount);
+	}
+
+	/**
+	 *
+	 * @return the largest number of nodes a searched graph may have
+	 */
+	public int capacity() {
+		return stamp.length;
+	}
+
+	/**
+	 * Forgets the previous search.
+	 *
+	 * @modifies this
+	 * @effects no node is reached and the heap is empty
+	 */
+	public void reset() {
+		heap.clear();
+		settled = 0;
+		relaxed = 0;
+		pushed = 0;
+		current++;
+		if (current == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			current = 1;
+		}
+	}
+
+	/**
+	 * Makes v a source of the search.
+	 *
+	 * @param v the id of the source node
+	 * @param d the starting distance of v
+	 * @modifies this
+	 * @effects v is reached with distance d and no predecessor
+	 */
+	public void addSource(int v, double d) {
+		update(v, d, -1, -1, d);
+	}
+
+	/**
+	 * Makes v a source of the search and orders it in the heap by priority
+	 * instead of by d.
+	 *
+	 * @param v the id of the source node
+	 * @param d the starting distance of v
+	 * @param priority the heap key of v
+	 * @modifies this
+	 * @effects v is reached with distance d and no predecessor
+	 */
+	public void addSource(int v, double d, double priority) {
+		update(v, d, -1, -1, priority);
+	}
+
+	/**
+	 * Lowers the tentative distance of v if d is an improvement.
+	 *
+	 * @param v the id of the node reached
+	 * @param d the length of the path to v through edge e
+	 * @param u the id of the parent node of e
+	 * @param e the id of the edge used to reach v
+	 * @modifies this
+	 * @return true iff v's tentative distance was lowered to d
+	 */
+	public boolean relax(int v, double d, int u, int e) {
+		return relax(v, d, u, e, d);
+	}
+
+	/**
+	 * Lowers the tentative distance of v if d is an improvement and orders v
+	 * in the heap by priority instead of by d.
+	 *
+	 * @param v the id of the node reached
+	 * @param d the length of the path to v through edge e
+	 * @param u the id of the parent node of e
+	 * @param e the id of the edge used to reach v
+	 * @param priority the heap key of v
+	 * @modifies this
+	 * @return true iff v's tentative distance was lowered to d
+	 */
+	public boolean relax(int v, double d, int u, int e, double priority) {
+		relaxed++;
+		return update(v, d, u, e, priority);
+	}
+
+	/**
+	 * Counts an edge that the caller scanned but did not pass to relax
+	 * because it cannot lower a distance, for example because d is not less
+	 * than distance(v) and computing the priority would be wasted.
+	 *
+	 * @modifies this
+	 * @effects relaxedCount() grows by one, as if relax had been called
+	 */
+	public void skipRelax() {
+		relaxed++;
+	}
+
+	//Lowers the tentative distance of v to d if that is an improvement,
+	//without counting an edge. Returns true iff it was lowered.
+	private boolean update(int v, double d, int u, int e, double priority) {
+		if (stamp[v] == current && (d >= dist[v] || !heap.contains(v))) {
+			return false;
+		}
+		stamp[v] = current;
+		dist[v] = d;
+		predNode[v] = u;
+		predEdge[v] = e;
+		heap.push(v, priority);
+		pushed++;
+		return true;
+	}
+
+	/**
+	 *
+	 * @return true iff no reached node remains to be settled
+	 */
+	public boolean isEmpty() {
+		return heap.isEmpty();
+	}
+
+	/**
+	 * @requires !isEmpty()
+	 * @return the smallest heap key of a node that is not yet settled
+	 */
+	public double minKey() {
+		return heap.minKey();
+	}
+
+	/**
+	 * Settles the reached node with the smallest heap key.
+	 *
+	 * @requires !isEmpty()
+	 * @modifies this
+	 * @return the id of the settled node
+	 */
+	public int settle() {
+		settled++;
+		return heap.pop();
+	}
+
+	/**
+	 *
+	 * @return the number of nodes settled since the last reset(), which is
+	 *         also the number of nodes popped from the heap
+	 */
+	public int settledCount() {
+		return settled;
+	}
+
+	/**
+	 *
+	 * @return the number of edges scanned since the last reset(): every
+	 *         edge passed to relax or counted by skipRelax, whether or not
+	 *         it lowered a distance. Sources are not edges and are not
+	 *         counted.
+	 */
+	public int relaxedCount() {
+		return relaxed;
+	}
+
+	/**
+	 *
+	 * @return the number of nodes pushed onto the heap or moved up in it
+	 *         since the last reset()
+	 */
+	public int pushedCount() {
+		return pushed;
+	}
+
+	/**
+	 * @param v the id of a node
+	 * @return true iff v has been reached since the last reset()
+	 */
+	public boolean reached(int v) {
+		return stamp[v] == current;
+	}
+
+	/**
+	 * @param v the id of a node
+	 * @return true iff v has been reached and settled since the last reset()
+	 */
+	public boolean isSettled(int v) {
+		return stamp[v] == current && !heap.contains(v);
+	}
+
+	/**
+	 * @param v the id of a node
+	 * @return the tentative distance of v, infinity if v has not been reached
+	 */
+	public double distance(int v) {
+		return stamp[v] == current ? dist[v] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @param v the id of a reached node
+	 * @return the id of the node v was reached from, -1 if v is a source
+	 */
+	public int predecessor(int v) {
+		return predNode[v];
+	}
+
+	/**
+	 * @param v the id of a reached node
+	 * @return the id of the edge v was reached through, -1 if v is a source
+	 */
+	public int predecessorEdge(int v) {
+		return predEdge[v];
+	}
+
+	/**
+	 * Rebuilds the path to a reached node by following predecessors back to
+	 * a source.
+	 *
+	 * @param g the graph that was searched
+	 * @param v the id of a reached node
+	 * @return the Edges of the path from a source to v in order
+	 */
+	public <E> List<Edge<Double>> pathTo(CompactGraph<E> g, int v) {
+		List<Edge<Double>> path = new ArrayList<Edge<Double>>();
+		for (; predNode[v] >= 0; v = predNode[v]) {
+			path.add(g.getEdge(predNode[v], predEdge[v]));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+}
@@ -0,0 +1,84 @@
+package sample;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SearchSpacePool is a thread-safe free list of SearchSpaces. A query
+ * borrows scratch state for the length of one search and gives it back, so
+ * the number of SearchSpaces allocated follows the number of searches that
+ * run at the same time rather than the number of threads that ever ran
+ * one. This matters when every request runs on a new thread, as with
+ * virtual threads, where a ThreadLocal would allocate for every request.
+ *
+ * The most recently returned SearchSpace is lent first, since its arrays
+ * are the most likely to still be in cache.
+ */
+public class SearchSpacePool {
+	private ConcurrentLinkedDeque<SearchSpace> free;
+	private AtomicInteger idle;
+	private int maxIdle;
+	// Abstraction function:
+	// free holds the SearchSpaces ready to be lent, most recently returned
+	// first, and idle counts them; at most maxIdle are kept.
+	// Representation invariant:
+	// free, idle != null, maxIdle > 0, idle is approximately free.size()
+	// and never more than maxIdle
+
+	/**
+	 * @param maxIdle the largest number of SearchSpaces to keep while
+	 *            nothing borrows them
+	 * @requires maxIdle > 0
+	 * @effects creates a new empty SearchSpacePool
+	 */
+	public SearchSpacePool(int maxIdle) {
+		free = new ConcurrentLinkedDeque<SearchSpace>();
+		idle = new AtomicInteger();
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * Lends a SearchSpace, allocating one if none is free or the free one is
+	 * too small.
+	 *
+	 * @param nodeCount the number of nodes of the graph to be searched
+	 * @modifies this
+	 * @return a SearchSpace with capacity() >= nodeCount and no reached
+	 *         nodes, which the caller uses alone until it calls release
+	 */
+	public SearchSpace borrow(int nodeCount) {
+		SearchSpace space = free.pollFirst();
+		if (space != null) {
+			idle.decrementAndGet();
+			if (space.capacity() >= nodeCount) {
+				space.reset();
+				return space;
+			}
+		}
+		return new SearchSpace(nodeCount);
+	}
+
+	/**
+	 * Returns a borrowed SearchSpace to the pool.
+	 *
+	 * @param space a SearchSpace returned by borrow, or null
+	 * @modifies this
+	 * @effects space may be lent again; it is dropped if space is null or
+	 *          the pool already holds maxIdle SearchSpaces
+	 */
+	public void release(SearchSpace space) {
+		if (space != null && idle.incrementAndGet() <= maxIdle) {
+			free.offerFirst(space);
+		} else if (space != null) {
+			idle.decrementAndGet();
+		}
+	}
+
+	/**
+	 *
+	 * @return the number of SearchSpaces waiting to be lent
+	 */
+	public int idleCount() {
+		return idle.get();
+	}
+}
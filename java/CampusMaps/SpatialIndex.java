@@ -0,0 +1,234 @@
+package sample;
+
+/**
+ * SpatialIndex is an immutable k-d tree over the locations of the nodes of
+ * a CompactGraph<CampusLocation>. It finds the node nearest to any point,
+ * or the k nearest nodes, in time logarithmic in the number of nodes for
+ * evenly spread locations, which lets routes start and end at arbitrary
+ * points such as map clicks.
+ *
+ * The tree is stored in three parallel arrays. The subtree over positions
+ * [lo, hi) has its root at position (lo + hi) / 2, and splits the positions
+ * before and after the root by x at even depths and by y at odd depths.
+ */
+public class SpatialIndex {
+	private double[] xs;
+	private double[] ys;
+	private int[] ids;
+	// Abstraction function:
+	// Position p of the tree holds node ids[p] of the graph, which is at
+	// (xs[p], ys[p]).
+	// Representation invariant:
+	// xs, ys, ids != null, all three have the same length; for the subtree
+	// over [lo, hi) at depth d with root mid = (lo + hi) / 2, every position
+	// in [lo, mid) has a coordinate on axis d % 2 no greater than that of
+	// mid, and every position in (mid, hi) one no less.
+
+	/**
+	 * @param g the graph whose node locations are indexed
+	 * @requires g != null
+	 * @effects creates a new SpatialIndex of the locations of every node of g
+	 */
+	public SpatialIndex(CompactGraph<CampusLocation> g) {
+		int n = g.nodeCount();
+		xs = new double[n];
+		ys = new double[n];
+		ids = new int[n];
+		for (int v = 0; v < n; v++) {
+			CampusLocation l = g.getNode(v).getData();
+			xs[v] = l.getX();
+			ys[v] = l.getY();
+			ids[v] = v;
+		}
+		build(0, n, 0);
+		checkRep();
+	}
+
+	/**
+	 *
+	 * @return the number of indexed locations
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * @param x the x coordinate of a point
+	 * @param y the y coordinate of a point
+	 * @return the id of a node at the least straight line distance from
+	 *         (x, y), or -1 if no location is indexed
+	 */
+	public int nearest(double x, double y) {
+		int[] result = nearest(x, y, 1);
+		return result.length == 0 ? -1 : result[0];
+	}
+
+	/**
+	 * @param x the x coordinate of a point
+	 * @param y the y coordinate of a point
+	 * @param k the number of nodes to find
+	 * @requires k >= 0
+	 * @return the ids of the min(k, size()) nodes closest to (x, y) in
+	 *         increasing order of straight line distance
+	 */
+	public int[] nearest(double x, double y, int k) {
+		Neighbors best = new Neighbors(Math.min(k, ids.length));
+		if (best.capacity() > 0) {
+			search(0, ids.length, 0, x, y, best);
+		}
+		return best.sortedIds();
+	}
+
+	//Arranges positions [lo, hi) into a subtree at the given depth
+	private void build(int lo, int hi, int depth) {
+		if (hi - lo < 2) {
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		select(lo, hi - 1, mid, depth % 2 == 0 ? xs : ys);
+		build(lo, mid, depth + 1);
+		build(mid + 1, hi, depth + 1);
+	}
+
+	//Reorders positions [lo, hi] so that position k holds the value that
+	//belongs there in sorted order of key, with no greater keys before it
+	//and no smaller keys after it
+	private void select(int lo, int hi, int k, double[] key) {
+		while (lo < hi) {
+			double pivot = key[(lo + hi) >>> 1];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (key[i] < pivot) {
+					i++;
+				}
+				while (key[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swap(i++, j--);
+				}
+			}
+			if (k <= j) {
+				hi = j;
+			} else if (k >= i) {
+				lo = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	//Swaps the locations at positions i and j
+	private void swap(int i, int j) {
+		double x = xs[i];
+		xs[i] = xs[j];
+		xs[j] = x;
+		double y = ys[i];
+		ys[i] = ys[j];
+		ys[j] = y;
+		int id = ids[i];
+		ids[i] = ids[j];
+		ids[j] = id;
+	}
+
+	//Offers every position of the subtree over [lo, hi) that could be
+	//closer to (x, y) than the current k-th best to best
+	private void search(int lo, int hi, int depth, double x, double y, Neighbors best) {
+		if (lo >= hi) {
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		double dx = x - xs[mid];
+		double dy = y - ys[mid];
+		best.offer(ids[mid], dx * dx + dy * dy);
+		double diff = depth % 2 == 0 ? dx : dy;
+		if (diff < 0) {
+			search(lo, mid, depth + 1, x, y, best);
+			if (diff * diff < best.bound()) {
+				search(mid + 1, hi, depth + 1, x, y, best);
+			}
+		} else {
+			search(mid + 1, hi, depth + 1, x, y, best);
+			if (diff * diff < best.bound()) {
+				search(lo, mid, depth + 1, x, y, best);
+			}
+		}
+	}
+
+	/** Checks that the representation invariant holds */
+	private void checkRep() throws RuntimeException {
+		if (xs.length != ids.length || ys.length != ids.length) {
+			throw new RuntimeException("Every position needs a location and a node");
+		}
+	}
+
+	//A bounded max-heap of the closest nodes found so far by squared
+	//distance
+	private static class Neighbors {
+		private final int[] ids;
+		private final double[] dists;
+		private int size;
+
+		Neighbors(int capacity) {
+			ids = new int[capacity];
+			dists = new double[capacity];
+		}
+
+		int capacity() {
+			return ids.length;
+		}
+
+		//Returns the squared distance a node must beat to be kept
+		double bound() {
+			return size < ids.length ? Double.POSITIVE_INFINITY : dists[0];
+		}
+
+		//Keeps id if it is among the closest nodes seen
+		void offer(int id, double dist) {
+			if (size < ids.length) {
+				int i = size++;
+				while (i > 0 && dists[(i - 1) / 2] < dist) {
+					ids[i] = ids[(i - 1) / 2];
+					dists[i] = dists[(i - 1) / 2];
+					i = (i - 1) / 2;
+				}
+				ids[i] = id;
+				dists[i] = dist;
+			} else if (dist < dists[0]) {
+				siftDown(id, dist, size);
+			}
+		}
+
+		//Replaces the root of the first n elements with id and restores
+		//the heap order
+		private void siftDown(int id, double dist, int n) {
+			int i = 0;
+			while (2 * i + 1 < n) {
+				int c = 2 * i + 1;
+				if (c + 1 < n && dists[c + 1] > dists[c]) {
+					c++;
+				}
+				if (dists[c] <= dist) {
+					break;
+				}
+				ids[i] = ids[c];
+				dists[i] = dists[c];
+				i = c;
+			}
+			ids[i] = id;
+			dists[i] = dist;
+		}
+
+		//Empties the heap and returns the ids in increasing order of distance
+		int[] sortedIds() {
+			int[] result = new int[size];
+			for (int n = size; n > 0; n--) {
+				result[n - 1] = ids[0];
+				siftDown(ids[n - 1], dists[n - 1], n - 1);
+			}
+			size = 0;
+			return result;
+		}
+	}
+}
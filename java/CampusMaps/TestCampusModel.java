@@ -0,0 +1,227 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TestCampusModel {
+	public Graph<CampusLocation, Double> graph = TestCompactGraph.randomGraph(150, 450, 16);
+	public CampusModel model;
+	public List<CampusBuilding> buildings;
+	public double[][] expected;
+
+	@Before
+	public void setUp() throws IOException{
+		StringBuilder buildingText = new StringBuilder();
+		StringBuilder pathText = new StringBuilder();
+		List<Node<CampusLocation>> nodes = new ArrayList<Node<CampusLocation>>(graph.getNodes());
+		for (int i = 0; i < 25; i++){
+			CampusLocation l = nodes.get(i).getData();
+			buildingText.append("B" + i + "\tBuilding " + i + "\t" + l.getX() + "\t" + l.getY() + "\n");
+		}
+		for (Node<CampusLocation> n : nodes){
+			pathText.append(n.getData().getX() + "," + n.getData().getY() + "\n");
+			for (Edge<Double> e : graph.getChildren(n)){
+				CampusLocation l = (CampusLocation) e.getChild().getData();
+				pathText.append("\t" + l.getX() + "," + l.getY() + ": " + e.getLabel() + "\n");
+			}
+		}
+		model = new CampusModel(writeFile(buildingText.toString()),
+				writeFile(pathText.toString()));
+		buildings = new ArrayList<CampusBuilding>(model.getBuildings());
+		CompactGraph<CampusLocation> snapshot = CompactGraph.freeze(graph);
+		SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		expected = new double[buildings.size()][buildings.size()];
+		for (int i = 0; i < buildings.size(); i++){
+			for (int j = 0; j < buildings.size(); j++){
+				expected[i][j] = TestDijkstra.length(Dijkstra.getPath(node(buildings.get(i)),
+						node(buildings.get(j)), snapshot, space));
+			}
+		}
+	}
+
+	@Test
+	public void TestEnginesMatchDijkstra(){
+		for (CampusModel.Engine engine : CampusModel.Engine.values()){
+			model.setEngine(engine);
+			assertEquals(engine, model.getEngine());
+			model.getRouteCache().clear();
+			for (int i = 0; i < buildings.size(); i++){
+				for (int j = 0; j < buildings.size(); j++){
+					assertEquals(engine.toString(), expected[i][j],
+							distance(model.getPath(buildings.get(i), buildings.get(j))), 1e-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void TestBatchMatchesGetPath(){
+		List<BuildingPair> pairs = new ArrayList<BuildingPair>();
+		for (CampusBuilding a : buildings){
+			for (CampusBuilding b : buildings){
+				pairs.add(new BuildingPair(a, b));
+			}
+		}
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try{
+			List<CampusPath> parallel = model.getPaths(pairs, pool);
+			List<CampusPath> common = model.getPaths(pairs);
+			for (int i = 0; i < pairs.size(); i++){
+				double d = expected[i / buildings.size()][i % buildings.size()];
+				assertEquals(d, distance(parallel.get(i)), 1e-9);
+				assertEquals(d, distance(common.get(i)), 1e-9);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void TestDistancesMatchGetPath(){
+		double[][] matrix = model.getDistanceMatrix(buildings, buildings);
+		for (int i = 0; i < buildings.size(); i++){
+			double[] row = model.getDistances(buildings.get(i), buildings);
+			for (int j = 0; j < buildings.size(); j++){
+				assertEquals(expected[i][j], row[j], 1e-9);
+				assertEquals(expected[i][j], matrix[i][j], 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void TestAlternativePaths(){
+		for (int i = 0; i < buildings.size(); i++){
+			for (int j = 0; j < buildings.size(); j++){
+				List<CampusPath> paths = model.getAlternativePaths(buildings.get(i), buildings.get(j), 3);
+				assertTrue(paths.size() <= 3);
+				assertEquals(expected[i][j] == Double.POSITIVE_INFINITY, paths.isEmpty());
+				Set<List<CampusLocation>> seen = new HashSet<List<CampusLocation>>();
+				double previous = 0;
+				for (CampusPath p : paths){
+					assertTrue(seen.add(p.getPathLocations()));
+					assertTrue(p.getTotalDistance() >= previous - 1e-9);
+					previous = p.getTotalDistance();
+				}
+				if (!paths.isEmpty()){
+					assertEquals(expected[i][j], paths.get(0).getTotalDistance(), 1e-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void TestArea(){
+		for (int i = 0; i < buildings.size(); i++){
+			CampusArea area = model.getArea(buildings.get(i), 1500);
+			List<CampusBuilding> inside = area.getBuildings();
+			int count = 0;
+			for (int j = 0; j < buildings.size(); j++){
+				if (expected[i][j] <= 1500){
+					count++;
+					int k = inside.indexOf(buildings.get(j));
+					assertTrue(k >= 0);
+					assertEquals(expected[i][j], area.getBuildingDistances().get(k), 1e-9);
+				}
+			}
+			assertEquals(count, inside.size());
+		}
+	}
+
+	@Test
+	public void TestInstrumentation(){
+		model.setInstrumented(true);
+		int k = 1;
+		while (expected[k / buildings.size()][k % buildings.size()] == Double.POSITIVE_INFINITY){
+			k++;
+		}
+		CampusBuilding a = buildings.get(k / buildings.size());
+		CampusBuilding b = buildings.get(k % buildings.size());
+		model.getPath(a, b);
+		model.getPath(a, b);
+		RoutingStats stats = model.getRoutingStats();
+		CampusModel.Engine engine = model.getEngine();
+		assertEquals(2, stats.getQueries(engine));
+		assertEquals(1, stats.getCacheHits(engine));
+		assertEquals(2, stats.getLatency(engine).getCount());
+		model.setInstrumented(false);
+		model.getPath(b, a);
+		assertEquals(2, stats.getQueries(engine));
+	}
+
+	@Test
+	public void TestSetEngineWhileRouting() throws InterruptedException{
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final AtomicBoolean stop = new AtomicBoolean();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 3; t++){
+			final Random random = new Random(t);
+			threads.add(new Thread(() -> {
+				try{
+					while (!stop.get()){
+						int i = random.nextInt(buildings.size());
+						int j = random.nextInt(buildings.size());
+						model.getRouteCache().clear();
+						assertEquals(expected[i][j],
+								distance(model.getPath(buildings.get(i), buildings.get(j))), 1e-9);
+					}
+				} catch (Throwable e){
+					failure.compareAndSet(null, e);
+				}
+			}));
+		}
+		for (Thread t : threads){
+			t.start();
+		}
+		CampusModel.Engine[] engines = CampusModel.Engine.values();
+		for (int i = 0; i < 60; i++){
+			model.setEngine(engines[i % engines.length]);
+		}
+		stop.set(true);
+		for (Thread t : threads){
+			t.join();
+		}
+		assertNull(failure.get());
+	}
+
+	//Returns the node of the path graph at a building's location
+	private static Node<CampusLocation> node(CampusBuilding b){
+		return new Node<CampusLocation>(b.getLocation());
+	}
+
+	//Returns the length of a CampusPath, infinity if there is no path
+	private static double distance(CampusPath path){
+		return path == null ? Double.POSITIVE_INFINITY : path.getTotalDistance();
+	}
+
+	/**
+	 * @param text the contents of the file
+	 * @return the name of a new temporary file holding text, deleted when
+	 * the JVM exits
+	 */
+	static String writeFile(String text) throws IOException{
+		File file = File.createTempFile("campus", ".dat");
+		file.deleteOnExit();
+		FileWriter out = new FileWriter(file);
+		try{
+			out.write(text);
+		} finally {
+			out.close();
+		}
+		return file.getPath();
+	}
+}
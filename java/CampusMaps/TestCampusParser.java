@@ -0,0 +1,101 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+
+public class TestCampusParser {
+
+	@Test
+	public void TestMappedMatchesLines() throws Exception{
+		Random random = new Random(7);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 300; i++){
+			text.append(number(random)).append(',').append(number(random)).append('\n');
+			for (int j = random.nextInt(4); j > 0; j--){
+				text.append('\t').append(number(random)).append(',').append(number(random))
+						.append(": ").append(number(random)).append('\n');
+			}
+		}
+		assertSameGraph(TestCampusModel.writeFile(text.toString()));
+		assertSameGraph(TestCampusModel.writeFile(text.toString().replace("\n", "\r\n")));
+	}
+
+	@Test
+	public void TestMappedMatchesLinesOnCampusFormat() throws Exception{
+		assertSameGraph(TestCampusModel.writeFile("1914.5103,1709.8816\n"
+				+ "\t1910.6,1716.1107: 7.3313\n"
+				+ "\t1923.4389,1704.8816: 10.2449\n"
+				+ "1910.6,1716.1107\n"
+				+ "\t1914.5103,1709.8816: 7.3313\n"));
+	}
+
+	@Test
+	public void TestInternsLocations() throws Exception{
+		String file = TestCampusModel.writeFile("0,0\n\t1,0: 1.0\n\t0,1: 1.0\n"
+				+ "1,0\n\t0,0: 1.0\n\t0,1: 1.5\n0,1\n\t0,0: 1.0\n");
+		GraphBuilder<CampusLocation, Double> lines = new GraphBuilder<CampusLocation, Double>();
+		CampusParser.parsePaths(file, lines);
+		assertEquals(3, distinctNodes(lines.build()));
+		GraphBuilder<CampusLocation, Double> mapped = new GraphBuilder<CampusLocation, Double>();
+		CampusParser.parsePathsMapped(file, mapped);
+		assertEquals(3, distinctNodes(mapped.build()));
+	}
+
+	@Test
+	public void TestMappedRejectsMalformed() throws Exception{
+		String[] malformed = { "1,2\n\t3,4 5\n", "1;2\n", "\t1,2: 3\n", "1,2\n\tx,4: 5\n" };
+		for (String text : malformed){
+			try{
+				CampusParser.parsePathsMapped(TestCampusModel.writeFile(text),
+						new GraphBuilder<CampusLocation, Double>());
+				fail("Accepted " + text);
+			} catch (Exception e){}
+		}
+	}
+
+	//Parses file with both parsers and fails unless they give the same graph
+	private static void assertSameGraph(String file) throws Exception{
+		GraphBuilder<CampusLocation, Double> lines = new GraphBuilder<CampusLocation, Double>();
+		CampusParser.parsePaths(file, lines);
+		GraphBuilder<CampusLocation, Double> mapped = new GraphBuilder<CampusLocation, Double>();
+		CampusParser.parsePathsMapped(file, mapped);
+		Graph<CampusLocation, Double> expected = lines.build();
+		Graph<CampusLocation, Double> actual = mapped.build();
+		assertEquals(expected.getNodes(), actual.getNodes());
+		assertEquals(new HashSet<Edge<Double>>(expected.getEdges()),
+				new HashSet<Edge<Double>>(actual.getEdges()));
+	}
+
+	//Returns a random number written the way Double.toString or a fixed
+	//number of decimals would write it
+	private static String number(Random random){
+		switch (random.nextInt(4)){
+		case 0:
+			return Double.toString(random.nextDouble() * 5000);
+		case 1:
+			return String.format("%." + random.nextInt(6) + "f", random.nextDouble() * 5000);
+		case 2:
+			return Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(30) - 10));
+		default:
+			return Integer.toString(random.nextInt(5000));
+		}
+	}
+
+	//Returns the number of distinct Node objects used by the edges of g
+	private static int distinctNodes(Graph<CampusLocation, Double> g){
+		Set<Node<?>> nodes = Collections.newSetFromMap(new IdentityHashMap<Node<?>, Boolean>());
+		for (Edge<Double> e : g.getEdges()){
+			nodes.add(e.getParent());
+			nodes.add(e.getChild());
+		}
+		return nodes.size();
+	}
+}
@@ -0,0 +1,118 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+
+public class TestCompactGraph {
+	public Graph<CampusLocation, Double> graph = randomGraph(200, 800, 1);
+	public CompactGraph<CampusLocation> snapshot = CompactGraph.freeze(graph);
+
+	@Test
+	public void TestFreezeCounts(){
+		assertEquals(graph.getNodes().size(), snapshot.nodeCount());
+		assertEquals(graph.getEdges().size(), snapshot.edgeCount());
+	}
+
+	@Test
+	public void TestIndexOf(){
+		for (int u = 0; u < snapshot.nodeCount(); u++){
+			assertEquals(u, snapshot.indexOf(snapshot.getNode(u)));
+			assertTrue(graph.containsNode(snapshot.getNode(u)));
+		}
+		assertEquals(-1, snapshot.indexOf(new Node<CampusLocation>(new CampusLocation(-1, -1))));
+	}
+
+	@Test
+	public void TestForwardEdges(){
+		Set<Edge<Double>> edges = new HashSet<Edge<Double>>();
+		for (int u = 0; u < snapshot.nodeCount(); u++){
+			assertTrue(snapshot.firstEdge(u) <= snapshot.endEdge(u));
+			for (int e = snapshot.firstEdge(u); e < snapshot.endEdge(u); e++){
+				assertEquals(u, snapshot.source(e));
+				Edge<Double> edge = snapshot.getEdge(u, e);
+				assertEquals(snapshot.weight(e), edge.getLabel().doubleValue(), 0);
+				assertEquals(snapshot.getNode(snapshot.target(e)), edge.getChild());
+				edges.add(edge);
+			}
+		}
+		assertEquals(new HashSet<Edge<Double>>(graph.getEdges()), edges);
+	}
+
+	@Test
+	public void TestReverseEdges(){
+		int seen = 0;
+		for (int v = 0; v < snapshot.nodeCount(); v++){
+			for (int r = snapshot.firstReverseEdge(v); r < snapshot.endReverseEdge(v); r++){
+				int e = snapshot.reverseEdge(r);
+				assertEquals(v, snapshot.target(e));
+				assertEquals(snapshot.source(e), snapshot.reverseSource(r));
+				seen++;
+			}
+		}
+		assertEquals(snapshot.edgeCount(), seen);
+	}
+
+	@Test
+	public void TestDetachedFromGraph(){
+		Node<CampusLocation> extra = new Node<CampusLocation>(new CampusLocation(-5, -5));
+		graph.addNode(extra);
+		List<Edge<Double>> edges = graph.getEdges();
+		graph.removeEdge(edges.get(0));
+		assertEquals(graph.getNodes().size() - 1, snapshot.nodeCount());
+		assertEquals(graph.getEdges().size() + 1, snapshot.edgeCount());
+		assertEquals(-1, snapshot.indexOf(extra));
+	}
+
+	/**
+	 * @param nodeCount the number of nodes
+	 * @param edgeCount the number of edges
+	 * @param seed the seed of the random choices
+	 * @return a directed graph of nodeCount nodes at random locations and
+	 * edgeCount edges between random pairs of distinct nodes, each weighted
+	 * between one and two times the straight line distance it spans
+	 */
+	static Graph<CampusLocation, Double> randomGraph(int nodeCount, int edgeCount, long seed){
+		Random random = new Random(seed);
+		GraphBuilder<CampusLocation, Double> builder = new GraphBuilder<CampusLocation, Double>();
+		List<Node<CampusLocation>> nodes = new ArrayList<Node<CampusLocation>>();
+		for (int i = 0; i < nodeCount; i++){
+			nodes.add(new Node<CampusLocation>(new CampusLocation(
+					random.nextInt(100000) / 100.0, random.nextInt(100000) / 100.0)));
+		}
+		builder.addNodes(nodes);
+		Set<List<Node<CampusLocation>>> joined = new HashSet<List<Node<CampusLocation>>>();
+		while (joined.size() < edgeCount){
+			Node<CampusLocation> a = nodes.get(random.nextInt(nodeCount));
+			Node<CampusLocation> b = nodes.get(random.nextInt(nodeCount));
+			List<Node<CampusLocation>> pair = new ArrayList<Node<CampusLocation>>();
+			pair.add(a);
+			pair.add(b);
+			if (!a.equals(b) && joined.add(pair)){
+				double d = Math.hypot(a.getData().getX() - b.getData().getX(),
+						a.getData().getY() - b.getData().getY());
+				builder.addEdge(new Edge<Double>(a, b, d * (1 + random.nextDouble())));
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * @param g a snapshot
+	 * @return the nodes of g in order of id
+	 */
+	static <E> List<Node<E>> nodes(CompactGraph<E> g){
+		List<Node<E>> result = new ArrayList<Node<E>>();
+		for (int u = 0; u < g.nodeCount(); u++){
+			result.add(g.getNode(u));
+		}
+		return result;
+	}
+}
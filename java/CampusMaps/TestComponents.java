@@ -0,0 +1,104 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+
+public class TestComponents {
+	public CompactGraph<CampusLocation> snapshot =
+			CompactGraph.freeze(TestCompactGraph.randomGraph(300, 330, 11));
+	public Components components = new Components(snapshot);
+	public boolean[][] reaches = reachability(snapshot);
+
+	@Test
+	public void TestStrongComponents(){
+		Set<Integer> labels = new HashSet<Integer>();
+		for (int u = 0; u < snapshot.nodeCount(); u++){
+			labels.add(components.getStrongComponent(u));
+			for (int v = 0; v < snapshot.nodeCount(); v++){
+				assertEquals(reaches[u][v] && reaches[v][u], components.isStronglyConnected(u, v));
+			}
+		}
+		assertEquals(labels.size(), components.getStrongCount());
+		assertTrue(components.getStrongCount() > 1);
+	}
+
+	@Test
+	public void TestWeakComponents(){
+		boolean[][] joined = new boolean[snapshot.nodeCount()][snapshot.nodeCount()];
+		for (int u = 0; u < snapshot.nodeCount(); u++){
+			for (int v = 0; v < snapshot.nodeCount(); v++){
+				joined[u][v] = reaches[u][v] || reaches[v][u];
+			}
+		}
+		// close the undirected relation transitively
+		for (int k = 0; k < snapshot.nodeCount(); k++){
+			for (int u = 0; u < snapshot.nodeCount(); u++){
+				if (joined[u][k]){
+					for (int v = 0; v < snapshot.nodeCount(); v++){
+						joined[u][v] |= joined[k][v];
+					}
+				}
+			}
+		}
+		Set<Integer> labels = new HashSet<Integer>();
+		for (int u = 0; u < snapshot.nodeCount(); u++){
+			labels.add(components.getWeakComponent(u));
+			for (int v = 0; v < snapshot.nodeCount(); v++){
+				assertEquals(joined[u][v], components.getWeakComponent(u) == components.getWeakComponent(v));
+			}
+		}
+		assertEquals(labels.size(), components.getWeakCount());
+		assertTrue(components.getWeakCount() > 1);
+	}
+
+	@Test
+	public void TestCannotReachIsSound(){
+		int ruledOut = 0;
+		for (int u = 0; u < snapshot.nodeCount(); u++){
+			for (int v = 0; v < snapshot.nodeCount(); v++){
+				if (components.cannotReach(u, v)){
+					assertFalse(reaches[u][v]);
+					ruledOut++;
+				}
+			}
+		}
+		assertTrue(ruledOut > 0);
+	}
+
+	@Test
+	public void TestCannotReachIsExact(){
+		assertTrue(components.isExact());
+		for (int u = 0; u < snapshot.nodeCount(); u++){
+			for (int v = 0; v < snapshot.nodeCount(); v++){
+				assertEquals(!reaches[u][v], components.cannotReach(u, v));
+			}
+		}
+	}
+
+	//Returns whether each node reaches each other node, found by a depth
+	//first search from every node
+	private static boolean[][] reachability(CompactGraph<?> g){
+		boolean[][] result = new boolean[g.nodeCount()][g.nodeCount()];
+		int[] stack = new int[g.nodeCount()];
+		for (int s = 0; s < g.nodeCount(); s++){
+			int size = 0;
+			stack[size++] = s;
+			result[s][s] = true;
+			while (size > 0){
+				int u = stack[--size];
+				for (int e = g.firstEdge(u); e < g.endEdge(u); e++){
+					if (!result[s][g.target(e)]){
+						result[s][g.target(e)] = true;
+						stack[size++] = g.target(e);
+					}
+				}
+			}
+		}
+		return result;
+	}
+}
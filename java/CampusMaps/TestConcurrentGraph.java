@@ -0,0 +1,74 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+
+public class TestConcurrentGraph {
+	public Graph<CampusLocation, Double> paths = TestCompactGraph.randomGraph(150, 500, 17);
+	public ConcurrentGraph<CampusLocation> graph = new ConcurrentGraph<CampusLocation>(paths);
+
+	@Test
+	public void TestSnapshotIsStable(){
+		CompactGraph<CampusLocation> before = graph.snapshot();
+		assertSame(before, graph.snapshot());
+		Edge<Double> e = before.getEdge(before.source(0), 0);
+		graph.removeEdge(e);
+		assertEquals(before.edgeCount() - 1, graph.snapshot().edgeCount());
+		assertEquals(before.target(0), before.indexOf(e.getChild()));
+	}
+
+	@Test
+	public void TestReadersSeeWholeBatches() throws InterruptedException{
+		final List<Edge<Double>> batch = paths.getEdges().subList(0, 40);
+		final int open = graph.snapshot().edgeCount();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final AtomicBoolean stop = new AtomicBoolean();
+		List<Thread> readers = new ArrayList<Thread>();
+		for (int t = 0; t < 3; t++){
+			final Random random = new Random(t);
+			readers.add(new Thread(() -> {
+				try{
+					SearchSpace space = new SearchSpace(open);
+					while (!stop.get()){
+						CompactGraph<CampusLocation> g = graph.snapshot();
+						assertTrue(g.edgeCount() == open || g.edgeCount() == open - batch.size());
+						Node<CampusLocation> a = g.getNode(random.nextInt(g.nodeCount()));
+						Node<CampusLocation> b = g.getNode(random.nextInt(g.nodeCount()));
+						TestDijkstra.assertConnected(Dijkstra.getPath(a, b, g, space), a, b);
+					}
+				} catch (Throwable e){
+					failure.compareAndSet(null, e);
+				}
+			}));
+		}
+		for (Thread t : readers){
+			t.start();
+		}
+		for (int i = 0; i < 50; i++){
+			final boolean close = i % 2 == 0;
+			graph.update(g -> {
+				for (Edge<Double> e : batch){
+					if (close){
+						g.removeEdge(e);
+					} else {
+						g.addEdge(e);
+					}
+				}
+			});
+		}
+		stop.set(true);
+		for (Thread t : readers){
+			t.join();
+		}
+		assertNull(failure.get());
+		assertEquals(open, graph.snapshot().edgeCount());
+	}
+}
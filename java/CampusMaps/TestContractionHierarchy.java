@@ -0,0 +1,50 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+
+public class TestContractionHierarchy {
+	public Graph<CampusLocation, Double> graph = TestCompactGraph.randomGraph(200, 700, 4);
+	public CompactGraph<CampusLocation> snapshot = CompactGraph.freeze(graph);
+	public List<Node<CampusLocation>> nodes = TestCompactGraph.nodes(snapshot);
+	public ContractionHierarchy<CampusLocation> hierarchy =
+			new ContractionHierarchy<CampusLocation>(snapshot);
+
+	@Test
+	public void TestArcCount(){
+		assertEquals(snapshot.edgeCount() + hierarchy.getShortcutCount(), hierarchy.getArcCount());
+	}
+
+	@Test
+	public void TestMatchesDijkstra(){
+		SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		SearchSpace forward = new SearchSpace(snapshot.nodeCount());
+		SearchSpace backward = new SearchSpace(snapshot.nodeCount());
+		for (Node<CampusLocation> a : nodes){
+			for (Node<CampusLocation> b : nodes){
+				double expected = TestDijkstra.length(Dijkstra.getPath(a, b, snapshot, space));
+				List<Edge<Double>> path = hierarchy.getPath(a, b, forward, backward);
+				TestDijkstra.assertConnected(path, a, b);
+				assertEquals(expected, TestDijkstra.length(path), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void TestUnpacksToGraphEdges(){
+		SearchSpace forward = new SearchSpace(snapshot.nodeCount());
+		SearchSpace backward = new SearchSpace(snapshot.nodeCount());
+		for (Node<CampusLocation> b : nodes){
+			List<Edge<Double>> path = hierarchy.getPath(nodes.get(0), b, forward, backward);
+			if (path != null){
+				for (Edge<Double> e : path){
+					assertTrue(graph.containsEdge(e));
+				}
+			}
+		}
+	}
+}
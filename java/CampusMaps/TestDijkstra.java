@@ -0,0 +1,121 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+
+public class TestDijkstra {
+	public Graph<CampusLocation, Double> graph = TestCompactGraph.randomGraph(200, 700, 3);
+	public CompactGraph<CampusLocation> snapshot = CompactGraph.freeze(graph);
+	public List<Node<CampusLocation>> nodes = TestCompactGraph.nodes(snapshot);
+
+	@Test
+	public void TestSnapshotMatchesGraph(){
+		SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		for (int i = 0; i < nodes.size(); i += 10){
+			for (Node<CampusLocation> b : nodes){
+				Node<CampusLocation> a = nodes.get(i);
+				double expected = length(Dijkstra.getPath(a, b, graph));
+				List<Edge<Double>> path = Dijkstra.getPath(a, b, snapshot, space);
+				assertConnected(path, a, b);
+				assertEquals(expected, length(path), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void TestAStarMatchesDijkstra(){
+		SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		Heuristic h = new EuclideanHeuristic(snapshot);
+		for (Node<CampusLocation> a : nodes){
+			for (Node<CampusLocation> b : nodes){
+				double expected = length(Dijkstra.getPath(a, b, snapshot, space));
+				List<Edge<Double>> path = Dijkstra.getPath(a, b, snapshot, h, space);
+				assertConnected(path, a, b);
+				assertEquals(expected, length(path), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void TestBidirectionalMatchesDijkstra(){
+		SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		SearchSpace backward = new SearchSpace(snapshot.nodeCount());
+		for (Node<CampusLocation> a : nodes){
+			for (Node<CampusLocation> b : nodes){
+				double expected = length(Dijkstra.getPath(a, b, snapshot, space));
+				List<Edge<Double>> path = Dijkstra.getPath(a, b, snapshot, space, backward);
+				assertConnected(path, a, b);
+				assertEquals(expected, length(path), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void TestPathToSelf(){
+		SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		Node<CampusLocation> a = nodes.get(0);
+		assertTrue(Dijkstra.getPath(a, a, snapshot, space).isEmpty());
+		assertTrue(Dijkstra.getPath(a, a, snapshot, space, new SearchSpace(snapshot.nodeCount())).isEmpty());
+	}
+
+	@Test
+	public void TestDistancesMatchPaths(){
+		SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		List<Node<CampusLocation>> stops = nodes.subList(0, 40);
+		double[][] matrix = Dijkstra.getDistanceMatrix(stops, stops, snapshot, space);
+		for (int i = 0; i < stops.size(); i++){
+			double[] row = Dijkstra.getDistances(stops.get(i), stops, snapshot, space);
+			for (int j = 0; j < stops.size(); j++){
+				double expected = length(Dijkstra.getPath(stops.get(i), stops.get(j), snapshot, space));
+				assertEquals(expected, row[j], 1e-9);
+				assertEquals(expected, matrix[i][j], 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void TestUnknownNode(){
+		Node<CampusLocation> outside = new Node<CampusLocation>(new CampusLocation(-1, -1));
+		try{
+			Dijkstra.getPath(outside, nodes.get(0), snapshot, new SearchSpace(snapshot.nodeCount()));
+			assertTrue(false);
+		} catch (IllegalArgumentException e){}
+	}
+
+	/**
+	 * @param path a path or null
+	 * @return the total weight of path, infinity if path is null
+	 */
+	static double length(List<Edge<Double>> path){
+		if (path == null){
+			return Double.POSITIVE_INFINITY;
+		}
+		double total = 0;
+		for (Edge<Double> e : path){
+			total += e.getLabel();
+		}
+		return total;
+	}
+
+	/**
+	 * Fails unless path is null or a chain of edges from a to b.
+	 * @param path a path or null
+	 * @param a the expected start of path
+	 * @param b the expected end of path
+	 */
+	static void assertConnected(List<Edge<Double>> path, Node<?> a, Node<?> b){
+		if (path == null){
+			return;
+		}
+		Node<?> at = a;
+		for (Edge<Double> e : path){
+			assertEquals(at, e.getParent());
+			at = e.getChild();
+		}
+		assertEquals(b, at);
+	}
+}
@@ -0,0 +1,109 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+public class TestDynamicShortestPaths {
+	public Graph<CampusLocation, Double> graph = TestCompactGraph.randomGraph(150, 500, 9);
+	public List<Node<CampusLocation>> sources = new ArrayList<Node<CampusLocation>>(graph.getNodes()).subList(0, 10);
+	public DynamicShortestPaths<CampusLocation> repaired =
+			new DynamicShortestPaths<CampusLocation>(graph, sources);
+	public DynamicShortestPaths<CampusLocation> recomputed =
+			new DynamicShortestPaths<CampusLocation>(graph, sources);
+
+	@Test
+	public void TestInitialDistances(){
+		CompactGraph<CampusLocation> snapshot = CompactGraph.freeze(graph);
+		SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		assertEquals(sources.size(), repaired.getSourceCount());
+		for (Node<CampusLocation> s : sources){
+			for (Node<CampusLocation> v : graph.getNodes()){
+				double expected = TestDijkstra.length(Dijkstra.getPath(s, v, snapshot, space));
+				assertEquals(expected, repaired.getDistance(s, v), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void TestRepairMatchesRecompute(){
+		Random random = new Random(10);
+		List<Edge<Double>> edges = graph.getEdges();
+		List<Edge<Double>> changed = new ArrayList<Edge<Double>>(edges);
+		for (int i = 0; i < 400; i++){
+			int k = random.nextInt(edges.size());
+			Edge<Double> e = edges.get(k);
+			double weight;
+			switch (i % 4){
+			case 0:
+				weight = e.getLabel() * (2 + 3 * random.nextDouble());
+				break;
+			case 1:
+				weight = Double.POSITIVE_INFINITY;
+				break;
+			case 2:
+				weight = e.getLabel() * random.nextDouble();
+				break;
+			default:
+				weight = e.getLabel();
+			}
+			Node<CampusLocation> parent = new Node<CampusLocation>((CampusLocation) e.getParent().getData());
+			Node<CampusLocation> child = new Node<CampusLocation>((CampusLocation) e.getChild().getData());
+			repaired.setWeight(parent, child, weight);
+			recomputed.setWeight(parent, child, weight);
+			recomputed.recompute();
+			changed.set(k, new Edge<Double>(parent, child, weight));
+			for (Node<CampusLocation> s : sources){
+				for (Node<CampusLocation> v : graph.getNodes()){
+					assertEquals(recomputed.getDistance(s, v), repaired.getDistance(s, v), 1e-9);
+				}
+			}
+		}
+		GraphBuilder<CampusLocation, Double> builder = new GraphBuilder<CampusLocation, Double>();
+		builder.addNodes(graph.getNodes());
+		for (Edge<Double> e : changed){
+			if (e.getLabel() < Double.POSITIVE_INFINITY){
+				builder.addEdge(e);
+			}
+		}
+		CompactGraph<CampusLocation> snapshot = CompactGraph.freeze(builder.build());
+		SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		for (Node<CampusLocation> s : sources){
+			for (Node<CampusLocation> v : graph.getNodes()){
+				List<Edge<Double>> path = repaired.getPath(s, v);
+				TestDijkstra.assertConnected(path, s, v);
+				double expected = TestDijkstra.length(Dijkstra.getPath(s, v, snapshot, space));
+				assertEquals(expected, repaired.getDistance(s, v), 1e-9);
+				assertEquals(expected, TestDijkstra.length(path), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void TestUnknownEdge(){
+		try{
+			repaired.setWeight(sources.get(0), sources.get(0), 1);
+			assertTrue(false);
+		} catch (IllegalArgumentException e){}
+	}
+
+	@Test
+	public void TestRejectsBadWeights(){
+		CompactGraph<CampusLocation> snapshot = CompactGraph.freeze(graph);
+		Node<CampusLocation> parent = snapshot.getNode(snapshot.source(0));
+		Node<CampusLocation> child = snapshot.getNode(snapshot.target(0));
+		double before = repaired.getDistance(sources.get(0), child);
+		for (double weight : new double[] { -1, Double.NaN }){
+			try{
+				repaired.setWeight(parent, child, weight);
+				assertTrue(false);
+			} catch (IllegalArgumentException ex){}
+		}
+		assertEquals(before, repaired.getDistance(sources.get(0), child), 0);
+	}
+}
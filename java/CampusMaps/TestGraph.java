@@ -0,0 +1,84 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+
+public class TestGraph {
+	public Graph<CampusLocation, Double> graph = TestCompactGraph.randomGraph(200, 800, 18);
+	public List<Node<CampusLocation>> nodes = new ArrayList<Node<CampusLocation>>(graph.getNodes());
+
+	@Test
+	public void TestParentsViewMatchesEdges(){
+		int seen = 0;
+		for (Node<CampusLocation> n : nodes){
+			for (Edge<Double> e : graph.getParentsView(n)){
+				assertEquals(n, e.getChild());
+				assertTrue(graph.containsEdge(e));
+				seen++;
+			}
+		}
+		assertEquals(graph.getEdges().size(), seen);
+	}
+
+	@Test
+	public void TestRemoveNodeRemovesItsEdges(){
+		List<Edge<Double>> edges = graph.getEdges();
+		for (int i = 0; i < nodes.size(); i += 3){
+			graph.removeNode(nodes.get(i));
+		}
+		List<Edge<Double>> expected = new ArrayList<Edge<Double>>();
+		for (Edge<Double> e : edges){
+			if (graph.containsNode(e.getParent()) && graph.containsNode(e.getChild())){
+				expected.add(e);
+			}
+		}
+		assertEquals(expected.size(), graph.getEdges().size());
+		assertEquals(new HashSet<Edge<Double>>(expected), new HashSet<Edge<Double>>(graph.getEdges()));
+		for (Node<CampusLocation> n : graph.getNodes()){
+			for (Edge<Double> e : graph.getParentsView(n)){
+				assertTrue(graph.containsNode(e.getParent()));
+			}
+		}
+	}
+
+	@Test
+	public void TestRemoveNodeWithLoopsAndParallelEdges(){
+		Node<CampusLocation> a = new Node<CampusLocation>(new CampusLocation(0, 0));
+		Node<CampusLocation> b = new Node<CampusLocation>(new CampusLocation(1, 0));
+		Graph<CampusLocation, Double> g = new Graph<CampusLocation, Double>();
+		g.addNode(a);
+		g.addNode(b);
+		g.addEdge(new Edge<Double>(a, a, 1.0));
+		g.addEdge(new Edge<Double>(a, b, 1.0));
+		g.addEdge(new Edge<Double>(a, b, 2.0));
+		g.addEdge(new Edge<Double>(b, a, 1.0));
+		g.addEdge(new Edge<Double>(b, b, 1.0));
+		g.removeNode(a);
+		assertFalse(g.containsNode(a));
+		assertEquals(1, g.getEdges().size());
+		assertEquals(1, g.getParentsView(b).size());
+		try{
+			g.removeNode(a);
+			assertTrue(false);
+		} catch (IllegalArgumentException e){}
+	}
+
+	@Test
+	public void TestAddAll(){
+		Graph<CampusLocation, Double> other = TestCompactGraph.randomGraph(100, 300, 19);
+		List<Edge<Double>> expected = graph.getEdges();
+		expected.addAll(other.getEdges());
+		int version = graph.getVersion();
+		graph.addAll(other);
+		assertTrue(graph.getNodes().containsAll(other.getNodes()));
+		assertEquals(expected.size(), graph.getEdges().size());
+		assertEquals(new HashSet<Edge<Double>>(expected), new HashSet<Edge<Double>>(graph.getEdges()));
+		assertTrue(graph.getVersion() != version);
+	}
+}
@@ -0,0 +1,70 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+public class TestIndexedHeap {
+	public IndexedHeap heap = new IndexedHeap(1000);
+
+	@Test
+	public void TestEmpty(){
+		assertTrue(heap.isEmpty());
+		assertEquals(0, heap.size());
+		assertFalse(heap.contains(0));
+	}
+
+	@Test
+	public void TestPopsInKeyOrder(){
+		Random random = new Random(2);
+		double[] keys = new double[1000];
+		for (int id = 0; id < keys.length; id++){
+			keys[id] = random.nextDouble();
+			heap.push(id, keys[id]);
+		}
+		assertEquals(keys.length, heap.size());
+		double[] popped = new double[keys.length];
+		for (int i = 0; i < popped.length; i++){
+			assertEquals(keys.length - i, heap.size());
+			popped[i] = heap.minKey();
+			int id = heap.pop();
+			assertEquals(keys[id], popped[i], 0);
+			assertFalse(heap.contains(id));
+		}
+		Arrays.sort(keys);
+		assertArrayEquals(keys, popped, 0);
+		assertTrue(heap.isEmpty());
+	}
+
+	@Test
+	public void TestDecreaseKey(){
+		for (int id = 0; id < 100; id++){
+			heap.push(id, 100 + id);
+		}
+		heap.push(50, 1);
+		heap.push(99, 0.5);
+		assertEquals(100, heap.size());
+		assertEquals(99, heap.pop());
+		assertEquals(50, heap.pop());
+		assertEquals(0, heap.pop());
+	}
+
+	@Test
+	public void TestClear(){
+		for (int id = 0; id < 10; id++){
+			heap.push(id, id);
+		}
+		heap.clear();
+		assertTrue(heap.isEmpty());
+		for (int id = 0; id < 10; id++){
+			assertFalse(heap.contains(id));
+		}
+		heap.push(7, 3);
+		assertEquals(1, heap.size());
+		assertEquals(7, heap.pop());
+	}
+}
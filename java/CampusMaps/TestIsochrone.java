@@ -0,0 +1,84 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+
+public class TestIsochrone {
+	public CompactGraph<CampusLocation> snapshot =
+			CompactGraph.freeze(TestCompactGraph.randomGraph(200, 700, 13));
+	public Isochrone isochrone = new Isochrone(snapshot);
+
+	@Test
+	public void TestMatchesDijkstra(){
+		SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		int[] reached = new int[snapshot.nodeCount()];
+		double[] distances = new double[snapshot.nodeCount()];
+		for (int origin = 0; origin < snapshot.nodeCount(); origin += 5){
+			Dijkstra.searchAll(origin, snapshot, space);
+			for (double radius = 0; radius <= 2000; radius += 400){
+				int found = isochrone.search(origin, radius);
+				int expected = 0;
+				for (int v = 0; v < snapshot.nodeCount(); v++){
+					double d = space.isSettled(v) ? space.distance(v) : Double.POSITIVE_INFINITY;
+					if (d <= radius){
+						expected++;
+						assertEquals(d, isochrone.getDistance(v), 1e-9);
+					} else {
+						assertEquals(Double.POSITIVE_INFINITY, isochrone.getDistance(v), 0);
+					}
+				}
+				assertEquals(expected, found);
+				assertEquals(found, isochrone.copyReached(reached, distances));
+				for (int i = 0; i < found; i++){
+					assertEquals(isochrone.getDistance(reached[i]), distances[i], 0);
+					assertTrue(i == 0 || distances[i - 1] <= distances[i]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void TestHullContainsReached(){
+		int[] reached = new int[snapshot.nodeCount()];
+		for (int origin = 0; origin < snapshot.nodeCount(); origin += 5){
+			int found = isochrone.search(origin, 1500);
+			isochrone.copyReached(reached, null);
+			List<CampusLocation> hull = isochrone.getHull();
+			Set<CampusLocation> locations = new HashSet<CampusLocation>();
+			for (int i = 0; i < found; i++){
+				locations.add(snapshot.getNode(reached[i]).getData());
+			}
+			assertTrue(locations.containsAll(hull));
+			if (locations.size() >= 3 && hull.size() >= 3){
+				for (int i = 0; i < hull.size(); i++){
+					CampusLocation a = hull.get(i);
+					CampusLocation b = hull.get((i + 1) % hull.size());
+					for (CampusLocation p : locations){
+						// counterclockwise for y up, so every location is on the left
+						assertTrue(cross(a, b, p) >= -1e-6);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void TestHullOfOneNode(){
+		isochrone.search(0, 0);
+		assertEquals(1, isochrone.getHull().size());
+		assertEquals(snapshot.getNode(0).getData(), isochrone.getHull().get(0));
+	}
+
+	//Returns the cross product of b - a and p - a, positive if p is left of
+	//the line from a to b
+	private static double cross(CampusLocation a, CampusLocation b, CampusLocation p){
+		return (b.getX() - a.getX()) * (p.getY() - a.getY())
+				- (b.getY() - a.getY()) * (p.getX() - a.getX());
+	}
+}
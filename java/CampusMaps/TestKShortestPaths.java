@@ -0,0 +1,66 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+
+public class TestKShortestPaths {
+	public CompactGraph<CampusLocation> snapshot =
+			CompactGraph.freeze(TestCompactGraph.randomGraph(10, 35, 12));
+	public List<Node<CampusLocation>> nodes = TestCompactGraph.nodes(snapshot);
+	public KShortestPaths<CampusLocation> yen = new KShortestPaths<CampusLocation>(snapshot);
+
+	@Test
+	public void TestMatchesEnumeration(){
+		int k = 6;
+		for (int s = 0; s < snapshot.nodeCount(); s++){
+			for (int t = 0; t < snapshot.nodeCount(); t++){
+				List<Double> expected = new ArrayList<Double>();
+				enumerate(s, t, new boolean[snapshot.nodeCount()], 0, expected);
+				Collections.sort(expected);
+				List<List<Edge<Double>>> paths = yen.getPaths(nodes.get(s), nodes.get(t), k);
+				assertEquals(Math.min(k, expected.size()), paths.size());
+				Set<List<Edge<Double>>> seen = new HashSet<List<Edge<Double>>>();
+				for (int i = 0; i < paths.size(); i++){
+					List<Edge<Double>> path = paths.get(i);
+					TestDijkstra.assertConnected(path, nodes.get(s), nodes.get(t));
+					assertTrue(seen.add(path));
+					Set<Node<?>> visited = new HashSet<Node<?>>();
+					visited.add(nodes.get(s));
+					for (Edge<Double> e : path){
+						assertTrue(visited.add(e.getChild()));
+					}
+					assertEquals(expected.get(i), TestDijkstra.length(path), 1e-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void TestNoPaths(){
+		assertTrue(yen.getPaths(nodes.get(0), nodes.get(1), 0).isEmpty());
+	}
+
+	//Adds the length of every path from u to t that avoids the visited
+	//nodes to lengths, where length is the length of the path so far
+	private void enumerate(int u, int t, boolean[] visited, double length, List<Double> lengths){
+		if (u == t){
+			lengths.add(length);
+			return;
+		}
+		visited[u] = true;
+		for (int e = snapshot.firstEdge(u); e < snapshot.endEdge(u); e++){
+			if (!visited[snapshot.target(e)]){
+				enumerate(snapshot.target(e), t, visited, length + snapshot.weight(e), lengths);
+			}
+		}
+		visited[u] = false;
+	}
+}
@@ -0,0 +1,111 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.junit.Test;
+
+
+public class TestLandmarkHeuristic {
+	public Graph<CampusLocation, Double> graph = TestCompactGraph.randomGraph(200, 700, 5);
+	public CompactGraph<CampusLocation> snapshot = CompactGraph.freeze(graph);
+	public List<Node<CampusLocation>> nodes = TestCompactGraph.nodes(snapshot);
+	public LandmarkHeuristic landmarks = new LandmarkHeuristic(snapshot);
+
+	@Test
+	public void TestLowerBound(){
+		SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		for (int v = 0; v < snapshot.nodeCount(); v++){
+			Dijkstra.searchAllReverse(v, snapshot, space);
+			for (int u = 0; u < snapshot.nodeCount(); u++){
+				if (space.isSettled(u)){
+					assertTrue(landmarks.estimate(u, v) <= space.distance(u) + 1e-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void TestMatchesDijkstra(){
+		SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		SearchSpace alt = new SearchSpace(snapshot.nodeCount());
+		for (Node<CampusLocation> a : nodes){
+			for (Node<CampusLocation> b : nodes){
+				double expected = TestDijkstra.length(Dijkstra.getPath(a, b, snapshot, space));
+				List<Edge<Double>> path = Dijkstra.getPath(a, b, snapshot, landmarks, alt);
+				TestDijkstra.assertConnected(path, a, b);
+				assertEquals(expected, TestDijkstra.length(path), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void TestSaveAndLoad() throws IOException{
+		File file = File.createTempFile("landmarks", ".alt");
+		try{
+			landmarks.save(file.getPath());
+			LandmarkHeuristic loaded = LandmarkHeuristic.load(file.getPath(), snapshot);
+			assertArrayEquals(landmarks.getLandmarks(), loaded.getLandmarks());
+			for (int u = 0; u < snapshot.nodeCount(); u += 7){
+				for (int v = 0; v < snapshot.nodeCount(); v += 3){
+					assertEquals(landmarks.estimate(u, v), loaded.estimate(u, v), 0);
+				}
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void TestLoadRejectsOtherGraph() throws IOException{
+		File file = File.createTempFile("landmarks", ".alt");
+		try{
+			landmarks.save(file.getPath());
+			CompactGraph<CampusLocation> other = CompactGraph.freeze(TestCompactGraph.randomGraph(200, 700, 6));
+			try{
+				LandmarkHeuristic.load(file.getPath(), other);
+				assertTrue(false);
+			} catch (IOException e){}
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void TestLoadRejectsCorruptFiles() throws IOException{
+		int n = snapshot.nodeCount();
+		assertRejected(16, -1);
+		assertRejected(16, 0);
+		assertRejected(16, n + 1);
+		assertRejected(16, Integer.MAX_VALUE);
+		assertRejected(20, -1);
+		assertRejected(20, n);
+		assertRejected(20, landmarks.getLandmarks()[0] == 0 ? 1 : 0);
+	}
+
+	//Saves landmarks with value as the int at position and fails unless
+	//load rejects the file with an IOException
+	private void assertRejected(long position, int value) throws IOException{
+		File file = File.createTempFile("landmarks", ".alt");
+		try{
+			landmarks.save(file.getPath());
+			RandomAccessFile out = new RandomAccessFile(file, "rw");
+			try{
+				out.seek(position);
+				out.writeInt(value);
+			} finally {
+				out.close();
+			}
+			try{
+				LandmarkHeuristic.load(file.getPath(), snapshot);
+				fail("Loaded landmarks with " + value + " at " + position);
+			} catch (IOException e){}
+		} finally {
+			file.delete();
+		}
+	}
+}
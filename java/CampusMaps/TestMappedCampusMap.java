@@ -0,0 +1,122 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+
+public class TestMappedCampusMap {
+	public Graph<CampusLocation, Double> graph = TestCompactGraph.randomGraph(200, 700, 8);
+	public CompactGraph<CampusLocation> snapshot = CompactGraph.freeze(graph);
+	public List<CampusBuilding> buildings = buildings(snapshot, 30);
+
+	@Test
+	public void TestRoundTrip() throws IOException{
+		MappedCampusMap map = MappedCampusMap.load(write());
+		assertEquals(snapshot.nodeCount(), map.nodeCount());
+		assertEquals(snapshot.edgeCount(), map.edgeCount());
+		for (int u = 0; u < snapshot.nodeCount(); u++){
+			assertEquals(snapshot.getNode(u).getData(), map.getLocation(u));
+			assertEquals(snapshot.firstEdge(u), map.firstEdge(u));
+			assertEquals(snapshot.endEdge(u), map.endEdge(u));
+		}
+		for (int e = 0; e < snapshot.edgeCount(); e++){
+			assertEquals(snapshot.target(e), map.target(e));
+			assertEquals(snapshot.weight(e), map.weight(e), 0);
+		}
+		List<String> names = new ArrayList<String>();
+		for (CampusBuilding b : buildings){
+			names.add(b.getShortName());
+			CampusBuilding loaded = map.getBuilding(b.getShortName());
+			assertEquals(b.getLongName(), loaded.getLongName());
+			assertEquals(b.getLocation(), loaded.getLocation());
+		}
+		assertEquals(names, map.getBuildingNames());
+		assertEquals(-1, map.getBuildingNode("Off"));
+		assertNull(map.getBuilding("None"));
+	}
+
+	@Test
+	public void TestRoutesMatchDijkstra() throws IOException{
+		MappedCampusMap map = MappedCampusMap.load(write());
+		SearchSpace space = new SearchSpace(snapshot.nodeCount());
+		SearchSpace mapped = new SearchSpace(map.nodeCount());
+		for (CampusBuilding a : buildings){
+			for (CampusBuilding b : buildings){
+				if (map.getBuildingNode(a.getShortName()) >= 0 && map.getBuildingNode(b.getShortName()) >= 0){
+					double expected = TestDijkstra.length(Dijkstra.getPath(new Node<CampusLocation>(a.getLocation()),
+							new Node<CampusLocation>(b.getLocation()), snapshot, space));
+					CampusPath path = map.getPath(a.getShortName(), b.getShortName(), mapped);
+					assertEquals(expected, path == null ? Double.POSITIVE_INFINITY : path.getTotalDistance(), 1e-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void TestRejectsCorruptFiles() throws IOException{
+		int n = snapshot.nodeCount();
+		int m = snapshot.edgeCount();
+		int b = buildings.size();
+		long firstTarget = 32 + 8L * (2 * n + m + 2 * b) + 4L * (n + 1);
+		assertRejected(0, 0);
+		assertRejected(4, MappedCampusMap.FORMAT_VERSION + 1);
+		assertRejected(firstTarget, n);
+		assertRejected(firstTarget - 4, m + 1);
+		assertRejected(firstTarget + 4L * m, n);
+		String file = write();
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		try{
+			out.setLength(out.length() - 1);
+		} finally {
+			out.close();
+		}
+		try{
+			MappedCampusMap.load(file);
+			fail("Loaded a truncated map");
+		} catch (IOException e){}
+	}
+
+	//Writes the map with value as the int at position and fails unless
+	//load rejects it
+	private void assertRejected(long position, int value) throws IOException{
+		String file = write();
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		try{
+			out.seek(position);
+			out.writeInt(value);
+		} finally {
+			out.close();
+		}
+		try{
+			MappedCampusMap.load(file);
+			fail("Loaded a map with " + value + " at " + position);
+		} catch (IOException e){}
+	}
+
+	//Writes graph and buildings to a new temporary map file and returns
+	//its name
+	private String write() throws IOException{
+		File file = File.createTempFile("campus", ".map");
+		file.deleteOnExit();
+		MappedCampusMap.write(file.getPath(), graph, buildings);
+		return file.getPath();
+	}
+
+	//Returns buildings at the first count nodes of g and one building that
+	//is not on any path
+	private static List<CampusBuilding> buildings(CompactGraph<CampusLocation> g, int count){
+		List<CampusBuilding> result = new ArrayList<CampusBuilding>();
+		for (int u = 0; u < count; u++){
+			result.add(new CampusBuilding("B" + u, "Building \u00e9 " + u, g.getNode(u).getData()));
+		}
+		result.add(new CampusBuilding("Off", "Off the paths", new CampusLocation(-10, -10)));
+		return result;
+	}
+}
@@ -0,0 +1,67 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+
+public class TestRouteCache {
+	public CampusBuilding a = new CampusBuilding("A", "Building A", new CampusLocation(0, 0));
+	public CampusBuilding b = new CampusBuilding("B", "Building B", new CampusLocation(10, 0));
+	public CampusBuilding c = new CampusBuilding("C", "Building C", new CampusLocation(20, 0));
+	public CampusPath path = new CampusPath(new ArrayList<Edge<Double>>(), a, b);
+	public RouteCache cache = new RouteCache(2);
+
+	@Test
+	public void TestHitAndMiss(){
+		assertNull(cache.get(new BuildingPair(a, b), 1));
+		cache.put(new BuildingPair(a, b), path, 1);
+		assertSame(path, cache.get(new BuildingPair(a, b), 1));
+		assertNull(cache.get(new BuildingPair(b, a), 1));
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	public void TestEvictsLeastRecentlyUsed(){
+		cache.get(new BuildingPair(a, b), 1);
+		cache.put(new BuildingPair(a, b), path, 1);
+		cache.put(new BuildingPair(b, c), path, 1);
+		cache.get(new BuildingPair(a, b), 1);
+		cache.put(new BuildingPair(a, c), path, 1);
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertNotNull(cache.get(new BuildingPair(a, b), 1));
+		assertNull(cache.get(new BuildingPair(b, c), 1));
+	}
+
+	@Test
+	public void TestNewVersionInvalidates(){
+		cache.get(new BuildingPair(a, b), 1);
+		cache.put(new BuildingPair(a, b), path, 1);
+		assertNull(cache.get(new BuildingPair(a, b), 2));
+		assertEquals(0, cache.size());
+		assertEquals(1, cache.getInvalidations());
+		cache.put(new BuildingPair(a, b), path, 1);
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void TestModelDropsRoutesWhenGraphChanges() throws IOException{
+		CampusModel model = new CampusModel(
+				TestCampusModel.writeFile("A\tBuilding A\t0\t0\nB\tBuilding B\t10\t0\nC\tBuilding C\t20\t0\n"),
+				TestCampusModel.writeFile("0.0,0.0\n\t10.0,0.0: 10.0\n\t20.0,0.0: 50.0\n"
+						+ "10.0,0.0\n\t0.0,0.0: 10.0\n\t20.0,0.0: 10.0\n"
+						+ "20.0,0.0\n\t10.0,0.0: 10.0\n\t0.0,0.0: 50.0\n"));
+		assertEquals(20, model.getPath(model.getBuilding("A"), model.getBuilding("C")).getTotalDistance(), 1e-9);
+		assertEquals(20, model.getPath(model.getBuilding("A"), model.getBuilding("C")).getTotalDistance(), 1e-9);
+		assertEquals(1, model.getRouteCache().getHits());
+		model.getGraph().removeEdge(new Edge<Double>(new Node<CampusLocation>(new CampusLocation(0, 0)),
+				new Node<CampusLocation>(new CampusLocation(10, 0)), 10.0));
+		assertEquals(50, model.getPath(model.getBuilding("A"), model.getBuilding("C")).getTotalDistance(), 1e-9);
+		assertEquals(1, model.getRouteCache().getInvalidations());
+	}
+}
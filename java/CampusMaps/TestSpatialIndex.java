@@ -0,0 +1,72 @@
+package sample;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+public class TestSpatialIndex {
+	public CompactGraph<CampusLocation> snapshot =
+			CompactGraph.freeze(TestCompactGraph.randomGraph(500, 600, 14));
+	public SpatialIndex index = new SpatialIndex(snapshot);
+
+	@Test
+	public void TestNearestMatchesScan(){
+		Random random = new Random(15);
+		double[] scan = new double[snapshot.nodeCount()];
+		for (int i = 0; i < 500; i++){
+			double x = random.nextDouble() * 1200 - 100;
+			double y = random.nextDouble() * 1200 - 100;
+			for (int v = 0; v < snapshot.nodeCount(); v++){
+				scan[v] = distance(v, x, y);
+			}
+			Arrays.sort(scan);
+			assertEquals(scan[0], distance(index.nearest(x, y), x, y), 0);
+			int[] found = index.nearest(x, y, 8);
+			assertEquals(8, found.length);
+			for (int j = 0; j < found.length; j++){
+				assertEquals(scan[j], distance(found[j], x, y), 0);
+			}
+		}
+	}
+
+	@Test
+	public void TestNearestOfEveryNode(){
+		for (int v = 0; v < snapshot.nodeCount(); v++){
+			CampusLocation l = snapshot.getNode(v).getData();
+			assertEquals(0, distance(index.nearest(l.getX(), l.getY()), l.getX(), l.getY()), 0);
+		}
+	}
+
+	@Test
+	public void TestMoreThanSize(){
+		assertEquals(snapshot.nodeCount(), index.size());
+		assertEquals(snapshot.nodeCount(), index.nearest(0, 0, snapshot.nodeCount() + 5).length);
+		assertEquals(0, index.nearest(0, 0, 0).length);
+		SpatialIndex empty = new SpatialIndex(CompactGraph.freeze(new Graph<CampusLocation, Double>()));
+		assertEquals(-1, empty.nearest(0, 0));
+	}
+
+	@Test
+	public void TestModelRoutesBetweenPoints() throws IOException{
+		CampusModel model = new CampusModel(
+				TestCampusModel.writeFile("A\tBuilding A\t0\t0\nB\tBuilding B\t10\t0\n"),
+				TestCampusModel.writeFile("0.0,0.0\n\t10.0,0.0: 10.0\n\t0.0,0.04: 1.0\n"
+						+ "10.0,0.0\n\t0.0,0.0: 10.0\n"
+						+ "0.0,0.04\n\t0.0,0.0: 1.0\n"));
+		assertEquals(new CampusLocation(0, 0.04), model.getNearestLocation(new CampusLocation(1, 0.05)));
+		assertEquals(10, model.getPath(new CampusLocation(1, -1), new CampusLocation(9, 1)).getTotalDistance(), 1e-9);
+		assertEquals(11, model.getPath(new CampusLocation(0, 0.05), new CampusLocation(9, 1)).getTotalDistance(), 1e-9);
+		assertEquals(0, model.getRouteCache().size());
+	}
+
+	//Returns the straight line distance from node v to (x, y)
+	private double distance(int v, double x, double y){
+		CampusLocation l = snapshot.getNode(v).getData();
+		return Math.hypot(l.getX() - x, l.getY() - y);
+	}
+}
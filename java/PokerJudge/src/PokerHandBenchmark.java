@@ -0,0 +1,129 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * PokerHandBenchmark measures how fast PokerHands are built and compared
+ * on random deals, the way a JMH benchmark in average time mode with the
+ * GC profiler would. Each benchmark runs for a few timed warmup iterations
+ * that are thrown away and then for a few timed measurement iterations,
+ * and prints the mean time per operation, operations per second and bytes
+ * allocated per operation.
+ *
+ * Usage: PokerHandBenchmark [hands [seed]]
+ */
+public class PokerHandBenchmark {
+
+	private static final int WARMUPS = 3;
+	private static final int ITERATIONS = 5;
+	private static final long ITERATION_NANOS = 1000000000L;
+
+	// Results written here cannot be optimized away
+	private static volatile long sink;
+
+	/**
+	 * Deals random hands and prints the time taken to parse and compare
+	 * them.
+	 * @param args optionally the number of hands to deal and the seed of
+	 * the deals
+	 */
+	public static void main(String[] args){
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+		String[] deals = deal(count, new Random(seed));
+		PokerHand[] hands = new PokerHand[count];
+		for (int i = 0; i < count; i++){
+			hands[i] = new PokerHand(deals[i]);
+		}
+
+		System.out.printf("%-24s %12s %12s %12s%n", "Benchmark", "avgt ns/op", "ops/s", "alloc B/op");
+		measure("hand.parse", deals, hands, false);
+		measure("hand.compareTo", deals, hands, true);
+	}
+
+	//Runs one benchmark and prints its row. Compares consecutive hands if
+	//compare is true, otherwise parses consecutive deals.
+	private static void measure(String name, String[] deals, PokerHand[] hands, boolean compare){
+		for (int i = 0; i < WARMUPS; i++){
+			iterate(deals, hands, compare, null);
+		}
+		long[] totals = new long[3];
+		long ops = 0;
+		long nanos = 0;
+		long allocated = 0;
+		for (int i = 0; i < ITERATIONS; i++){
+			iterate(deals, hands, compare, totals);
+			ops += totals[0];
+			nanos += totals[1];
+			allocated += totals[2];
+		}
+		System.out.printf("%-24s %12.1f %12.0f %12s%n", name, (double) nanos / ops,
+				ops / (nanos / 1e9), allocated < 0 ? "n/a" : String.format("%.0f", (double) allocated / ops));
+	}
+
+	//Runs the benchmark for one iteration and stores the operations run,
+	//the nanoseconds taken and the bytes allocated in totals, if it is not
+	//null
+	private static void iterate(String[] deals, PokerHand[] hands, boolean compare, long[] totals){
+		long bytes = allocatedBytes();
+		long start = System.nanoTime();
+		long now;
+		long ops = 0;
+		long result = 0;
+		int n = hands.length;
+		do {
+			// check the clock once per pass over the hands
+			for (int i = 0; i < n; i++){
+				if (compare){
+					result += hands[i].compareTo(hands[(i + 1) % n]);
+				} else {
+					result += new PokerHand(deals[i]).hashCode();
+				}
+			}
+			ops += n;
+			now = System.nanoTime();
+		} while (now - start < ITERATION_NANOS);
+		sink += result;
+		if (totals != null){
+			long after = allocatedBytes();
+			totals[0] = ops;
+			totals[1] = now - start;
+			totals[2] = bytes < 0 ? -1 : after - bytes;
+		}
+	}
+
+	//Returns count random hands, each dealt from a freshly shuffled deck
+	private static String[] deal(int count, Random random){
+		List<String> deck = new ArrayList<String>();
+		for (char value : PokerCard.CARD_VALUES){
+			for (char suit : new char[] {PokerCard.HEARTS, PokerCard.SPADES,
+					PokerCard.DIAMONDS, PokerCard.CLUBS}){
+				deck.add("" + value + suit);
+			}
+		}
+		String[] deals = new String[count];
+		for (int i = 0; i < count; i++){
+			Collections.shuffle(deck, random);
+			StringBuilder cards = new StringBuilder();
+			for (int j = 0; j < PokerHand.HAND_SIZE; j++){
+				cards.append(deck.get(j));
+			}
+			deals[i] = cards.toString();
+		}
+		return deals;
+	}
+
+	//Returns the bytes allocated by the calling thread so far, or -1 if the
+	//JVM does not count them
+	private static long allocatedBytes(){
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean){
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+					Thread.currentThread().getId());
+		}
+		return -1;
+	}
+}